@@ -0,0 +1,164 @@
+package com.bancodigital.corebanking.benchmark;
+
+import com.bancodigital.corebanking.dto.ExtratoLinha;
+import com.bancodigital.corebanking.dto.TransacaoArquivada;
+import com.bancodigital.corebanking.model.Cliente;
+import com.bancodigital.corebanking.model.Conta;
+import com.bancodigital.corebanking.model.Transacao.TipoTransacao;
+import com.bancodigital.corebanking.service.ArquivoColunar;
+import com.bancodigital.corebanking.service.ClienteService;
+import com.bancodigital.corebanking.service.HistoricoTransacoes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Extrato de uma semana de uma conta sobre um mês sintético de transferências: pela tabela
+ * (as duas consultas por índice do {@link HistoricoTransacoes}) e pelo arquivo colunar mapeado.
+ *
+ * O padrão é 1 milhão de linhas; o histórico de 100 milhões é rodado com
+ * {@code -p linhas=100000000 -jvmArgs -Xmx24g}, já que o H2 do benchmark fica em memória.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ArquivoColunarBenchmark {
+
+    private static final LocalDateTime INICIO_MES = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final LocalDateTime INICIO_CONSULTA = LocalDateTime.of(2024, 1, 8, 0, 0);
+    private static final LocalDateTime FIM_CONSULTA = LocalDateTime.of(2024, 1, 14, 23, 59, 59);
+    private static final String INSERIR = "INSERT INTO transacao"
+            + " (id, tipo, valor, taxa, data_hora, descricao, conta_origem_id, conta_destino_id)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int TAMANHO_LOTE = 10_000;
+
+    @Param({"1000000"})
+    private int linhas;
+
+    @Param({"200"})
+    private int contas;
+
+    private ConfigurableApplicationContext contexto;
+    private HistoricoTransacoes historicoTransacoes;
+    private ArquivoColunar.Leitor leitor;
+    private Path diretorio;
+    private long[] contaIds;
+
+    @Setup
+    public void preparar() throws IOException {
+        contexto = ContextoBenchmark.iniciar();
+        historicoTransacoes = contexto.getBean(HistoricoTransacoes.class);
+        ClienteService clienteService = contexto.getBean(ClienteService.class);
+
+        Cliente cliente = new Cliente();
+        cliente.setNome("Cliente Histórico");
+        cliente.setCpf("00000000002");
+        cliente.setEmail("historico@bancodigital.com");
+        cliente.setTelefone("11999999999");
+        cliente = clienteService.cadastrarCliente(cliente);
+
+        contaIds = new long[contas];
+        String[] numeros = new String[contas];
+        for (int i = 0; i < contas; i++) {
+            Conta conta = clienteService.criarContaCorrenteParaCliente(cliente.getId());
+            contaIds[i] = conta.getId();
+            numeros[i] = conta.getNumeroConta();
+        }
+
+        diretorio = Files.createTempDirectory("arquivo-colunar");
+        Path arquivo = diretorio.resolve("transacoes-2024-01.col");
+        JdbcTemplate jdbcTemplate = contexto.getBean(JdbcTemplate.class);
+        long passoMicros = Duration.ofDays(31).toNanos() / 1_000 / linhas;
+        SplittableRandom random = new SplittableRandom(42);
+
+        // As mesmas linhas vão para a tabela e para o arquivo, em ordem de (data_hora, id)
+        try (ArquivoColunar.Escritor escritor = new ArquivoColunar.Escritor(arquivo)) {
+            List<Object[]> lote = new ArrayList<>(TAMANHO_LOTE);
+            for (int i = 0; i < linhas; i++) {
+                int origem = random.nextInt(contas);
+                int destino = (origem + 1 + random.nextInt(contas - 1)) % contas;
+                TransacaoArquivada transacao = new TransacaoArquivada(
+                        (long) i + 1,
+                        INICIO_MES.plusNanos(i * passoMicros * 1_000),
+                        TipoTransacao.TRANSFERENCIA,
+                        BigDecimal.valueOf(random.nextInt(1, 500_000), 2),
+                        random.nextBoolean() ? new BigDecimal("0.30") : null,
+                        "Transferência entre contas",
+                        contaIds[origem], numeros[origem],
+                        contaIds[destino], numeros[destino]);
+                escritor.gravar(transacao);
+                lote.add(new Object[]{
+                        transacao.getId(), transacao.getTipo().name(), transacao.getValor(), transacao.getTaxa(),
+                        Timestamp.valueOf(transacao.getDataHora()), transacao.getDescricao(),
+                        transacao.getContaOrigemId(), transacao.getContaDestinoId()});
+                if (lote.size() == TAMANHO_LOTE) {
+                    jdbcTemplate.batchUpdate(INSERIR, lote);
+                    lote.clear();
+                }
+            }
+            if (!lote.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERIR, lote);
+            }
+            escritor.concluir();
+        }
+        leitor = new ArquivoColunar.Leitor(arquivo);
+    }
+
+    @TearDown
+    public void encerrar() throws IOException {
+        leitor.close();
+        contexto.close();
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            for (Path arquivo : arquivos.toList()) {
+                Files.delete(arquivo);
+            }
+        }
+        Files.delete(diretorio);
+    }
+
+    @Benchmark
+    public List<ExtratoLinha> periodoSql() {
+        return historicoTransacoes.periodo(sortearConta(), INICIO_CONSULTA, FIM_CONSULTA);
+    }
+
+    @Benchmark
+    public List<ExtratoLinha> periodoColunar() {
+        List<ExtratoLinha> extrato = new ArrayList<>();
+        leitor.ler(sortearConta(), INICIO_CONSULTA, FIM_CONSULTA, transacao -> extrato.add(transacao.paraExtratoLinha()));
+        Collections.reverse(extrato);
+        return extrato;
+    }
+
+    private long sortearConta() {
+        return contaIds[ThreadLocalRandom.current().nextInt(contaIds.length)];
+    }
+}
@@ -0,0 +1,78 @@
+package com.bancodigital.corebanking.benchmark;
+
+import com.bancodigital.corebanking.model.Cliente;
+import com.bancodigital.corebanking.model.Conta;
+import com.bancodigital.corebanking.model.Transacao;
+import com.bancodigital.corebanking.service.ClienteService;
+import com.bancodigital.corebanking.service.ContaQuenteService;
+import com.bancodigital.corebanking.service.ContaService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Créditos simultâneos em uma única conta, com 1 (conta comum) ou K fatias de crédito.
+ * A vazão deve crescer com K enquanto houver threads disputando a linha da conta.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(16)
+@Fork(1)
+public class ContaQuenteBenchmark {
+
+    private static final BigDecimal VALOR = new BigDecimal("10.00");
+
+    @Param({"1", "4", "16"})
+    private int fatias;
+
+    private ConfigurableApplicationContext contexto;
+    private ContaService contaService;
+    private String numeroConta;
+
+    @Setup
+    public void preparar() {
+        contexto = ContextoBenchmark.iniciar();
+        contaService = contexto.getBean(ContaService.class);
+        ClienteService clienteService = contexto.getBean(ClienteService.class);
+
+        Cliente cliente = new Cliente();
+        cliente.setNome("Lojista Benchmark");
+        cliente.setCpf("00000000000");
+        cliente.setEmail("lojista@bancodigital.com");
+        cliente.setTelefone("11999999999");
+        cliente = clienteService.cadastrarCliente(cliente);
+
+        Conta conta = clienteService.criarContaCorrenteParaCliente(cliente.getId());
+        numeroConta = conta.getNumeroConta();
+        if (fatias > 1) {
+            contexto.getBean(ContaQuenteService.class).habilitar(numeroConta, fatias);
+        }
+    }
+
+    @TearDown
+    public void encerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public Transacao creditar() {
+        return contaService.depositar(numeroConta, VALOR);
+    }
+}
@@ -0,0 +1,140 @@
+package com.bancodigital.corebanking.benchmark;
+
+import com.bancodigital.corebanking.dto.ExtratoLinha;
+import com.bancodigital.corebanking.dto.ExtratoPagina;
+import com.bancodigital.corebanking.exception.SaldoInsuficienteException;
+import com.bancodigital.corebanking.model.Cliente;
+import com.bancodigital.corebanking.model.Conta;
+import com.bancodigital.corebanking.model.Transacao;
+import com.bancodigital.corebanking.service.ClienteService;
+import com.bancodigital.corebanking.service.ContaService;
+import com.bancodigital.corebanking.service.TransacaoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Operações de conta sobre o H2 em memória. A população de contas é criada uma vez
+ * por execução; cada chamada escolhe contas ao acaso. Use {@code -t} para variar o
+ * número de threads e observar a disputa por linhas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ContaServiceBenchmark {
+
+    private static final BigDecimal SALDO_INICIAL = new BigDecimal("1000000.00");
+    private static final BigDecimal VALOR = new BigDecimal("10.00");
+
+    @Param({"100"})
+    private int quantidadeContas;
+
+    private ConfigurableApplicationContext contexto;
+    private ContaService contaService;
+    private TransacaoService transacaoService;
+    private List<Conta> contas;
+
+    @Setup
+    public void preparar() {
+        contexto = ContextoBenchmark.iniciar();
+        contaService = contexto.getBean(ContaService.class);
+        transacaoService = contexto.getBean(TransacaoService.class);
+        ClienteService clienteService = contexto.getBean(ClienteService.class);
+
+        Cliente cliente = new Cliente();
+        cliente.setNome("Cliente Benchmark");
+        cliente.setCpf("00000000000");
+        cliente.setEmail("benchmark@bancodigital.com");
+        cliente.setTelefone("11999999999");
+        cliente = clienteService.cadastrarCliente(cliente);
+
+        contas = new ArrayList<>(quantidadeContas);
+        for (int i = 0; i < quantidadeContas; i++) {
+            Conta conta = clienteService.criarContaCorrenteParaCliente(cliente.getId());
+            contaService.depositar(conta.getNumeroConta(), SALDO_INICIAL);
+            contas.add(conta);
+        }
+    }
+
+    @TearDown
+    public void encerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public Transacao depositar() {
+        return contaService.depositar(sortearConta().getNumeroConta(), VALOR);
+    }
+
+    @Benchmark
+    public Transacao sacar() {
+        try {
+            return contaService.sacar(sortearConta().getNumeroConta(), VALOR);
+        } catch (SaldoInsuficienteException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public Transacao transferir() {
+        Conta[] par = sortearPar();
+        try {
+            return contaService.transferir(par[0].getNumeroConta(), par[1].getNumeroConta(), VALOR);
+        } catch (SaldoInsuficienteException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public Transacao pix() {
+        Conta[] par = sortearPar();
+        try {
+            return contaService.pix(par[0].getNumeroConta(), par[1].getNumeroConta(), VALOR);
+        } catch (SaldoInsuficienteException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public ExtratoPagina extrato() {
+        return contaService.extrato(sortearConta().getNumeroConta(), 50, null);
+    }
+
+    @Benchmark
+    public List<ExtratoLinha> listarTransacoesRecentes() {
+        return transacaoService.listarTransacoesRecentes(List.of(sortearConta()));
+    }
+
+    private Conta sortearConta() {
+        return contas.get(ThreadLocalRandom.current().nextInt(contas.size()));
+    }
+
+    private Conta[] sortearPar() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int origem = random.nextInt(contas.size());
+        int destino = random.nextInt(contas.size() - 1);
+        if (destino >= origem) {
+            destino++;
+        }
+        return new Conta[] {contas.get(origem), contas.get(destino)};
+    }
+}
@@ -0,0 +1,51 @@
+package com.bancodigital.corebanking.benchmark;
+
+import com.bancodigital.corebanking.CoreBankingApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Sobe a aplicação completa sobre um H2 em memória, sem o data.sql, para que os
+ * benchmarks meçam o caminho real de serviço, repositório e Hibernate.
+ */
+final class ContextoBenchmark {
+
+    private ContextoBenchmark() {
+    }
+
+    static ConfigurableApplicationContext iniciar() {
+        return iniciar(Map.of());
+    }
+
+    /**
+     * @param substituicoes Propriedades que substituem as padrão (ex.: outra URL do H2)
+     */
+    static ConfigurableApplicationContext iniciar(Map<String, Object> substituicoes) {
+        Map<String, Object> propriedades = new LinkedHashMap<>();
+        propriedades.put("spring.datasource.url", "jdbc:h2:mem:benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        propriedades.put("spring.datasource.username", "sa");
+        propriedades.put("spring.datasource.password", "");
+        propriedades.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        propriedades.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        propriedades.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        propriedades.put("spring.jpa.show-sql", "false");
+        propriedades.put("spring.sql.init.mode", "never");
+        propriedades.put("server.port", "0");
+        propriedades.put("logging.level.root", "WARN");
+        // O application.properties liga DEBUG nestes pacotes, o que mediria o log e não o serviço
+        propriedades.put("logging.level.com.bancodigital.corebanking", "WARN");
+        propriedades.put("logging.level.org.springframework.security", "WARN");
+        propriedades.putAll(substituicoes);
+
+        // Como argumentos de linha de comando: têm precedência sobre o application.properties,
+        // que aponta para o MySQL, e já valem para os níveis de log, configurados antes dos
+        // initializers do contexto. Os argumentos reais do processo pertencem ao JMH.
+        String[] argumentos = propriedades.entrySet().stream()
+                .map(entrada -> "--" + entrada.getKey() + "=" + entrada.getValue())
+                .toArray(String[]::new);
+        return new SpringApplication(CoreBankingApplication.class).run(argumentos);
+    }
+}
@@ -0,0 +1,44 @@
+package com.bancodigital.corebanking.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Executa os benchmarks e grava o resultado em JSON em {@code resultados/}, um arquivo
+ * por execução, para comparar versões. Aceita as mesmas opções da linha de comando do
+ * JMH (por exemplo {@code -t 8} ou um filtro como {@code ContaServiceBenchmark.transferir}).
+ */
+public final class ExecutarBenchmarks {
+
+    private ExecutarBenchmarks() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions linhaDeComando = new CommandLineOptions(args);
+
+        File diretorio = new File("resultados");
+        diretorio.mkdirs();
+        String nomeArquivo = "benchmark-"
+                + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json";
+
+        OptionsBuilder opcoes = new OptionsBuilder();
+        opcoes.parent(linhaDeComando);
+        if (linhaDeComando.getIncludes().isEmpty()) {
+            opcoes.include(ExecutarBenchmarks.class.getPackageName() + ".*Benchmark");
+        }
+        Options resultado = opcoes
+                .resultFormat(ResultFormatType.JSON)
+                .result(new File(diretorio, nomeArquivo).getPath())
+                .build();
+        new Runner(resultado).run();
+    }
+}
@@ -0,0 +1,140 @@
+package com.bancodigital.corebanking.benchmark;
+
+import com.bancodigital.corebanking.config.JwtAuthenticationFilter;
+import com.bancodigital.corebanking.config.JwtService;
+import com.bancodigital.corebanking.model.Usuario;
+import com.bancodigital.corebanking.service.AutenticacaoService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+
+import java.io.IOException;
+import java.security.Key;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo por requisição do {@link JwtAuthenticationFilter}:
+ * <ul>
+ *   <li>{@code semToken}: requisição sem {@code Authorization}, o piso do filtro</li>
+ *   <li>{@code filtro}: o filtro atual, com o cache de tokens verificados e o de usuários
+ *       (ou só as claims, com {@code somenteClaims=true})</li>
+ *   <li>{@code filtroAnterior}: o caminho de antes dos caches, que validava o token duas vezes,
+ *       montando um parser a cada vez, e carregava o usuário do banco em toda requisição</li>
+ * </ul>
+ * Use {@code -t} para variar o número de threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final FilterChain CADEIA_VAZIA = (request, response) -> { };
+
+    @Param({"false", "true"})
+    private boolean somenteClaims;
+
+    private ConfigurableApplicationContext contexto;
+    private JwtAuthenticationFilter filtro;
+    private AutenticacaoService autenticacaoService;
+    private String secret;
+    private String cabecalho;
+
+    @Setup
+    public void preparar() {
+        contexto = ContextoBenchmark.iniciar(Map.of("jwt.principal.somente-claims", somenteClaims));
+        filtro = contexto.getBean(JwtAuthenticationFilter.class);
+        autenticacaoService = contexto.getBean(AutenticacaoService.class);
+        secret = contexto.getEnvironment().getRequiredProperty("jwt.secret");
+
+        Usuario usuario = autenticacaoService.registrarUsuario("benchmark", "benchmark123", false);
+        cabecalho = "Bearer " + contexto.getBean(JwtService.class).generateToken(usuario);
+    }
+
+    @TearDown
+    public void encerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public Authentication semToken() throws ServletException, IOException {
+        return filtrar(new MockHttpServletRequest("GET", "/api/contas"));
+    }
+
+    @Benchmark
+    public Authentication filtro() throws ServletException, IOException {
+        return filtrar(requisicaoComToken());
+    }
+
+    @Benchmark
+    public Authentication filtroAnterior() {
+        MockHttpServletRequest request = requisicaoComToken();
+        try {
+            String jwt = request.getHeader("Authorization").substring(7);
+            String username = extrairClaims(jwt).getSubject();
+            UserDetails userDetails = autenticacaoService.loadUserByUsername(username);
+            Claims claims = extrairClaims(jwt);
+            if (!username.equals(userDetails.getUsername()) || claims.getExpiration().before(new Date())) {
+                return null;
+            }
+            UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                    userDetails, null, userDetails.getAuthorities());
+            authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authToken);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private MockHttpServletRequest requisicaoComToken() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/contas");
+        request.addHeader("Authorization", cabecalho);
+        return request;
+    }
+
+    private Authentication filtrar(MockHttpServletRequest request) throws ServletException, IOException {
+        try {
+            filtro.doFilter(request, new MockHttpServletResponse(), CADEIA_VAZIA);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    // Como o JwtService fazia antes: chave e parser novos a cada leitura de claim
+    private Claims extrairClaims(String jwt) {
+        Key chave = Keys.hmacShaKeyFor(secret.getBytes());
+        return Jwts.parserBuilder()
+                .setSigningKey(chave)
+                .build()
+                .parseClaimsJws(jwt)
+                .getBody();
+    }
+}
@@ -0,0 +1,61 @@
+package com.bancodigital.corebanking.benchmark;
+
+import com.bancodigital.corebanking.config.JwtService;
+import com.bancodigital.corebanking.config.TokenVerificado;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Geração e verificação de tokens. Use {@code -t} para variar o número de threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private ConfigurableApplicationContext contexto;
+    private JwtService jwtService;
+    private UserDetails usuario;
+    private String token;
+
+    @Setup
+    public void preparar() {
+        contexto = ContextoBenchmark.iniciar();
+        jwtService = contexto.getBean(JwtService.class);
+        usuario = User.withUsername("benchmark").password("").roles("USER").build();
+        token = jwtService.generateToken(usuario);
+    }
+
+    @TearDown
+    public void encerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public String gerarToken() {
+        return jwtService.generateToken(usuario);
+    }
+
+    // Mesmo token a cada chamada: mede o caminho do cache de tokens verificados
+    @Benchmark
+    public TokenVerificado verificarToken() {
+        return jwtService.verificar(token);
+    }
+}
@@ -0,0 +1,143 @@
+package com.bancodigital.corebanking.benchmark;
+
+import com.bancodigital.corebanking.model.Cliente;
+import com.bancodigital.corebanking.model.Conta;
+import com.bancodigital.corebanking.repository.ContaRepository;
+import com.bancodigital.corebanking.service.ClienteService;
+import com.bancodigital.corebanking.service.ContaService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Débitos simultâneos em poucas contas, comparando as formas de aplicar a condição de saldo:
+ * <ul>
+ *   <li>{@code leituraEscritaEntidade}: carrega a entidade, confere o saldo em Java e grava
+ *       (o caminho anterior ao UPDATE atômico; perde atualizações sob disputa)</li>
+ *   <li>{@code leituraEscritaComTrava}: o mesmo, com {@code SELECT ... FOR UPDATE}</li>
+ *   <li>{@code updateAtomico}: {@link ContaRepository#debitarComLimite}, com a condição no UPDATE</li>
+ * </ul>
+ * Ao final de cada execução é impressa a quantidade de débitos perdidos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(16)
+@Fork(1)
+public class LancamentoAtomicoBenchmark {
+
+    private static final BigDecimal SALDO_INICIAL = new BigDecimal("1000000000.00");
+    private static final BigDecimal VALOR = new BigDecimal("10.00");
+
+    @Param({"1", "16"})
+    private int quantidadeContas;
+
+    private ConfigurableApplicationContext contexto;
+    private ContaRepository contaRepository;
+    private TransactionTemplate transactionTemplate;
+    private List<String> numerosConta;
+    private final AtomicLong debitos = new AtomicLong();
+
+    @Setup
+    public void preparar() {
+        contexto = ContextoBenchmark.iniciar();
+        contaRepository = contexto.getBean(ContaRepository.class);
+        transactionTemplate = contexto.getBean(TransactionTemplate.class);
+        ContaService contaService = contexto.getBean(ContaService.class);
+        ClienteService clienteService = contexto.getBean(ClienteService.class);
+
+        Cliente cliente = new Cliente();
+        cliente.setNome("Cliente Benchmark");
+        cliente.setCpf("00000000000");
+        cliente.setEmail("benchmark@bancodigital.com");
+        cliente.setTelefone("11999999999");
+        cliente = clienteService.cadastrarCliente(cliente);
+
+        numerosConta = new ArrayList<>(quantidadeContas);
+        for (int i = 0; i < quantidadeContas; i++) {
+            Conta conta = clienteService.criarContaCorrenteParaCliente(cliente.getId());
+            contaService.depositar(conta.getNumeroConta(), SALDO_INICIAL);
+            numerosConta.add(conta.getNumeroConta());
+        }
+    }
+
+    @TearDown
+    public void encerrar() {
+        BigDecimal debitado = BigDecimal.ZERO;
+        for (String numeroConta : numerosConta) {
+            Conta conta = contaRepository.findByNumeroConta(numeroConta).orElseThrow();
+            debitado = debitado.add(SALDO_INICIAL.subtract(conta.getSaldo()));
+        }
+        long aplicados = debitado.divide(VALOR).longValueExact();
+        System.out.printf("%n%d débitos confirmados, %d aplicados, %d perdidos%n",
+                debitos.get(), aplicados, debitos.get() - aplicados);
+        contexto.close();
+    }
+
+    @Benchmark
+    public boolean leituraEscritaEntidade() {
+        String numeroConta = sortearConta();
+        return contar(transactionTemplate.execute(status -> {
+            Conta conta = contaRepository.findByNumeroConta(numeroConta).orElseThrow();
+            return debitarEntidade(conta);
+        }));
+    }
+
+    @Benchmark
+    public boolean leituraEscritaComTrava() {
+        String numeroConta = sortearConta();
+        return contar(transactionTemplate.execute(status -> {
+            Conta conta = contaRepository.findAllByNumeroContaInParaAtualizacao(List.of(numeroConta)).get(0);
+            return debitarEntidade(conta);
+        }));
+    }
+
+    @Benchmark
+    public boolean updateAtomico() {
+        String numeroConta = sortearConta();
+        return contar(transactionTemplate.execute(status ->
+                contaRepository.debitarComLimite(numeroConta, VALOR) == 1));
+    }
+
+    private boolean debitarEntidade(Conta conta) {
+        if (conta.getSaldo().add(conta.getLimite()).compareTo(VALOR) < 0) {
+            return false;
+        }
+        conta.setSaldo(conta.getSaldo().subtract(VALOR));
+        contaRepository.save(conta);
+        return true;
+    }
+
+    private boolean contar(Boolean debitado) {
+        if (Boolean.TRUE.equals(debitado)) {
+            debitos.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    private String sortearConta() {
+        return numerosConta.get(ThreadLocalRandom.current().nextInt(numerosConta.size()));
+    }
+}
@@ -0,0 +1,299 @@
+package com.bancodigital.corebanking.benchmark;
+
+import com.bancodigital.corebanking.exception.SaldoInsuficienteException;
+import com.bancodigital.corebanking.model.Cliente;
+import com.bancodigital.corebanking.model.Conta;
+import com.bancodigital.corebanking.model.Transacao;
+import com.bancodigital.corebanking.repository.ContaRepository;
+import com.bancodigital.corebanking.repository.TransacaoRepository;
+import com.bancodigital.corebanking.service.ClienteService;
+import com.bancodigital.corebanking.service.ContaService;
+import com.bancodigital.corebanking.service.TransacaoService;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Dispara transferências aleatórias concorrentes sobre uma população sintética de contas
+ * e depois confere os invariantes do razão. Os saldos são os totais de
+ * {@link ContaRepository#findSaldoTotal}, que incluem as fatias de crédito das contas quentes.
+ * <ul>
+ *   <li>nenhuma operação falha por erro inesperado (só saldo insuficiente é aceito);</li>
+ *   <li>a soma dos saldos só diminui pelo total de taxas gravadas nas transações;</li>
+ *   <li>nenhuma conta passa do limite de cheque especial;</li>
+ *   <li>o saldo de cada conta bate com o seu histórico de transações;</li>
+ *   <li>o saldo de cada conta bate com as operações confirmadas pelo simulador
+ *       (diferenças aqui são atualizações perdidas).</li>
+ * </ul>
+ *
+ * O {@code ContaServiceConcorrenciaTest} do core-banking confere os mesmos invariantes em
+ * escala pequena a cada {@code mvn test}; este simulador serve para cargas maiores e mede
+ * vazão e latência.
+ *
+ * Uso: {@code java -cp target/benchmarks.jar com.bancodigital.corebanking.benchmark.SimuladorEstresse
+ * --contas=500 --threads=32 --operacoes=50000}. Termina com código 1 se algum invariante falhar.
+ *
+ * {@code --modo=virtual} roda as mesmas {@code threads} como threads virtuais (requer Java 21) e
+ * {@code --modo=comparar} roda as duas, cada uma num contexto novo, e imprime vazão e p99 lado a
+ * lado. {@code --pool=N} fixa o pool de conexões, como o perfil {@code virtual} da aplicação.
+ */
+public final class SimuladorEstresse {
+
+    private static final BigDecimal SALDO_INICIAL = new BigDecimal("1000.00");
+    private static final LocalDateTime INICIO_HISTORICO = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final int quantidadeContas;
+    private final int threads;
+    private final int operacoes;
+    private final boolean virtual;
+    private double vazao;
+
+    private ContaService contaService;
+    private TransacaoService transacaoService;
+    private ContaRepository contaRepository;
+    private TransacaoRepository transacaoRepository;
+
+    private final List<Conta> contas = new ArrayList<>();
+    // Efeito esperado em cada conta, somado a partir das transações confirmadas
+    private final Map<String, BigDecimal> saldoEsperado = new ConcurrentHashMap<>();
+    private final Histogram latencias = new ConcurrentHistogram(3);
+    private final AtomicLong confirmadas = new AtomicLong();
+    private final AtomicLong saldoInsuficiente = new AtomicLong();
+    private final AtomicLong outrosErros = new AtomicLong();
+    private final AtomicReference<RuntimeException> primeiroErro = new AtomicReference<>();
+
+    private SimuladorEstresse(int quantidadeContas, int threads, int operacoes, boolean virtual) {
+        this.quantidadeContas = quantidadeContas;
+        this.threads = threads;
+        this.operacoes = operacoes;
+        this.virtual = virtual;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> parametros = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                parametros.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        String modo = parametros.getOrDefault("modo", "plataforma");
+        List<Boolean> execucoes = switch (modo) {
+            case "plataforma" -> List.of(false);
+            case "virtual" -> List.of(true);
+            case "comparar" -> List.of(false, true);
+            default -> throw new IllegalArgumentException("Modo desconhecido: " + modo);
+        };
+        Map<String, Object> propriedades = new HashMap<>();
+        if (parametros.containsKey("pool")) {
+            propriedades.put("spring.datasource.hikari.maximum-pool-size", parametros.get("pool"));
+            propriedades.put("spring.datasource.hikari.minimum-idle", parametros.get("pool"));
+        }
+
+        boolean sucesso = true;
+        List<SimuladorEstresse> simuladores = new ArrayList<>();
+        for (boolean virtual : execucoes) {
+            SimuladorEstresse simulador = new SimuladorEstresse(
+                    Integer.parseInt(parametros.getOrDefault("contas", "500")),
+                    Integer.parseInt(parametros.getOrDefault("threads", "32")),
+                    Integer.parseInt(parametros.getOrDefault("operacoes", "50000")),
+                    virtual);
+            try (ConfigurableApplicationContext contexto = ContextoBenchmark.iniciar(propriedades)) {
+                sucesso &= simulador.executar(contexto);
+            }
+            simuladores.add(simulador);
+        }
+        if (simuladores.size() > 1) {
+            System.out.printf("%n%-12s %12s %12s%n", "threads", "vazão op/s", "p99 µs");
+            for (SimuladorEstresse simulador : simuladores) {
+                System.out.printf("%-12s %12.1f %12d%n", simulador.virtual ? "virtuais" : "plataforma",
+                        simulador.vazao, simulador.latencias.getValueAtPercentile(99));
+            }
+        }
+        System.exit(sucesso ? 0 : 1);
+    }
+
+    private boolean executar(ConfigurableApplicationContext contexto) throws InterruptedException {
+        contaService = contexto.getBean(ContaService.class);
+        transacaoService = contexto.getBean(TransacaoService.class);
+        contaRepository = contexto.getBean(ContaRepository.class);
+        transacaoRepository = contexto.getBean(TransacaoRepository.class);
+        criarContas(contexto.getBean(ClienteService.class));
+
+        BigDecimal somaInicial = somarSaldos();
+        long inicio = System.nanoTime();
+        dispararOperacoes();
+        double segundos = (System.nanoTime() - inicio) / 1_000_000_000.0;
+
+        imprimirDesempenho(segundos);
+        return conferirInvariantes(somaInicial);
+    }
+
+    private void criarContas(ClienteService clienteService) {
+        Cliente cliente = new Cliente();
+        cliente.setNome("Cliente Simulador");
+        cliente.setCpf("00000000001");
+        cliente.setEmail("simulador@bancodigital.com");
+        cliente.setTelefone("11999999999");
+        cliente = clienteService.cadastrarCliente(cliente);
+
+        for (int i = 0; i < quantidadeContas; i++) {
+            // Metade corrente (com cheque especial) e metade poupança
+            Conta conta = i % 2 == 0
+                    ? clienteService.criarContaCorrenteParaCliente(cliente.getId())
+                    : clienteService.criarContaPoupancaParaCliente(cliente.getId());
+            contaService.depositar(conta.getNumeroConta(), SALDO_INICIAL);
+            saldoEsperado.put(conta.getNumeroConta(), SALDO_INICIAL);
+            contas.add(conta);
+        }
+    }
+
+    private void dispararOperacoes() throws InterruptedException {
+        ExecutorService executor = virtual ? executorVirtual() : Executors.newFixedThreadPool(threads);
+        CountDownLatch largada = new CountDownLatch(1);
+        AtomicLong restantes = new AtomicLong(operacoes);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                try {
+                    largada.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                while (restantes.getAndDecrement() > 0) {
+                    executarOperacao();
+                }
+            });
+        }
+        largada.countDown();
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.HOURS);
+    }
+
+    // Por reflexão, para o módulo continuar compilando com Java 17
+    private static ExecutorService executorVirtual() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Threads virtuais requerem Java 21", e);
+        }
+    }
+
+    private void executarOperacao() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int indiceOrigem = random.nextInt(contas.size());
+        int indiceDestino = random.nextInt(contas.size() - 1);
+        if (indiceDestino >= indiceOrigem) {
+            indiceDestino++;
+        }
+        Conta origem = contas.get(indiceOrigem);
+        Conta destino = contas.get(indiceDestino);
+        BigDecimal valor = BigDecimal.valueOf(random.nextInt(1, 50_000), 2);
+
+        long inicio = System.nanoTime();
+        try {
+            Transacao transacao = switch (random.nextInt(3)) {
+                case 0 -> contaService.transferir(origem.getNumeroConta(), destino.getNumeroConta(), valor);
+                case 1 -> contaService.pix(origem.getNumeroConta(), destino.getNumeroConta(), valor);
+                default -> transacaoService.realizarTransferencia(origem.getId(), destino.getId(), valor, "Simulador");
+            };
+            BigDecimal taxa = transacao.getTaxa() == null ? BigDecimal.ZERO : transacao.getTaxa();
+            saldoEsperado.merge(origem.getNumeroConta(), valor.add(taxa).negate(), BigDecimal::add);
+            saldoEsperado.merge(destino.getNumeroConta(), valor, BigDecimal::add);
+            confirmadas.incrementAndGet();
+        } catch (SaldoInsuficienteException e) {
+            saldoInsuficiente.incrementAndGet();
+        } catch (RuntimeException e) {
+            outrosErros.incrementAndGet();
+            primeiroErro.compareAndSet(null, e);
+        } finally {
+            latencias.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - inicio));
+        }
+    }
+
+    private void imprimirDesempenho(double segundos) {
+        vazao = operacoes / segundos;
+        System.out.printf("Contas: %d, threads: %d (%s), operações: %d%n",
+                quantidadeContas, threads, virtual ? "virtuais" : "plataforma", operacoes);
+        System.out.printf("Duração: %.2f s, vazão: %.1f op/s%n", segundos, vazao);
+        System.out.printf("Latência (µs): p50=%d p99=%d p999=%d máx=%d%n",
+                latencias.getValueAtPercentile(50),
+                latencias.getValueAtPercentile(99),
+                latencias.getValueAtPercentile(99.9),
+                latencias.getMaxValue());
+        System.out.printf("Confirmadas: %d, saldo insuficiente: %d (%.2f%%), outros erros: %d%n",
+                confirmadas.get(),
+                saldoInsuficiente.get(),
+                100.0 * saldoInsuficiente.get() / operacoes,
+                outrosErros.get());
+    }
+
+    private boolean conferirInvariantes(BigDecimal somaInicial) {
+        boolean sucesso = true;
+
+        if (outrosErros.get() > 0) {
+            System.out.printf("FALHA: %d operações terminaram com erro inesperado; a primeira:%n", outrosErros.get());
+            primeiroErro.get().printStackTrace(System.out);
+            sucesso = false;
+        }
+
+        BigDecimal taxas = transacaoRepository.findAll().stream()
+                .map(Transacao::getTaxa)
+                .filter(taxa -> taxa != null)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal somaFinal = somarSaldos();
+        if (somaInicial.subtract(taxas).compareTo(somaFinal) != 0) {
+            System.out.printf("FALHA: soma dos saldos %s, esperado %s (inicial %s menos taxas %s)%n",
+                    somaFinal, somaInicial.subtract(taxas), somaInicial, taxas);
+            sucesso = false;
+        }
+
+        int estouros = 0;
+        int divergenciasHistorico = 0;
+        int atualizacoesPerdidas = 0;
+        for (Conta conta : contaRepository.findAll()) {
+            // Débitos saem só do saldo principal; créditos podem estar nas fatias
+            if (conta.getSaldo().add(conta.getLimite()).signum() < 0) {
+                estouros++;
+            }
+            BigDecimal saldoTotal = contaRepository.findSaldoTotal(conta.getId());
+            BigDecimal historico = transacaoRepository.somarMovimentos(
+                    conta.getId(), INICIO_HISTORICO, LocalDateTime.now().plusDays(1));
+            if (historico == null || historico.compareTo(saldoTotal) != 0) {
+                divergenciasHistorico++;
+            }
+            BigDecimal esperado = saldoEsperado.get(conta.getNumeroConta());
+            if (esperado != null && esperado.compareTo(saldoTotal) != 0) {
+                atualizacoesPerdidas++;
+            }
+        }
+        System.out.printf("Contas acima do limite: %d, saldo diferente do histórico: %d, atualizações perdidas: %d%n",
+                estouros, divergenciasHistorico, atualizacoesPerdidas);
+        if (estouros > 0 || divergenciasHistorico > 0 || atualizacoesPerdidas > 0) {
+            sucesso = false;
+        }
+
+        System.out.println(sucesso ? "Invariantes OK" : "Invariantes VIOLADOS");
+        return sucesso;
+    }
+
+    private BigDecimal somarSaldos() {
+        return contaRepository.findAll().stream()
+                .map(conta -> contaRepository.findSaldoTotal(conta.getId()))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
@@ -0,0 +1,76 @@
+package com.bancodigital.corebanking.benchmark;
+
+import com.bancodigital.corebanking.model.ContaCorrente;
+import com.bancodigital.corebanking.model.ContaPoupanca;
+import com.bancodigital.corebanking.model.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cálculo de taxa das contas e aritmética de um lançamento, sem banco.
+ * Rodar com {@code -prof gc} para ver as alocações por operação.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaxaBenchmark {
+
+    @Param({"50.00", "1500.00", "250000.00"})
+    private String valor;
+
+    private BigDecimal quantia;
+    private ContaCorrente contaCorrente;
+    private ContaPoupanca contaPoupanca;
+    private BigDecimal saldo;
+    private Money quantiaCentavos;
+    private Money saldoCentavos;
+
+    @Setup
+    public void preparar() {
+        quantia = new BigDecimal(valor);
+        contaCorrente = new ContaCorrente();
+        contaCorrente.setLimiteChequeEspecial(new BigDecimal("500.00"));
+        contaPoupanca = new ContaPoupanca();
+        saldo = new BigDecimal("1000000.00");
+        quantiaCentavos = Money.de(quantia);
+        saldoCentavos = Money.de(saldo);
+    }
+
+    @Benchmark
+    public BigDecimal taxaContaCorrente() {
+        return contaCorrente.calcularTaxa(quantia);
+    }
+
+    @Benchmark
+    public BigDecimal taxaContaPoupanca() {
+        return contaPoupanca.calcularTaxa(quantia);
+    }
+
+    // Débito da origem (valor + 0,3%) como era feito antes, só com BigDecimal
+    @Benchmark
+    public BigDecimal lancamentoBigDecimal() {
+        BigDecimal taxa = quantia.multiply(new BigDecimal("0.003"));
+        return saldo.subtract(quantia.add(taxa));
+    }
+
+    @Benchmark
+    public long lancamentoMoney() {
+        Money taxa = quantiaCentavos.vezesFracao(3, 1000);
+        return saldoCentavos.menos(quantiaCentavos.mais(taxa)).centavos();
+    }
+}
@@ -0,0 +1,72 @@
+package com.bancodigital.corebanking.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * Controla quando uma leitura precisa ver as próprias escritas e por isso não pode ir
+ * para uma réplica.
+ *
+ * Uma requisição opta por isso com o cabeçalho {@value #CABECALHO}{@code : forte}
+ * ({@link ConsistenciaLeituraFilter}); o código, com {@link #noPrimario(Supplier)}. A
+ * escolha vale para a conexão obtida dentro do bloco: numa transação somente leitura
+ * que já usou uma réplica, o restante da transação continua nela.
+ */
+@Component
+public class ConsistenciaLeitura {
+
+    public static final String CABECALHO = "X-Consistencia-Leitura";
+
+    private static final ThreadLocal<Boolean> EXIGE_PRIMARIO = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private final ObjectProvider<PlatformTransactionManager> transacoes;
+    private final boolean replicasConfiguradas;
+
+    public ConsistenciaLeitura(
+            ObjectProvider<PlatformTransactionManager> transacoes,
+            @Value("${banco.replicas.urls:}") String replicas) {
+        this.transacoes = transacoes;
+        this.replicasConfiguradas = !replicas.isBlank();
+    }
+
+    public static boolean exigePrimario() {
+        return EXIGE_PRIMARIO.get();
+    }
+
+    public static <T> T noPrimario(Supplier<T> leitura) {
+        boolean anterior = exigir(true);
+        try {
+            return leitura.get();
+        } finally {
+            exigir(anterior);
+        }
+    }
+
+    // Retorna o valor anterior, para ser restaurado ao final
+    static boolean exigir(boolean primario) {
+        boolean anterior = EXIGE_PRIMARIO.get();
+        EXIGE_PRIMARIO.set(primario);
+        return anterior;
+    }
+
+    /**
+     * Executa uma carga que vai alimentar um cache de longa duração. Dentro de uma transação
+     * somente leitura a conexão pode ser de uma réplica atrasada, e o valor antigo ficaria
+     * no cache depois da invalidação; nesse caso a carga roda numa transação própria no primário.
+     */
+    public <T> T carregarParaCache(Supplier<T> carga) {
+        if (!replicasConfiguradas || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return carga.get();
+        }
+        TransactionTemplate novaTransacao = new TransactionTemplate(transacoes.getObject());
+        novaTransacao.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return novaTransacao.execute(status -> carga.get());
+    }
+}
@@ -0,0 +1,36 @@
+package com.bancodigital.corebanking.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Requisições com {@code X-Consistencia-Leitura: forte} fazem todas as leituras no primário
+ * (ex.: a tela que mostra o saldo logo depois de uma transferência).
+ */
+@Component
+public class ConsistenciaLeituraFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        if (!"forte".equalsIgnoreCase(request.getHeader(ConsistenciaLeitura.CABECALHO))) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        boolean anterior = ConsistenciaLeitura.exigir(true);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ConsistenciaLeitura.exigir(anterior);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.bancodigital.corebanking.config;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Conta os comandos SQL executados pela thread atual e o tempo gasto no banco.
+ *
+ * O Hibernate cria uma instância por sessão (propriedade {@code hibernate.session.events.auto});
+ * os totais ficam em um acumulador por thread, que quem mede uma operação lê antes e depois.
+ */
+public class ContadorSql implements SessionEventListener {
+
+    private static final ThreadLocal<Acumulador> ACUMULADOR = ThreadLocal.withInitial(Acumulador::new);
+
+    private long inicioComando;
+    private long inicioLote;
+
+    public static long comandos() {
+        return ACUMULADOR.get().comandos;
+    }
+
+    public static long tempoNanos() {
+        return ACUMULADOR.get().tempoNanos;
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        inicioComando = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        Acumulador acumulador = ACUMULADOR.get();
+        acumulador.comandos++;
+        acumulador.tempoNanos += System.nanoTime() - inicioComando;
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        inicioLote = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        Acumulador acumulador = ACUMULADOR.get();
+        acumulador.comandos++;
+        acumulador.tempoNanos += System.nanoTime() - inicioLote;
+    }
+
+    private static final class Acumulador {
+        private long comandos;
+        private long tempoNanos;
+    }
+}
@@ -0,0 +1,58 @@
+package com.bancodigital.corebanking.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Envia as conexões de transações somente leitura ({@code @Transactional(readOnly = true)})
+ * para uma réplica e todo o resto para o primário. Sem réplica disponível, ou quando a
+ * requisição pediu consistência forte, a leitura vai para o primário.
+ *
+ * Deve ficar atrás de um {@code LazyConnectionDataSourceProxy}: o gerenciador de transações
+ * pede a conexão antes de marcar a transação como somente leitura.
+ *
+ * Cada escolha incrementa {@code banco.datasource.rota}, com as tags rota e motivo.
+ */
+public class DataSourceRoteado extends AbstractRoutingDataSource {
+
+    private final RoteamentoLeitura roteamento;
+    private final MeterRegistry registry;
+    private final Map<String, Counter> contadores = new ConcurrentHashMap<>();
+
+    public DataSourceRoteado(RoteamentoLeitura roteamento, MeterRegistry registry) {
+        this.roteamento = roteamento;
+        this.registry = registry;
+        setTargetDataSources(roteamento.alvos());
+        setDefaultTargetDataSource(roteamento.primario());
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return contar(RoteamentoLeitura.PRIMARIO, "escrita");
+        }
+        if (ConsistenciaLeitura.exigePrimario()) {
+            return contar(RoteamentoLeitura.PRIMARIO, "consistencia");
+        }
+        String replica = roteamento.escolherReplica();
+        if (replica == null) {
+            return contar(RoteamentoLeitura.PRIMARIO, "sem_replica");
+        }
+        return contar(replica, "leitura");
+    }
+
+    private String contar(String rota, String motivo) {
+        contadores.computeIfAbsent(rota + '|' + motivo, chave -> Counter.builder("banco.datasource.rota")
+                        .tag("rota", rota)
+                        .tag("motivo", motivo)
+                        .register(registry))
+                .increment();
+        return rota;
+    }
+}
@@ -1,39 +1,118 @@
 package com.bancodigital.corebanking.config;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
 
 @Service
 public class JwtService {
 
+    private static final String CLAIM_PERFIS = "perfis";
+
     @Value("${jwt.secret}")
     private String secretKey;
 
     @Value("${jwt.expiration}")
     private long jwtExpiration;
 
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+    @Value("${jwt.cache.tamanho-maximo:100000}")
+    private long tamanhoMaximoCache;
+
+    private Key signingKey;
+    private JwtParser parser;
+
+    // Tokens já verificados, pelo hash do token, até a expiração de cada um
+    private Cache<String, TokenVerificado> tokensVerificados;
+
+    @PostConstruct
+    void inicializar() {
+        signingKey = Keys.hmacShaKeyFor(secretKey.getBytes());
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        tokensVerificados = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximoCache)
+                .expireAfter(new Expiry<String, TokenVerificado>() {
+                    @Override
+                    public long expireAfterCreate(String chave, TokenVerificado token, long agora) {
+                        return Math.max(0, Duration.between(Instant.now(), token.expiracao()).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String chave, TokenVerificado token, long agora, long duracaoAtual) {
+                        return duracaoAtual;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String chave, TokenVerificado token, long agora, long duracaoAtual) {
+                        return duracaoAtual;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Verifica assinatura e expiração do token uma única vez. Tokens verificados
+     * recentemente são respondidos pelo cache, sem recalcular o HMAC.
+     *
+     * @param token JWT recebido
+     * @return Principal imutável do token
+     * @throws JwtException se o token for inválido ou estiver expirado
+     */
+    public TokenVerificado verificar(String token) {
+        String chave = hash(token);
+        TokenVerificado verificado = tokensVerificados.getIfPresent(chave);
+        if (verificado != null && !verificado.isExpirado(Instant.now())) {
+            return verificado;
+        }
+
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        if (claims.getExpiration() == null) {
+            throw new JwtException("Token sem expiração");
+        }
+        List<?> perfis = claims.get(CLAIM_PERFIS, List.class);
+        verificado = new TokenVerificado(claims.getSubject(), claims.getExpiration().toInstant(),
+                perfis == null ? null : perfis.stream().map(String::valueOf).toList());
+        tokensVerificados.put(chave, verificado);
+        return verificado;
     }
 
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    public String extractUsername(String token) {
+        return verificar(token).username();
     }
 
     public String generateToken(UserDetails userDetails) {
-        return generateToken(new HashMap<>(), userDetails);
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(CLAIM_PERFIS, userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList());
+        return generateToken(claims, userDetails);
     }
 
     public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
@@ -43,34 +122,38 @@ public class JwtService {
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
-    }
-
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        try {
+            return verificar(token).username().equals(userDetails.getUsername());
+        } catch (ExpiredJwtException e) {
+            return false;
+        }
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * Monta o principal apenas a partir das claims assinadas, sem consultar o banco.
+     * Nesse modo, mudanças de perfil ou desativação só valem a partir do próximo token.
+     */
+    public UserDetails criarPrincipal(TokenVerificado token) {
+        List<GrantedAuthority> authorities = token.perfis().stream()
+                .map(perfil -> (GrantedAuthority) new SimpleGrantedAuthority(perfil))
+                .toList();
+        return User.withUsername(token.username())
+                .password("")
+                .authorities(authorities)
+                .build();
     }
 
-    private Key getSigningKey() {
-        byte[] keyBytes = secretKey.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
     }
-}
\ No newline at end of file
+}
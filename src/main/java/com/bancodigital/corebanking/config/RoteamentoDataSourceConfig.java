@@ -0,0 +1,75 @@
+package com.bancodigital.corebanking.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Com {@code banco.replicas.urls} configurado, substitui o DataSource da aplicação por um
+ * {@link DataSourceRoteado} entre o primário ({@code spring.datasource.*}) e as réplicas.
+ *
+ * Os pools não são beans: assim as métricas do Spring Boot enxergam um único DataSource,
+ * e cada pool publica as próprias métricas pelo nome.
+ */
+@Configuration
+@ConditionalOnProperty(name = "banco.replicas.urls")
+public class RoteamentoDataSourceConfig {
+
+    @Bean(destroyMethod = "close")
+    public RoteamentoLeitura roteamentoLeitura(
+            DataSourceProperties propriedades,
+            Environment ambiente,
+            MeterRegistry registry,
+            @Value("${banco.replicas.urls}") String[] urls,
+            @Value("${banco.replicas.username:${spring.datasource.username:}}") String usuario,
+            @Value("${banco.replicas.password:${spring.datasource.password:}}") String senha,
+            @Value("${banco.replicas.tamanho-pool:10}") int tamanhoPool,
+            @Value("${banco.replicas.espera-conexao:PT1S}") Duration esperaConexao,
+            @Value("${banco.replicas.atraso-maximo:PT2S}") Duration atrasoMaximo) {
+        MicrometerMetricsTrackerFactory metricas = new MicrometerMetricsTrackerFactory(registry);
+
+        HikariDataSource primario = propriedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(ambiente).bind("spring.datasource.hikari", Bindable.ofInstance(primario));
+        primario.setPoolName(RoteamentoLeitura.PRIMARIO);
+        primario.setMetricsTrackerFactory(metricas);
+
+        Map<String, HikariDataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < urls.length; i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + (i + 1));
+            replica.setJdbcUrl(urls[i].trim());
+            replica.setDriverClassName(propriedades.determineDriverClassName());
+            replica.setUsername(usuario);
+            replica.setPassword(senha);
+            replica.setMaximumPoolSize(tamanhoPool);
+            // Réplica fora do ar não pode prender a leitura pelo timeout padrão de 30 s
+            replica.setConnectionTimeout(esperaConexao.toMillis());
+            replica.setReadOnly(true);
+            replica.setMetricsTrackerFactory(metricas);
+            replicas.put(replica.getPoolName(), replica);
+        }
+        return new RoteamentoLeitura(primario, replicas, atrasoMaximo, registry);
+    }
+
+    @Bean
+    public DataSource dataSource(RoteamentoLeitura roteamento, MeterRegistry registry) {
+        DataSourceRoteado roteado = new DataSourceRoteado(roteamento, registry);
+        roteado.afterPropertiesSet();
+        // A conexão real só é obtida no primeiro comando, quando a transação já está marcada
+        return new LazyConnectionDataSourceProxy(roteado);
+    }
+}
@@ -0,0 +1,148 @@
+package com.bancodigital.corebanking.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pools do primário e das réplicas e o acompanhamento do atraso de replicação.
+ *
+ * O atraso é medido por heartbeat: a cada verificação o primário grava o instante atual
+ * em {@code heartbeat_replicacao} e cada réplica é consultada; o atraso é a diferença entre
+ * agora e o instante que a réplica já recebeu. Réplicas que não respondem ou que estão
+ * além do atraso máximo ficam fora da escolha até a próxima verificação.
+ *
+ * Métricas: {@code banco.replicas.atraso} (segundos) e {@code banco.replicas.disponivel}
+ * por réplica; os pools publicam as métricas {@code hikaricp.*} com a tag {@code pool}.
+ */
+@Slf4j
+public class RoteamentoLeitura implements Closeable {
+
+    public static final String PRIMARIO = "primario";
+
+    private static final String ATUALIZAR_HEARTBEAT = "UPDATE heartbeat_replicacao SET instante = ? WHERE id = 1";
+    private static final String INSERIR_HEARTBEAT = "INSERT INTO heartbeat_replicacao (id, instante) VALUES (1, ?)";
+    private static final String LER_HEARTBEAT = "SELECT instante FROM heartbeat_replicacao WHERE id = 1";
+
+    private final HikariDataSource primario;
+    private final JdbcTemplate jdbcPrimario;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Duration atrasoMaximo;
+    private final AtomicInteger proxima = new AtomicInteger();
+
+    public RoteamentoLeitura(HikariDataSource primario, Map<String, HikariDataSource> replicas,
+                             Duration atrasoMaximo, MeterRegistry registry) {
+        this.primario = primario;
+        this.jdbcPrimario = new JdbcTemplate(primario);
+        this.atrasoMaximo = atrasoMaximo;
+        for (Map.Entry<String, HikariDataSource> entrada : replicas.entrySet()) {
+            Replica replica = new Replica(entrada.getKey(), entrada.getValue());
+            this.replicas.add(replica);
+            Gauge.builder("banco.replicas.atraso", replica, r -> r.atrasoSegundos)
+                    .tag("replica", replica.nome)
+                    .baseUnit("seconds")
+                    .register(registry);
+            Gauge.builder("banco.replicas.disponivel", replica, r -> r.disponivel ? 1 : 0)
+                    .tag("replica", replica.nome)
+                    .register(registry);
+        }
+    }
+
+    public DataSource primario() {
+        return primario;
+    }
+
+    public Map<Object, Object> alvos() {
+        Map<Object, Object> alvos = new LinkedHashMap<>();
+        alvos.put(PRIMARIO, primario);
+        for (Replica replica : replicas) {
+            alvos.put(replica.nome, replica.dataSource);
+        }
+        return alvos;
+    }
+
+    /**
+     * Próxima réplica disponível em rodízio.
+     *
+     * @return Nome da réplica, ou nulo se nenhuma está disponível
+     */
+    public String escolherReplica() {
+        int quantidade = replicas.size();
+        int inicio = Math.floorMod(proxima.getAndIncrement(), quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            Replica replica = replicas.get((inicio + i) % quantidade);
+            if (replica.disponivel) {
+                return replica.nome;
+            }
+        }
+        return null;
+    }
+
+    @Scheduled(fixedDelayString = "${banco.replicas.intervalo-verificacao:PT1S}")
+    public void verificar() {
+        LocalDateTime agora = LocalDateTime.now();
+        try {
+            if (jdbcPrimario.update(ATUALIZAR_HEARTBEAT, Timestamp.valueOf(agora)) == 0) {
+                jdbcPrimario.update(INSERIR_HEARTBEAT, Timestamp.valueOf(agora));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Falha ao gravar o heartbeat de replicação no primário", e);
+        }
+
+        for (Replica replica : replicas) {
+            boolean estavaDisponivel = replica.disponivel;
+            try {
+                Timestamp recebido = replica.jdbc.queryForObject(LER_HEARTBEAT, Timestamp.class);
+                Duration atraso = Duration.between(recebido.toLocalDateTime(), LocalDateTime.now());
+                replica.atrasoSegundos = Math.max(0, atraso.toMillis()) / 1000.0;
+                replica.disponivel = atraso.compareTo(atrasoMaximo) <= 0;
+            } catch (RuntimeException e) {
+                // Réplica fora do ar, ou sem o heartbeat ainda replicado
+                replica.atrasoSegundos = Double.NaN;
+                replica.disponivel = false;
+            }
+            if (estavaDisponivel != replica.disponivel) {
+                log.info("Réplica {} {} (atraso {} s)", replica.nome,
+                        replica.disponivel ? "disponível" : "fora do rodízio", replica.atrasoSegundos);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Replica replica : replicas) {
+            replica.dataSource.close();
+        }
+        primario.close();
+    }
+
+    private static final class Replica {
+        private final String nome;
+        private final HikariDataSource dataSource;
+        private final JdbcTemplate jdbc;
+        // Começa fora do rodízio até a primeira verificação
+        private volatile boolean disponivel;
+        private volatile double atrasoSegundos = Double.NaN;
+
+        private Replica(String nome, HikariDataSource dataSource) {
+            this.nome = nome;
+            this.dataSource = dataSource;
+            this.jdbc = new JdbcTemplate(dataSource);
+            this.jdbc.setQueryTimeout(2);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.bancodigital.corebanking.service.AutenticacaoService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -28,7 +29,15 @@ public class SecurityConfig {
         http
             .csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(auth -> auth
-                .requestMatchers("/api/auth/**", "/swagger-ui/**", "/v3/api-docs/**").permitAll()
+                .requestMatchers("/api/auth/**", "/swagger-ui/**", "/v3/api-docs/**",
+                        "/actuator/health").permitAll()
+                // Métricas por operação: só o coletor (token com ROLE_MONITORAMENTO) e administradores
+                .requestMatchers("/actuator/prometheus").hasAnyRole("ADMIN", "MONITORAMENTO")
+                .requestMatchers(HttpMethod.POST, "/api/contas/fechamento-mensal").hasRole("ADMIN")
+                .requestMatchers(HttpMethod.POST, "/api/contas/razao/importar-historico").hasRole("ADMIN")
+                .requestMatchers("/api/contas/*/conta-quente").hasRole("ADMIN")
+                .requestMatchers(HttpMethod.POST, "/api/contas/transacoes/arquivamento").hasRole("ADMIN")
+                .requestMatchers(HttpMethod.GET, "/api/contas/cache/estatisticas").hasRole("ADMIN")
                 .anyRequest().authenticated()
             )
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
@@ -51,8 +60,9 @@ public class SecurityConfig {
         return config.getAuthenticationManager();
     }
 
+    // Estático: o AutenticacaoService usa o encoder e este config usa o AutenticacaoService
     @Bean
-    public PasswordEncoder passwordEncoder() {
+    public static PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
     }
 }
\ No newline at end of file
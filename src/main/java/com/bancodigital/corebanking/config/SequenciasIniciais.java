@@ -0,0 +1,112 @@
+package com.bancodigital.corebanking.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Migração das chaves de {@code conta} e {@code transacao} de IDENTITY para as sequências
+ * {@code conta_seq} e {@code transacao_seq}. Num banco que já tem linhas, a sequência criada
+ * pelo {@code ddl-auto} começaria em 1 e colidiria com os ids existentes; por isso, antes de o
+ * Hibernate subir, cada sequência é criada (ou avançada) para depois do maior id da tabela.
+ *
+ * No MySQL a sequência é a tabela de uma linha ({@code next_val}) que o Hibernate usa para
+ * emulá-la. Em bancos com sequência nativa ela só é criada quando ainda não existe.
+ * Bancos novos, sem as tabelas, ficam a cargo do próprio Hibernate.
+ */
+@Slf4j
+@Component
+public class SequenciasIniciais {
+
+    // Mesmo allocationSize de Conta e Transacao: o primeiro bloco alocado termina em next_val
+    private static final int ALOCACAO = 50;
+
+    private static final Map<String, String> SEQUENCIAS = new LinkedHashMap<>();
+
+    static {
+        SEQUENCIAS.put("conta_seq", "conta");
+        SEQUENCIAS.put("transacao_seq", "transacao");
+    }
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    public SequenciasIniciais(DataSource dataSource) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @PostConstruct
+    void ajustar() throws SQLException {
+        boolean mysql;
+        Map<String, Boolean> existentes = new LinkedHashMap<>();
+        try (Connection conexao = dataSource.getConnection()) {
+            DatabaseMetaData metadados = conexao.getMetaData();
+            String produto = metadados.getDatabaseProductName().toLowerCase();
+            mysql = produto.contains("mysql") || produto.contains("mariadb");
+            for (String tabela : SEQUENCIAS.values()) {
+                existentes.put(tabela, existe(conexao, tabela));
+            }
+        }
+
+        for (Map.Entry<String, String> entrada : SEQUENCIAS.entrySet()) {
+            String sequencia = entrada.getKey();
+            String tabela = entrada.getValue();
+            if (!existentes.get(tabela)) {
+                continue;
+            }
+            Long maiorId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + tabela, Long.class);
+            // Os ids do primeiro bloco vão de (next_val - ALOCACAO + 1) a next_val
+            long inicio = maiorId + ALOCACAO + 1;
+
+            if (mysql) {
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + sequencia + " (next_val BIGINT) ENGINE=InnoDB");
+                int ajustadas = jdbcTemplate.update(
+                        "UPDATE " + sequencia + " SET next_val = ? WHERE next_val < ?", inicio, inicio);
+                int inseridas = jdbcTemplate.update("INSERT INTO " + sequencia + " (next_val) SELECT ? FROM DUAL"
+                        + " WHERE NOT EXISTS (SELECT 1 FROM " + sequencia + ")", inicio);
+                if (ajustadas + inseridas > 0) {
+                    log.info("Sequência {} iniciada em {} (maior id de {}: {})", sequencia, inicio, tabela, maiorId);
+                }
+            } else {
+                jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + sequencia
+                        + " START WITH " + inicio + " INCREMENT BY " + ALOCACAO);
+            }
+        }
+    }
+
+    // Nome em minúsculas (MySQL, PostgreSQL) ou maiúsculas (H2)
+    private static boolean existe(Connection conexao, String nome) throws SQLException {
+        DatabaseMetaData metadados = conexao.getMetaData();
+        for (String candidato : new String[] {nome, nome.toUpperCase()}) {
+            try (ResultSet objetos = metadados.getTables(conexao.getCatalog(), null, candidato, null)) {
+                if (objetos.next()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Faz o EntityManagerFactory, e com ele o {@code ddl-auto}, esperar a migração.
+     */
+    @Configuration(proxyBeanMethods = false)
+    static class AntesDoHibernate extends EntityManagerFactoryDependsOnPostProcessor {
+
+        AntesDoHibernate() {
+            super(SequenciasIniciais.class);
+        }
+    }
+}
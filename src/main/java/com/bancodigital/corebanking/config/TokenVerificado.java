@@ -0,0 +1,20 @@
+package com.bancodigital.corebanking.config;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Resultado imutável da verificação de um JWT: assinatura e expiração já conferidas.
+ * Guarda só os campos usados na autenticação, copiados das claims, porque a mesma
+ * instância é compartilhada entre requisições pelo cache de tokens.
+ */
+public record TokenVerificado(String username, Instant expiracao, List<String> perfis) {
+
+    public TokenVerificado {
+        perfis = perfis == null ? List.of() : List.copyOf(perfis);
+    }
+
+    public boolean isExpirado(Instant agora) {
+        return !expiracao.isAfter(agora);
+    }
+}
@@ -1,9 +1,11 @@
 package com.bancodigital.corebanking.controller;
 
+import com.bancodigital.corebanking.dto.ClienteResumo;
+import com.bancodigital.corebanking.dto.ContaResumo;
+import com.bancodigital.corebanking.dto.ExtratoLinha;
 import com.bancodigital.corebanking.model.Cliente;
-import com.bancodigital.corebanking.model.ContaCorrente;
-import com.bancodigital.corebanking.model.ContaPoupanca;
 import com.bancodigital.corebanking.service.ClienteService;
+import com.bancodigital.corebanking.service.TransacaoService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -18,31 +20,37 @@ import java.util.List;
 public class ClienteController {
 
     private final ClienteService clienteService;
+    private final TransacaoService transacaoService;
 
     @GetMapping
-    public ResponseEntity<List<Cliente>> listarClientes() {
-        return ResponseEntity.ok(clienteService.listarClientes());
+    public ResponseEntity<List<ClienteResumo>> listarClientes() {
+        return ResponseEntity.ok(clienteService.listarResumos());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Cliente> buscarClientePorId(@PathVariable Long id) {
-        return ResponseEntity.ok(clienteService.buscarClientePorId(id));
+    public ResponseEntity<ClienteResumo> buscarClientePorId(@PathVariable Long id) {
+        return ResponseEntity.ok(clienteService.buscarResumoPorId(id));
     }
 
     @GetMapping("/cpf/{cpf}")
-    public ResponseEntity<Cliente> buscarClientePorCpf(@PathVariable String cpf) {
-        return ResponseEntity.ok(clienteService.buscarClientePorCpf(cpf));
+    public ResponseEntity<ClienteResumo> buscarClientePorCpf(@PathVariable String cpf) {
+        return ResponseEntity.ok(clienteService.buscarResumoPorCpf(cpf));
+    }
+
+    @GetMapping("/{id}/transacoes-recentes")
+    public ResponseEntity<List<ExtratoLinha>> listarTransacoesRecentes(@PathVariable Long id) {
+        return ResponseEntity.ok(transacaoService.listarTransacoesRecentesDoCliente(id));
     }
 
     @PostMapping
-    public ResponseEntity<Cliente> cadastrarCliente(@Valid @RequestBody Cliente cliente) {
+    public ResponseEntity<ClienteResumo> cadastrarCliente(@Valid @RequestBody Cliente cliente) {
         Cliente novoCliente = clienteService.cadastrarCliente(cliente);
-        return ResponseEntity.status(HttpStatus.CREATED).body(novoCliente);
+        return ResponseEntity.status(HttpStatus.CREATED).body(ClienteResumo.de(novoCliente));
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Cliente> atualizarCliente(@PathVariable Long id, @Valid @RequestBody Cliente cliente) {
-        return ResponseEntity.ok(clienteService.atualizarCliente(id, cliente));
+    public ResponseEntity<ClienteResumo> atualizarCliente(@PathVariable Long id, @Valid @RequestBody Cliente cliente) {
+        return ResponseEntity.ok(ClienteResumo.de(clienteService.atualizarCliente(id, cliente)));
     }
 
     @DeleteMapping("/{id}")
@@ -52,14 +60,14 @@ public class ClienteController {
     }
     
     @PostMapping("/{id}/contas/corrente")
-    public ResponseEntity<ContaCorrente> criarContaCorrente(@PathVariable Long id) {
-        ContaCorrente conta = clienteService.criarContaCorrenteParaCliente(id);
+    public ResponseEntity<ContaResumo> criarContaCorrente(@PathVariable Long id) {
+        ContaResumo conta = ContaResumo.de(clienteService.criarContaCorrenteParaCliente(id));
         return ResponseEntity.status(HttpStatus.CREATED).body(conta);
     }
     
     @PostMapping("/{id}/contas/poupanca")
-    public ResponseEntity<ContaPoupanca> criarContaPoupanca(@PathVariable Long id) {
-        ContaPoupanca conta = clienteService.criarContaPoupancaParaCliente(id);
+    public ResponseEntity<ContaResumo> criarContaPoupanca(@PathVariable Long id) {
+        ContaResumo conta = ContaResumo.de(clienteService.criarContaPoupancaParaCliente(id));
         return ResponseEntity.status(HttpStatus.CREATED).body(conta);
     }
 }
\ No newline at end of file
@@ -1,16 +1,45 @@
 package com.bancodigital.corebanking.controller;
 
-import com.bancodigital.corebanking.model.Conta;
+import com.bancodigital.corebanking.dto.ContaResumo;
+import com.bancodigital.corebanking.dto.ExtratoLinha;
+import com.bancodigital.corebanking.dto.ExtratoPagina;
+import com.bancodigital.corebanking.dto.ExtratoPeriodo;
+import com.bancodigital.corebanking.dto.FechamentoMensalRelatorio;
+import com.bancodigital.corebanking.dto.SaldoRazao;
+import com.bancodigital.corebanking.exception.FilaCheiaException;
+import com.bancodigital.corebanking.model.PixPendente;
 import com.bancodigital.corebanking.model.Transacao;
+import com.bancodigital.corebanking.service.ArquivamentoTransacoesService;
+import com.bancodigital.corebanking.service.ContaCache;
+import com.bancodigital.corebanking.service.ContaQuenteService;
 import com.bancodigital.corebanking.service.ContaService;
+import com.bancodigital.corebanking.service.ExtratoExportacaoService;
+import com.bancodigital.corebanking.service.FechamentoMensalService;
+import com.bancodigital.corebanking.service.IdempotenciaService;
+import com.bancodigital.corebanking.service.MetricasOperacoes;
+import com.bancodigital.corebanking.service.PixAssincronoService;
+import com.bancodigital.corebanking.service.RazaoService;
+import com.bancodigital.corebanking.service.TransferenciaLoteService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
+import java.net.URI;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/contas")
@@ -18,67 +47,221 @@ import java.util.List;
 public class ContaController {
 
     private final ContaService contaService;
+    private final TransferenciaLoteService transferenciaLoteService;
+    private final ExtratoExportacaoService extratoExportacaoService;
+    private final ContaCache contaCache;
+    private final MetricasOperacoes metricasOperacoes;
+    private final Optional<PixAssincronoService> pixAssincronoService;
+    private final IdempotenciaService idempotenciaService;
+    private final FechamentoMensalService fechamentoMensalService;
+    private final RazaoService razaoService;
+    private final ContaQuenteService contaQuenteService;
+    private final ArquivamentoTransacoesService arquivamentoTransacoesService;
 
     @GetMapping
-    public ResponseEntity<List<Conta>> listarContas() {
-        return ResponseEntity.ok(contaService.listarContas());
+    public ResponseEntity<List<ContaResumo>> listarContas() {
+        return ResponseEntity.ok(contaService.listarResumos());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Conta> buscarContaPorId(@PathVariable Long id) {
-        return ResponseEntity.ok(contaService.buscarContaPorId(id));
+    public ResponseEntity<ContaResumo> buscarContaPorId(@PathVariable Long id) {
+        return ResponseEntity.ok(contaService.buscarResumoPorId(id));
     }
 
     @GetMapping("/numero/{numeroConta}")
-    public ResponseEntity<Conta> buscarContaPorNumero(@PathVariable String numeroConta) {
-        return ResponseEntity.ok(contaService.buscarContaPorNumero(numeroConta));
+    public ResponseEntity<ContaResumo> buscarContaPorNumero(@PathVariable String numeroConta) {
+        // A conta vem do cache, já com o cliente carregado
+        return ResponseEntity.ok(contaService.buscarResumoPorNumero(numeroConta));
     }
 
     @GetMapping("/cliente/{clienteId}")
-    public ResponseEntity<List<Conta>> listarContasPorCliente(@PathVariable Long clienteId) {
-        return ResponseEntity.ok(contaService.listarContasPorCliente(clienteId));
+    public ResponseEntity<List<ContaResumo>> listarContasPorCliente(@PathVariable Long clienteId) {
+        return ResponseEntity.ok(contaService.listarResumosPorCliente(clienteId));
     }
 
     @PostMapping("/{numeroConta}/deposito")
-    public ResponseEntity<Transacao> depositar(
+    public ResponseEntity<?> depositar(
             @PathVariable String numeroConta,
-            @RequestParam BigDecimal valor) {
-        return ResponseEntity.ok(contaService.depositar(numeroConta, valor));
+            @RequestParam BigDecimal valor,
+            @RequestHeader(value = IdempotenciaService.CABECALHO, required = false) String chaveIdempotencia) {
+        return idempotenciaService.executar(chaveIdempotencia, "deposito", impressao(numeroConta, valor),
+                () -> ResponseEntity.ok(metricasOperacoes.medir(Transacao.TipoTransacao.DEPOSITO.name(), numeroConta,
+                        () -> ExtratoLinha.de(contaService.depositar(numeroConta, valor)))));
     }
 
     @PostMapping("/{numeroConta}/saque")
-    public ResponseEntity<Transacao> sacar(
+    public ResponseEntity<?> sacar(
             @PathVariable String numeroConta,
-            @RequestParam BigDecimal valor) {
-        return ResponseEntity.ok(contaService.sacar(numeroConta, valor));
+            @RequestParam BigDecimal valor,
+            @RequestHeader(value = IdempotenciaService.CABECALHO, required = false) String chaveIdempotencia) {
+        return idempotenciaService.executar(chaveIdempotencia, "saque", impressao(numeroConta, valor),
+                () -> ResponseEntity.ok(metricasOperacoes.medir(Transacao.TipoTransacao.SAQUE.name(), numeroConta,
+                        () -> ExtratoLinha.de(contaService.sacar(numeroConta, valor)))));
     }
 
     @PostMapping("/transferencia")
-    public ResponseEntity<Transacao> transferir(
+    public ResponseEntity<?> transferir(
             @RequestParam String numeroContaOrigem,
             @RequestParam String numeroContaDestino,
-            @RequestParam BigDecimal valor) {
-        return ResponseEntity.ok(contaService.transferir(numeroContaOrigem, numeroContaDestino, valor));
+            @RequestParam BigDecimal valor,
+            @RequestHeader(value = IdempotenciaService.CABECALHO, required = false) String chaveIdempotencia) {
+        return idempotenciaService.executar(chaveIdempotencia, "transferencia",
+                impressao(numeroContaOrigem + '>' + numeroContaDestino, valor),
+                () -> ResponseEntity.ok(metricasOperacoes.medir(Transacao.TipoTransacao.TRANSFERENCIA.name(), numeroContaOrigem,
+                        () -> ExtratoLinha.de(contaService.transferir(numeroContaOrigem, numeroContaDestino, valor)))));
+    }
+
+    @PostMapping(value = "/transferencias/lote",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, "text/csv"},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> transferirLote(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            HttpServletRequest request) {
+        boolean csv = contentType.startsWith("text/csv");
+        StreamingResponseBody resultados = saida ->
+                transferenciaLoteService.processar(request.getInputStream(), csv, saida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(resultados);
     }
 
     @PostMapping("/pix")
-    public ResponseEntity<Transacao> pix(
+    public ResponseEntity<?> pix(
             @RequestParam String numeroContaOrigem,
             @RequestParam String numeroContaDestino,
-            @RequestParam BigDecimal valor) {
-        return ResponseEntity.ok(contaService.pix(numeroContaOrigem, numeroContaDestino, valor));
+            @RequestParam BigDecimal valor,
+            @RequestHeader(value = IdempotenciaService.CABECALHO, required = false) String chaveIdempotencia) {
+        return idempotenciaService.executar(chaveIdempotencia, "pix",
+                impressao(numeroContaOrigem + '>' + numeroContaDestino, valor),
+                () -> executarPix(numeroContaOrigem, numeroContaDestino, valor));
+    }
+
+    private ResponseEntity<?> executarPix(String numeroContaOrigem, String numeroContaDestino, BigDecimal valor) {
+        if (pixAssincronoService.isPresent()) {
+            // Modo assíncrono: 202 com o id para consulta em GET /pix/{id}
+            try {
+                PixPendente pix = metricasOperacoes.medir(Transacao.TipoTransacao.PIX.name(), numeroContaOrigem,
+                        () -> pixAssincronoService.get().enfileirar(numeroContaOrigem, numeroContaDestino, valor));
+                return ResponseEntity.accepted()
+                        .location(URI.create("/api/contas/pix/" + pix.getId()))
+                        .body(pix);
+            } catch (FilaCheiaException e) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .body(Map.of("erro", e.getMessage()));
+            }
+        }
+        return ResponseEntity.ok(metricasOperacoes.medir(Transacao.TipoTransacao.PIX.name(), numeroContaOrigem,
+                () -> ExtratoLinha.de(contaService.pix(numeroContaOrigem, numeroContaDestino, valor))));
+    }
+
+    // Identifica os parâmetros usados com uma Idempotency-Key; 10 e 10.00 são o mesmo valor
+    private static String impressao(String contas, BigDecimal valor) {
+        return contas + '|' + valor.stripTrailingZeros().toPlainString();
+    }
+
+    @GetMapping("/pix/{id}")
+    public ResponseEntity<PixPendente> consultarPix(@PathVariable String id) {
+        return pixAssincronoService
+                .map(servico -> ResponseEntity.ok(servico.consultar(id)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     @GetMapping("/{numeroConta}/extrato")
-    public ResponseEntity<List<Transacao>> extrato(@PathVariable String numeroConta) {
-        return ResponseEntity.ok(contaService.extrato(numeroConta));
+    public ResponseEntity<ExtratoPagina> extrato(
+            @PathVariable String numeroConta,
+            @RequestParam(defaultValue = "50") int tamanho,
+            @RequestParam(required = false) String cursor) {
+        return ResponseEntity.ok(metricasOperacoes.medir(MetricasOperacoes.EXTRATO, numeroConta,
+                () -> contaService.extrato(numeroConta, tamanho, cursor)));
+    }
+
+    @GetMapping("/{numeroConta}/extrato/export")
+    public ResponseEntity<?> exportarExtrato(
+            @PathVariable String numeroConta,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        ExtratoExportacaoService.Formato formato;
+        try {
+            formato = ExtratoExportacaoService.Formato.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("erro", "Formato de exportação inválido: " + format + " (use csv ou ndjson)"));
+        }
+        String arquivo = "extrato-" + numeroConta + (formato == ExtratoExportacaoService.Formato.CSV ? ".csv" : ".ndjson");
+        MediaType tipo = formato == ExtratoExportacaoService.Formato.CSV
+                ? MediaType.parseMediaType("text/csv;charset=UTF-8")
+                : MediaType.APPLICATION_NDJSON;
+
+        StreamingResponseBody corpo = saida -> {
+            if (gzip) {
+                GZIPOutputStream saidaCompactada = new GZIPOutputStream(saida, 64 * 1024);
+                extratoExportacaoService.exportar(numeroConta, formato, saidaCompactada);
+                saidaCompactada.finish();
+            } else {
+                extratoExportacaoService.exportar(numeroConta, formato, saida);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : tipo)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + arquivo + (gzip ? ".gz" : "") + "\"")
+                .body(corpo);
     }
 
     @GetMapping("/{numeroConta}/extrato/periodo")
-    public ResponseEntity<List<Transacao>> extratoPeriodo(
+    public ResponseEntity<ExtratoPeriodo> extratoPeriodo(
             @PathVariable String numeroConta,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime inicio,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fim) {
         return ResponseEntity.ok(contaService.extratoPeriodo(numeroConta, inicio, fim));
     }
+
+    @GetMapping("/{numeroConta}/saldo")
+    public ResponseEntity<BigDecimal> saldoEm(
+            @PathVariable String numeroConta,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate data) {
+        return ResponseEntity.ok(contaService.saldoEm(numeroConta, data));
+    }
+
+    @PostMapping("/fechamento-mensal")
+    public ResponseEntity<FechamentoMensalRelatorio> fecharMes(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth competencia) {
+        return ResponseEntity.ok(fechamentoMensalService.fechar(competencia));
+    }
+
+    @GetMapping("/{numeroConta}/razao/saldo")
+    public ResponseEntity<SaldoRazao> saldoRazao(
+            @PathVariable String numeroConta,
+            @RequestParam(defaultValue = "false") boolean reconstruir) {
+        return ResponseEntity.ok(razaoService.saldo(numeroConta, reconstruir));
+    }
+
+    @PostMapping("/razao/importar-historico")
+    public ResponseEntity<Map<String, Long>> importarHistoricoRazao() {
+        return ResponseEntity.ok(Map.of("transacoesImportadas", razaoService.importarHistorico()));
+    }
+
+    @PostMapping("/{numeroConta}/conta-quente")
+    public ResponseEntity<ContaResumo> habilitarContaQuente(
+            @PathVariable String numeroConta,
+            @RequestParam int fatias) {
+        return ResponseEntity.ok(contaQuenteService.habilitar(numeroConta, fatias));
+    }
+
+    @DeleteMapping("/{numeroConta}/conta-quente")
+    public ResponseEntity<ContaResumo> desabilitarContaQuente(@PathVariable String numeroConta) {
+        return ResponseEntity.ok(contaQuenteService.desabilitar(numeroConta));
+    }
+
+    @PostMapping("/transacoes/arquivamento")
+    public ResponseEntity<Map<String, Object>> arquivarTransacoes() {
+        List<String> arquivados = arquivamentoTransacoesService.arquivarMesesAntigos();
+        int removidos = arquivamentoTransacoesService.removerMesesArquivados();
+        return ResponseEntity.ok(Map.of("mesesArquivados", arquivados, "mesesRemovidos", removidos));
+    }
+
+    @GetMapping("/cache/estatisticas")
+    public ResponseEntity<Map<String, Object>> estatisticasCache() {
+        return ResponseEntity.ok(contaCache.estatisticas());
+    }
 }
\ No newline at end of file
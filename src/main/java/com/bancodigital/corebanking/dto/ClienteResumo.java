@@ -0,0 +1,35 @@
+package com.bancodigital.corebanking.dto;
+
+import com.bancodigital.corebanking.model.Cliente;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Cliente para respostas da API, sem as contas e o usuário.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ClienteResumo {
+    private Long id;
+    private String nome;
+    private String cpf;
+    private String email;
+    private String telefone;
+    private LocalDate dataNascimento;
+    private String endereco;
+
+    public static ClienteResumo de(Cliente cliente) {
+        return new ClienteResumo(
+                cliente.getId(),
+                cliente.getNome(),
+                cliente.getCpf(),
+                cliente.getEmail(),
+                cliente.getTelefone(),
+                cliente.getDataNascimento(),
+                cliente.getEndereco());
+    }
+}
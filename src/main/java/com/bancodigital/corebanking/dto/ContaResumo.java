@@ -0,0 +1,42 @@
+package com.bancodigital.corebanking.dto;
+
+import com.bancodigital.corebanking.model.Conta;
+import com.bancodigital.corebanking.model.ContaCorrente;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Conta para respostas da API, sem o grafo do cliente e das transações.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ContaResumo {
+    private Long id;
+    private String numeroConta;
+    private String agencia;
+    // CORRENTE ou POUPANCA
+    private String tipo;
+    private BigDecimal saldo;
+    private boolean ativa;
+    private LocalDateTime dataCriacao;
+    private Long clienteId;
+    private String nomeCliente;
+
+    public static ContaResumo de(Conta conta) {
+        return new ContaResumo(
+                conta.getId(),
+                conta.getNumeroConta(),
+                conta.getAgencia(),
+                conta instanceof ContaCorrente ? "CORRENTE" : "POUPANCA",
+                conta.getSaldo(),
+                conta.isAtiva(),
+                conta.getDataCriacao(),
+                conta.getCliente() == null ? null : conta.getCliente().getId(),
+                conta.getCliente() == null ? null : conta.getCliente().getNome());
+    }
+}
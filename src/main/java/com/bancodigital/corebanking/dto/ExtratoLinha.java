@@ -0,0 +1,57 @@
+package com.bancodigital.corebanking.dto;
+
+import com.bancodigital.corebanking.model.Transacao;
+import com.bancodigital.corebanking.model.Transacao.TipoTransacao;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Linha de extrato sem o grafo das contas, apenas com os números de conta.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ExtratoLinha {
+    private Long id;
+    private LocalDateTime dataHora;
+    private TipoTransacao tipo;
+    private BigDecimal valor;
+    private BigDecimal taxa;
+    private String descricao;
+    private String numeroContaOrigem;
+    private String numeroContaDestino;
+
+    public static ExtratoLinha de(Transacao transacao) {
+        return new ExtratoLinha(
+                transacao.getId(),
+                transacao.getDataHora(),
+                transacao.getTipo(),
+                transacao.getValor(),
+                transacao.getTaxa(),
+                transacao.getDescricao(),
+                transacao.getContaOrigem() == null ? null : transacao.getContaOrigem().getNumeroConta(),
+                transacao.getContaDestino() == null ? null : transacao.getContaDestino().getNumeroConta());
+    }
+
+    /**
+     * Linha das consultas nativas de extrato do {@code TransacaoRepository}, com as colunas
+     * id, data_hora, tipo, valor, taxa, descricao e os números das contas de origem e destino.
+     */
+    public static ExtratoLinha deColunas(Object[] colunas) {
+        Object dataHora = colunas[1];
+        return new ExtratoLinha(
+                ((Number) colunas[0]).longValue(),
+                dataHora instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) dataHora,
+                colunas[2] == null ? null : TipoTransacao.valueOf(colunas[2].toString()),
+                (BigDecimal) colunas[3],
+                (BigDecimal) colunas[4],
+                (String) colunas[5],
+                (String) colunas[6],
+                (String) colunas[7]);
+    }
+}
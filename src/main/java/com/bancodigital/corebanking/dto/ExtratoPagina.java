@@ -0,0 +1,16 @@
+package com.bancodigital.corebanking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ExtratoPagina {
+    private List<ExtratoLinha> transacoes;
+    // Cursor opaco para a próxima página; nulo quando não há mais transações
+    private String proximoCursor;
+}
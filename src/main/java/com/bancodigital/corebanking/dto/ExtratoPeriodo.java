@@ -0,0 +1,18 @@
+package com.bancodigital.corebanking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ExtratoPeriodo {
+    private BigDecimal saldoInicial;
+    private BigDecimal saldoFinal;
+    // Linhas em ordem cronológica, com o saldo corrente
+    private List<ExtratoPeriodoLinha> linhas;
+}
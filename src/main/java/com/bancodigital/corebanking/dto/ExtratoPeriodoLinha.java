@@ -0,0 +1,16 @@
+package com.bancodigital.corebanking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ExtratoPeriodoLinha {
+    private ExtratoLinha transacao;
+    // Saldo da conta logo após esta transação
+    private BigDecimal saldo;
+}
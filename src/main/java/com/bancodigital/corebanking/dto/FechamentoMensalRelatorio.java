@@ -0,0 +1,22 @@
+package com.bancodigital.corebanking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FechamentoMensalRelatorio {
+    private String competencia;
+    private int faixas;
+    // Faixas puladas por já terem checkpoint (execução retomada ou repetida)
+    private int faixasJaConcluidas;
+    private long contasProcessadas;
+    private BigDecimal rendimentosCreditados;
+    private BigDecimal tarifasDebitadas;
+    private long duracaoMs;
+    private double contasPorSegundo;
+}
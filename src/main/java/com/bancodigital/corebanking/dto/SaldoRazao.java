@@ -0,0 +1,25 @@
+package com.bancodigital.corebanking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Saldo de uma conta derivado do razão, comparado com o saldo gravado na conta.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SaldoRazao {
+    private String numeroConta;
+    private BigDecimal saldoConta;
+    private BigDecimal saldoRazao;
+    // saldoConta - saldoRazao; diferente de zero indica divergência
+    private BigDecimal diferenca;
+    // Checkpoint usado como base; nulo na reconstrução completa ou sem checkpoint
+    private Long checkpointLancamentoId;
+    private long ultimoLancamentoId;
+    private boolean reconstrucaoCompleta;
+}
@@ -0,0 +1,47 @@
+package com.bancodigital.corebanking.dto;
+
+import com.bancodigital.corebanking.model.Transacao.TipoTransacao;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Transação de um mês arquivado, com ids e números das contas, para montar o extrato
+ * sem consultar o banco.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransacaoArquivada {
+    private Long id;
+    private LocalDateTime dataHora;
+    private TipoTransacao tipo;
+    private BigDecimal valor;
+    private BigDecimal taxa;
+    private String descricao;
+    private Long contaOrigemId;
+    private String numeroContaOrigem;
+    private Long contaDestinoId;
+    private String numeroContaDestino;
+
+    // Mesma regra de efeito no saldo usada nas somas de movimento do TransacaoRepository
+    public BigDecimal efeitoNoSaldo(Long contaId) {
+        BigDecimal efeito = BigDecimal.ZERO;
+        if (contaId.equals(contaOrigemId)) {
+            efeito = tipo == TipoTransacao.DEPOSITO
+                    ? valor
+                    : valor.add(taxa == null ? BigDecimal.ZERO : taxa).negate();
+        }
+        if (contaId.equals(contaDestinoId)) {
+            efeito = efeito.add(valor);
+        }
+        return efeito;
+    }
+
+    public ExtratoLinha paraExtratoLinha() {
+        return new ExtratoLinha(id, dataHora, tipo, valor, taxa, descricao, numeroContaOrigem, numeroContaDestino);
+    }
+}
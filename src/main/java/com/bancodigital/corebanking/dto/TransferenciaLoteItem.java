@@ -0,0 +1,16 @@
+package com.bancodigital.corebanking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransferenciaLoteItem {
+    private String numeroContaOrigem;
+    private String numeroContaDestino;
+    private BigDecimal valor;
+}
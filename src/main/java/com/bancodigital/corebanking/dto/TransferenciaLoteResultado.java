@@ -0,0 +1,20 @@
+package com.bancodigital.corebanking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransferenciaLoteResultado {
+    private long linha;
+    private String numeroContaOrigem;
+    private String numeroContaDestino;
+    private BigDecimal valor;
+    private boolean sucesso;
+    private Long transacaoId;
+    private String erro;
+}
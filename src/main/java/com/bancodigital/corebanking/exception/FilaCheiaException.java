@@ -0,0 +1,7 @@
+package com.bancodigital.corebanking.exception;
+
+public class FilaCheiaException extends RuntimeException {
+    public FilaCheiaException(String mensagem) {
+        super(mensagem);
+    }
+}
@@ -1,5 +1,7 @@
 package com.bancodigital.corebanking.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -18,8 +20,10 @@ import java.util.List;
 @DiscriminatorColumn(name = "tipo_conta")
 public abstract class Conta {
 
+    // Sequência com alocação em blocos: IDENTITY desabilitaria o batch de inserts do Hibernate
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "conta_seq")
+    @SequenceGenerator(name = "conta_seq", sequenceName = "conta_seq", allocationSize = 50)
     private Long id;
 
     @Column(unique = true)
@@ -27,19 +31,27 @@ public abstract class Conta {
 
     private String agencia;
 
+    @Column(precision = 19, scale = 2)
     private BigDecimal saldo = BigDecimal.ZERO;
 
     private LocalDateTime dataCriacao = LocalDateTime.now();
 
     private boolean ativa = true;
 
+    // Quantidade de fatias de crédito (SubSaldo) da conta quente; 0 para uma conta comum
+    private int fatiasCredito;
+
+    // Sem as associações do cliente, para que contas destacadas (ex.: do cache) possam ser serializadas
     @ManyToOne
     @JoinColumn(name = "cliente_id")
+    @JsonIgnoreProperties({"contas", "usuario"})
     private Cliente cliente;
 
+    @JsonIgnore
     @OneToMany(mappedBy = "contaOrigem", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Transacao> transacoesEnviadas = new ArrayList<>();
 
+    @JsonIgnore
     @OneToMany(mappedBy = "contaDestino", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Transacao> transacoesRecebidas = new ArrayList<>();
 
@@ -1,5 +1,6 @@
 package com.bancodigital.corebanking.model;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.DiscriminatorValue;
 import jakarta.persistence.Entity;
 import lombok.Data;
@@ -15,12 +16,20 @@ import java.math.BigDecimal;
 @DiscriminatorValue("CORRENTE")
 public class ContaCorrente extends Conta {
     
+    @Column(precision = 19, scale = 2)
     private BigDecimal limiteChequeEspecial = BigDecimal.ZERO;
+
+    @Column(precision = 19, scale = 2)
     private BigDecimal taxaManutencao = new BigDecimal("15.90");
     
     @Override
     public BigDecimal calcularTaxa(BigDecimal valor) {
-        // Taxa de 0.3% para transferências
-        return valor.multiply(new BigDecimal("0.003"));
+        // Taxa de 0.3% para transferências, arredondada para o centavo
+        return Money.de(valor).vezesFracao(3, 1000).toBigDecimal();
+    }
+
+    @Override
+    public BigDecimal getLimite() {
+        return limiteChequeEspecial;
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.bancodigital.corebanking.model;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.DiscriminatorValue;
 import jakarta.persistence.Entity;
 import lombok.Data;
@@ -15,15 +16,26 @@ import java.math.BigDecimal;
 @DiscriminatorValue("POUPANCA")
 public class ContaPoupanca extends Conta {
     
+    private static final Money LIMITE_ISENCAO = Money.deCentavos(100_000);
+    private static final BigDecimal SEM_TAXA = BigDecimal.valueOf(0, 2);
+
+    @Column(precision = 19, scale = 6)
     private BigDecimal taxaRendimento = new BigDecimal("0.003"); // 0.3% ao mês
     
     @Override
     public BigDecimal calcularTaxa(BigDecimal valor) {
+        Money quantia = Money.de(valor);
         // Sem taxa para transferências até R$ 1000
-        if (valor.compareTo(new BigDecimal("1000")) <= 0) {
-            return BigDecimal.ZERO;
+        if (!quantia.maiorQue(LIMITE_ISENCAO)) {
+            return SEM_TAXA;
         }
-        // Taxa de 0.1% para valores acima de R$ 1000
-        return valor.multiply(new BigDecimal("0.001"));
+        // Taxa de 0.1% para valores acima de R$ 1000, arredondada para o centavo
+        return quantia.vezesFracao(1, 1000).toBigDecimal();
+    }
+
+    @Override
+    public BigDecimal getLimite() {
+        // Conta poupança não tem cheque especial
+        return BigDecimal.ZERO;
     }
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.bancodigital.corebanking.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Tabela hi-lo dos números de conta: cada instância reserva o próximo bloco com a
+ * linha travada e distribui os números do bloco em memória.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FaixaNumeroConta {
+
+    @Id
+    private String nome;
+
+    @Column(nullable = false)
+    private Long proximoBloco;
+}
@@ -0,0 +1,41 @@
+package com.bancodigital.corebanking.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Checkpoint do fechamento mensal: uma linha por faixa de ids de conta já processada na
+ * competência. É gravada na mesma transação que os lançamentos da faixa, então uma faixa
+ * ou está completa com o seu checkpoint ou não deixou nenhum efeito.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_fechamento_mensal_faixa",
+        columnNames = {"competencia", "id_inicio"}))
+public class FechamentoMensalFaixa {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "fechamento_mensal_faixa_seq")
+    @SequenceGenerator(name = "fechamento_mensal_faixa_seq", sequenceName = "fechamento_mensal_faixa_seq", allocationSize = 50)
+    private Long id;
+
+    // Ano e mês no formato yyyy-MM
+    @Column(nullable = false)
+    private String competencia;
+
+    @Column(name = "id_inicio", nullable = false)
+    private Long idInicio;
+
+    @Column(nullable = false)
+    private Long idFim;
+
+    private int contasProcessadas;
+
+    private LocalDateTime concluidaEm;
+}
@@ -0,0 +1,28 @@
+package com.bancodigital.corebanking.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Linha única gravada periodicamente no primário. O instante que uma réplica já recebeu
+ * mede o atraso de replicação dela. Lida e gravada por JDBC em {@code RoteamentoLeitura};
+ * a entidade existe para que a tabela seja criada junto com as demais.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HeartbeatReplicacao {
+
+    @Id
+    private Integer id;
+
+    @Column(nullable = false)
+    private LocalDateTime instante;
+}
@@ -0,0 +1,72 @@
+package com.bancodigital.corebanking.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Perna de um lançamento em partidas dobradas. Cada {@link Transacao} gera pernas de débito
+ * e crédito de mesmo total; as linhas só são inseridas, nunca alteradas ou removidas.
+ *
+ * Nas contas de cliente o crédito aumenta o saldo e o débito diminui. As contrapartidas
+ * fora do banco (dinheiro que entra ou sai) vão para {@link ContaContabil#LIQUIDACAO} e as
+ * taxas cobradas para {@link ContaContabil#TARIFAS}.
+ */
+@Entity
+@Immutable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(indexes = {
+        // Saldo a partir do checkpoint: pernas da conta com id maior que o do checkpoint
+        @Index(name = "idx_lancamento_conta_id", columnList = "conta_id, id"),
+        @Index(name = "idx_lancamento_transacao", columnList = "transacao_id")
+})
+public class Lancamento {
+
+    // IDENTITY: as pernas são gravadas por JDBC em lote, não pelo Hibernate
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "transacao_id", nullable = false)
+    private Long transacaoId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ContaContabil contaContabil;
+
+    // Preenchido só nas pernas de conta de cliente
+    @Column(name = "conta_id")
+    private Long contaId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Natureza natureza;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal valor;
+
+    @Column(nullable = false)
+    private LocalDateTime dataHora;
+
+    // Atribuído pelo banco no INSERT; dataHora é a da transação e pode ser antiga (reaplicações)
+    @Column(name = "gravado_em", insertable = false, updatable = false)
+    private LocalDateTime gravadoEm;
+
+    public enum ContaContabil {
+        CLIENTE,
+        LIQUIDACAO,
+        TARIFAS
+    }
+
+    public enum Natureza {
+        DEBITO,
+        CREDITO
+    }
+}
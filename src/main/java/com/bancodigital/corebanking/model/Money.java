@@ -0,0 +1,95 @@
+package com.bancodigital.corebanking.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Valor monetário imutável em centavos inteiros.
+ *
+ * As contas com valores do dia a dia ficam em {@code long}, sem alocar {@link BigDecimal}
+ * a cada operação; a conversão acontece só na borda (entidades, API). Frações, como
+ * percentuais de taxa, são arredondadas para o centavo com HALF_EVEN.
+ */
+public record Money(long centavos) implements Comparable<Money> {
+
+    public static final Money ZERO = new Money(0);
+
+    public static Money deCentavos(long centavos) {
+        return centavos == 0 ? ZERO : new Money(centavos);
+    }
+
+    /**
+     * Converte arredondando para o centavo com HALF_EVEN.
+     *
+     * @throws ArithmeticException se o valor não couber em um {@code long} de centavos
+     */
+    public static Money de(BigDecimal valor) {
+        if (valor.scale() >= 0 && valor.scale() <= 2) {
+            // Sem unscaledValue(), que criaria um BigInteger: com escala 0, longValueExact
+            // devolve direto o long compacto do BigDecimal
+            return deCentavos(valor.movePointRight(2).longValueExact());
+        }
+        return deCentavos(valor.setScale(2, RoundingMode.HALF_EVEN).unscaledValue().longValueExact());
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(centavos, 2);
+    }
+
+    public Money mais(Money outro) {
+        return deCentavos(Math.addExact(centavos, outro.centavos));
+    }
+
+    public Money menos(Money outro) {
+        return deCentavos(Math.subtractExact(centavos, outro.centavos));
+    }
+
+    public Money negar() {
+        return deCentavos(Math.negateExact(centavos));
+    }
+
+    /**
+     * Multiplica pela fração {@code numerador / denominador} (ex.: 3/1000 para 0,3%),
+     * arredondando o resultado para o centavo com HALF_EVEN.
+     */
+    public Money vezesFracao(long numerador, long denominador) {
+        if (denominador <= 0) {
+            throw new IllegalArgumentException("Denominador deve ser maior que zero");
+        }
+        long produto = Math.multiplyExact(centavos, numerador);
+        long quociente = produto / denominador;
+        long resto = produto % denominador;
+        if (resto == 0) {
+            return deCentavos(quociente);
+        }
+        // Compara o dobro do resto com o denominador para decidir o arredondamento
+        long dobroResto = Math.abs(resto) * 2;
+        int sinal = produto < 0 ? -1 : 1;
+        if (dobroResto > denominador || (dobroResto == denominador && (quociente & 1) != 0)) {
+            quociente += sinal;
+        }
+        return deCentavos(quociente);
+    }
+
+    public boolean isNegativo() {
+        return centavos < 0;
+    }
+
+    public boolean isZero() {
+        return centavos == 0;
+    }
+
+    public boolean maiorQue(Money outro) {
+        return centavos > outro.centavos;
+    }
+
+    @Override
+    public int compareTo(Money outro) {
+        return Long.compare(centavos, outro.centavos);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -0,0 +1,39 @@
+package com.bancodigital.corebanking.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Mês de transações movido da tabela {@code transacao} para um arquivo compactado em disco.
+ * Os meses arquivados são sempre os mais antigos e contíguos: tudo antes do início do mês
+ * seguinte ao último arquivado é lido dos arquivos.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ParticaoArquivada {
+
+    // Ano e mês no formato yyyy-MM
+    @Id
+    private String competencia;
+
+    @Column(nullable = false)
+    private String arquivo;
+
+    private long quantidade;
+
+    @Column(nullable = false)
+    private LocalDateTime arquivadaEm;
+
+    // Preenchido quando as linhas do mês já foram removidas da tabela
+    private LocalDateTime removidaEm;
+
+    // Identificador do diretório que guarda o arquivo (ver ArquivoTransacoes); nulo nos meses
+    // arquivados antes de o identificador existir
+    private String armazenamento;
+}
@@ -0,0 +1,59 @@
+package com.bancodigital.corebanking.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * PIX aceito no modo assíncrono. A linha é gravada antes da resposta 202 e serve de
+ * fila durável: os workers liquidam as pendentes em lotes e registram o resultado.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(indexes = @Index(name = "idx_pix_pendente_situacao", columnList = "situacao, criado_em"))
+public class PixPendente {
+
+    @Id
+    private String id;
+
+    @Column(nullable = false)
+    private String numeroContaOrigem;
+
+    @Column(nullable = false)
+    private String numeroContaDestino;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal valor;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Situacao situacao = Situacao.PENDENTE;
+
+    // Transação gerada quando o PIX é concluído
+    private Long transacaoId;
+
+    private String erro;
+
+    // Lotes desfeitos por falha deste PIX; ao chegar ao máximo ele é recusado
+    @Column(nullable = false)
+    private int tentativas;
+
+    @Column(name = "criado_em", nullable = false)
+    private LocalDateTime criadoEm = LocalDateTime.now();
+
+    private LocalDateTime processadoEm;
+
+    public enum Situacao {
+        PENDENTE,
+        // Retirado da fila e entregue ao motor de lançamentos; nunca volta a PENDENTE
+        LIQUIDANDO,
+        CONCLUIDO,
+        RECUSADO
+    }
+}
@@ -0,0 +1,50 @@
+package com.bancodigital.corebanking.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Primeira resposta de uma operação enviada com {@code Idempotency-Key}. A chave é
+ * prefixada pelo usuário e pela operação; a impressão identifica os parâmetros usados com ela.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(indexes = @Index(name = "idx_resposta_idempotente_expira_em", columnList = "expira_em"))
+public class RespostaIdempotente implements Persistable<String> {
+
+    // Usuário (até 255), operação e a chave do cliente (até 64), separados por ':'
+    @Id
+    @Column(length = 340)
+    private String chave;
+
+    @Column(nullable = false)
+    private String impressao;
+
+    @Column(nullable = false)
+    private int status;
+
+    @Lob
+    @Column(nullable = false)
+    private String corpo;
+
+    @Column(name = "expira_em", nullable = false)
+    private LocalDateTime expiraEm;
+
+    @Override
+    public String getId() {
+        return chave;
+    }
+
+    // Sempre inserida, nunca atualizada: o save vira persist e uma chave repetida falha no flush
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
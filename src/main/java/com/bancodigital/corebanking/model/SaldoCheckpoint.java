@@ -0,0 +1,41 @@
+package com.bancodigital.corebanking.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Saldo de uma conta somando todas as suas pernas do razão até {@code ultimoLancamentoId}.
+ * O saldo atual é o checkpoint mais recente mais as pernas gravadas depois dele.
+ */
+@Entity
+@Immutable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_saldo_checkpoint_conta_lancamento",
+        columnNames = {"conta_id", "ultimo_lancamento_id"}))
+public class SaldoCheckpoint {
+
+    // IDENTITY: os checkpoints são gerados por INSERT ... SELECT no banco
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "conta_id", nullable = false)
+    private Long contaId;
+
+    @Column(name = "ultimo_lancamento_id", nullable = false)
+    private Long ultimoLancamentoId;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal saldo;
+
+    @Column(nullable = false)
+    private LocalDateTime criadoEm;
+}
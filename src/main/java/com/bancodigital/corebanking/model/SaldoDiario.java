@@ -0,0 +1,35 @@
+package com.bancodigital.corebanking.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Saldo de fechamento de uma conta ao final de um dia. Só é gravado para os dias em
+ * que a conta teve movimentação; nos demais vale o snapshot anterior mais próximo.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_saldo_diario_conta_data", columnNames = {"conta_id", "data"}))
+public class SaldoDiario {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "saldo_diario_seq")
+    @SequenceGenerator(name = "saldo_diario_seq", sequenceName = "saldo_diario_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "conta_id", nullable = false)
+    private Long contaId;
+
+    @Column(nullable = false)
+    private LocalDate data;
+
+    @Column(nullable = false)
+    private BigDecimal saldoFechamento;
+}
@@ -0,0 +1,35 @@
+package com.bancodigital.corebanking.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Fatia do saldo de uma conta quente. Os créditos da conta são espalhados entre as fatias
+ * para não disputarem a mesma linha; o saldo da conta é a coluna {@code saldo} mais a soma
+ * das fatias, que são incorporadas periodicamente à conta.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_sub_saldo_conta_fatia", columnNames = {"conta_id", "fatia"}))
+public class SubSaldo {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sub_saldo_seq")
+    @SequenceGenerator(name = "sub_saldo_seq", sequenceName = "sub_saldo_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "conta_id", nullable = false)
+    private Long contaId;
+
+    @Column(nullable = false)
+    private int fatia;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal saldo = BigDecimal.ZERO;
+}
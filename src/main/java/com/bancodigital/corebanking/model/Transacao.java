@@ -1,5 +1,7 @@
 package com.bancodigital.corebanking.model;
 
+import com.bancodigital.corebanking.service.AtividadeRecenteListener;
+import com.bancodigital.corebanking.service.RazaoListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -12,17 +14,30 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@Table(indexes = {
+        // Índices do extrato paginado por (data_hora, id), um para cada lado da transação
+        @Index(name = "idx_transacao_origem_data_hora", columnList = "conta_origem_id, data_hora, id"),
+        @Index(name = "idx_transacao_destino_data_hora", columnList = "conta_destino_id, data_hora, id"),
+        // Fechamento diário de saldos, que agrega todas as contas de um dia
+        @Index(name = "idx_transacao_data_hora", columnList = "data_hora")
+})
+// Mantém o feed de atividade recente das contas em memória e grava as pernas no razão
+@EntityListeners({AtividadeRecenteListener.class, RazaoListener.class})
 public class Transacao {
 
+    // Sequência com alocação em blocos: IDENTITY desabilitaria o batch de inserts do Hibernate
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transacao_seq")
+    @SequenceGenerator(name = "transacao_seq", sequenceName = "transacao_seq", allocationSize = 50)
     private Long id;
 
     @Enumerated(EnumType.STRING)
     private TipoTransacao tipo;
 
+    @Column(precision = 19, scale = 2)
     private BigDecimal valor;
     
+    @Column(precision = 19, scale = 2)
     private BigDecimal taxa;
 
     private LocalDateTime dataHora = LocalDateTime.now();
@@ -36,6 +51,10 @@ public class Transacao {
     @ManyToOne
     @JoinColumn(name = "conta_destino_id")
     private Conta contaDestino;
+
+    // Sequência do lançamento no journal do motor em memória, quando houver
+    @Column(unique = true)
+    private Long sequenciaJournal;
     
     public enum TipoTransacao {
         DEPOSITO,
@@ -1,9 +1,13 @@
 package com.bancodigital.corebanking.repository;
 
+import com.bancodigital.corebanking.dto.ClienteResumo;
 import com.bancodigital.corebanking.model.Cliente;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +16,17 @@ public interface ClienteRepository extends JpaRepository<Cliente, Long> {
     Optional<Cliente> findByEmail(String email);
     boolean existsByCpf(String cpf);
     boolean existsByEmail(String email);
+
+    // Projeções para a API: uma única consulta, sem carregar contas nem usuário
+    String SELECT_RESUMO = "select new com.bancodigital.corebanking.dto.ClienteResumo("
+            + "c.id, c.nome, c.cpf, c.email, c.telefone, c.dataNascimento, c.endereco) from Cliente c ";
+
+    @Query(SELECT_RESUMO + "order by c.id")
+    List<ClienteResumo> listarResumos();
+
+    @Query(SELECT_RESUMO + "where c.id = :id")
+    Optional<ClienteResumo> findResumoById(@Param("id") Long id);
+
+    @Query(SELECT_RESUMO + "where c.cpf = :cpf")
+    Optional<ClienteResumo> findResumoByCpf(@Param("cpf") String cpf);
 }
\ No newline at end of file
@@ -1,9 +1,17 @@
 package com.bancodigital.corebanking.repository;
 
+import com.bancodigital.corebanking.dto.ContaResumo;
 import com.bancodigital.corebanking.model.Conta;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,4 +20,97 @@ public interface ContaRepository extends JpaRepository<Conta, Long> {
     Optional<Conta> findByNumeroConta(String numeroConta);
     List<Conta> findByClienteId(Long clienteId);
     boolean existsByNumeroConta(String numeroConta);
-}
\ No newline at end of file
+
+    // Saldo da conta mais as fatias de crédito, quando for uma conta quente
+    String SALDO_TOTAL = "c.saldo + coalesce((select sum(s.saldo) from SubSaldo s where s.contaId = c.id), 0)";
+
+    // Projeções para a API: uma única consulta com o nome do cliente, sem o grafo das entidades
+    String SELECT_RESUMO = "select new com.bancodigital.corebanking.dto.ContaResumo("
+            + "c.id, c.numeroConta, c.agencia, "
+            + "case when type(c) = ContaCorrente then 'CORRENTE' else 'POUPANCA' end, "
+            + SALDO_TOTAL + ", c.ativa, c.dataCriacao, cl.id, cl.nome) "
+            + "from Conta c left join c.cliente cl ";
+
+    @Query(SELECT_RESUMO + "order by c.id")
+    List<ContaResumo> listarResumos();
+
+    @Query(SELECT_RESUMO + "where c.id = :id")
+    Optional<ContaResumo> findResumoById(@Param("id") Long id);
+
+    @Query(SELECT_RESUMO + "where cl.id = :clienteId order by c.id")
+    List<ContaResumo> findResumosByClienteId(@Param("clienteId") Long clienteId);
+
+    @Query("select c.id from Conta c where c.cliente.id = :clienteId")
+    List<Long> findIdsByClienteId(@Param("clienteId") Long clienteId);
+
+    @Query("select " + SALDO_TOTAL + " from Conta c where c.id = :id")
+    BigDecimal findSaldoTotal(@Param("id") Long id);
+
+    List<Conta> findByFatiasCreditoGreaterThan(int fatiasCredito);
+
+    @Modifying
+    @Query("update Conta c set c.fatiasCredito = :fatias where c.id = :id")
+    int definirFatiasCredito(@Param("id") Long id, @Param("fatias") int fatias);
+
+    @Query("select coalesce(max(c.id), 0) from Conta c")
+    long findMaiorId();
+
+    // Trava as contas sempre na mesma ordem (por número) para evitar deadlock entre lotes concorrentes
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Conta c where c.numeroConta in :numerosConta order by c.numeroConta")
+    List<Conta> findAllByNumeroContaInParaAtualizacao(@Param("numerosConta") Collection<String> numerosConta);
+
+    // Lançamentos atômicos: a condição de saldo é avaliada pelo banco no próprio UPDATE,
+    // sem carregar a entidade. O retorno é a quantidade de linhas afetadas (0 ou 1).
+
+    @Modifying
+    @Query("update Conta c set c.saldo = c.saldo + :valor where c.numeroConta = :numeroConta")
+    int creditar(@Param("numeroConta") String numeroConta, @Param("valor") BigDecimal valor);
+
+    @Modifying
+    @Query("update Conta c set c.saldo = c.saldo - :valor where c.numeroConta = :numeroConta and c.saldo >= :valor")
+    int debitar(@Param("numeroConta") String numeroConta, @Param("valor") BigDecimal valor);
+
+    // O limite só existe na conta corrente, por isso a consulta é nativa sobre a tabela única
+    @Modifying
+    @Query(value = "UPDATE conta SET saldo = saldo - :valor WHERE numero_conta = :numeroConta "
+            + "AND saldo + COALESCE(limite_cheque_especial, 0) >= :valor", nativeQuery = true)
+    int debitarComLimite(@Param("numeroConta") String numeroConta, @Param("valor") BigDecimal valor);
+
+    /**
+     * Debita a origem e credita o destino aplicando os UPDATEs em ordem crescente de
+     * número de conta, para que transferências simultâneas em sentidos opostos travem
+     * as linhas sempre na mesma ordem e não entrem em deadlock.
+     *
+     * Deve ser chamado dentro de uma transação. Quando retorna {@code false} nenhum
+     * saldo foi alterado.
+     *
+     * @param numeroContaOrigem Número da conta debitada
+     * @param numeroContaDestino Número da conta creditada
+     * @param valorDebito Valor debitado da origem (incluindo taxa)
+     * @param valorCredito Valor creditado no destino
+     * @param usarLimite Se o cheque especial da origem pode ser usado
+     * @return {@code false} se a origem não tinha saldo suficiente
+     */
+    default boolean transferirSaldo(String numeroContaOrigem, String numeroContaDestino,
+                                    BigDecimal valorDebito, BigDecimal valorCredito, boolean usarLimite) {
+        if (numeroContaOrigem.compareTo(numeroContaDestino) < 0) {
+            if (debitarOrigem(numeroContaOrigem, valorDebito, usarLimite) == 0) {
+                return false;
+            }
+            creditar(numeroContaDestino, valorCredito);
+            return true;
+        }
+        creditar(numeroContaDestino, valorCredito);
+        if (debitarOrigem(numeroContaOrigem, valorDebito, usarLimite) == 0) {
+            // Desfaz o crédito; a linha do destino já está travada por esta transação
+            creditar(numeroContaDestino, valorCredito.negate());
+            return false;
+        }
+        return true;
+    }
+
+    private int debitarOrigem(String numeroConta, BigDecimal valor, boolean usarLimite) {
+        return usarLimite ? debitarComLimite(numeroConta, valor) : debitar(numeroConta, valor);
+    }
+}
@@ -0,0 +1,13 @@
+package com.bancodigital.corebanking.repository;
+
+import com.bancodigital.corebanking.model.FechamentoMensalFaixa;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface FechamentoMensalFaixaRepository extends JpaRepository<FechamentoMensalFaixa, Long> {
+
+    List<FechamentoMensalFaixa> findByCompetencia(String competencia);
+}
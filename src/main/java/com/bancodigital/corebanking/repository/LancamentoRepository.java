@@ -0,0 +1,31 @@
+package com.bancodigital.corebanking.repository;
+
+import com.bancodigital.corebanking.model.Lancamento;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface LancamentoRepository extends JpaRepository<Lancamento, Long> {
+
+    List<Lancamento> findByTransacaoIdOrderById(Long transacaoId);
+
+    // Efeito das pernas da conta com id maior que 'desde': crédito soma, débito subtrai
+    @Query(value = "SELECT COALESCE(SUM(CASE WHEN l.natureza = 'CREDITO' THEN l.valor ELSE -l.valor END), 0)"
+            + " FROM lancamento l WHERE l.conta_id = :contaId AND l.id > :desde", nativeQuery = true)
+    BigDecimal somarDesde(@Param("contaId") Long contaId, @Param("desde") long desde);
+
+    @Query("select coalesce(max(l.id), 0) from Lancamento l where l.contaId = :contaId")
+    long findUltimoIdDaConta(@Param("contaId") Long contaId);
+
+    // Pelo instante de gravação atribuído pelo banco; percorre o id de trás para frente e para
+    // na primeira perna gravada antes do instante, sem varrer a tabela
+    @Query(value = "SELECT l.id FROM lancamento l WHERE l.gravado_em < :antesDe ORDER BY l.id DESC LIMIT 1",
+            nativeQuery = true)
+    Long findUltimoIdGravadoAntesDe(@Param("antesDe") LocalDateTime antesDe);
+}
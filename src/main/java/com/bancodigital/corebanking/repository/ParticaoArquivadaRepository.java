@@ -0,0 +1,16 @@
+package com.bancodigital.corebanking.repository;
+
+import com.bancodigital.corebanking.model.ParticaoArquivada;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ParticaoArquivadaRepository extends JpaRepository<ParticaoArquivada, String> {
+
+    List<ParticaoArquivada> findAllByOrderByCompetencia();
+
+    List<ParticaoArquivada> findByRemovidaEmIsNullAndArquivadaEmBeforeOrderByCompetencia(LocalDateTime antesDe);
+}
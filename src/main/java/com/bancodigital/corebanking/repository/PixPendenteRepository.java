@@ -0,0 +1,34 @@
+package com.bancodigital.corebanking.repository;
+
+import com.bancodigital.corebanking.model.PixPendente;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PixPendenteRepository extends JpaRepository<PixPendente, String> {
+
+    long countBySituacao(PixPendente.Situacao situacao);
+
+    // Lock timeout -2 é o SKIP LOCKED do Hibernate: workers de várias instâncias pegam lotes disjuntos
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select p from PixPendente p where p.situacao = :situacao order by p.criadoEm")
+    List<PixPendente> findParaProcessar(@Param("situacao") PixPendente.Situacao situacao, Pageable lote);
+
+    // Um PIX isolado do lote; vazio se outro worker já o travou ou se ele não está mais na situação
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select p from PixPendente p where p.id = :id and p.situacao = :situacao")
+    Optional<PixPendente> findParaProcessarPorId(@Param("id") String id,
+                                                 @Param("situacao") PixPendente.Situacao situacao);
+}
@@ -0,0 +1,25 @@
+package com.bancodigital.corebanking.repository;
+
+import com.bancodigital.corebanking.model.RespostaIdempotente;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface RespostaIdempotenteRepository extends JpaRepository<RespostaIdempotente, String> {
+
+    Optional<RespostaIdempotente> findByChaveAndExpiraEmAfter(String chave, LocalDateTime agora);
+
+    @Modifying
+    @Query("delete from RespostaIdempotente r where r.chave = :chave and r.expiraEm <= :agora")
+    int removerExpirada(@Param("chave") String chave, @Param("agora") LocalDateTime agora);
+
+    @Modifying
+    @Query("delete from RespostaIdempotente r where r.expiraEm < :agora")
+    int removerExpiradas(@Param("agora") LocalDateTime agora);
+}
@@ -0,0 +1,18 @@
+package com.bancodigital.corebanking.repository;
+
+import com.bancodigital.corebanking.model.SaldoCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface SaldoCheckpointRepository extends JpaRepository<SaldoCheckpoint, Long> {
+
+    Optional<SaldoCheckpoint> findFirstByContaIdOrderByUltimoLancamentoIdDesc(Long contaId);
+
+    // Até onde a última rodada de checkpoints chegou
+    @Query("select coalesce(max(c.ultimoLancamentoId), 0) from SaldoCheckpoint c")
+    long findUltimoLancamentoCoberto();
+}
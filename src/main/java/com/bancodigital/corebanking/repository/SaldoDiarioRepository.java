@@ -0,0 +1,16 @@
+package com.bancodigital.corebanking.repository;
+
+import com.bancodigital.corebanking.model.SaldoDiario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Repository
+public interface SaldoDiarioRepository extends JpaRepository<SaldoDiario, Long> {
+    Optional<SaldoDiario> findByContaIdAndData(Long contaId, LocalDate data);
+
+    // Snapshot mais recente até a data informada (inclusive)
+    Optional<SaldoDiario> findFirstByContaIdAndDataLessThanEqualOrderByDataDesc(Long contaId, LocalDate data);
+}
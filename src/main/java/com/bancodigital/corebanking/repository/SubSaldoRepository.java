@@ -0,0 +1,23 @@
+package com.bancodigital.corebanking.repository;
+
+import com.bancodigital.corebanking.model.SubSaldo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+
+@Repository
+public interface SubSaldoRepository extends JpaRepository<SubSaldo, Long> {
+
+    // Retorna 0 se a fatia não existe mais (conta deixou de ser quente)
+    @Modifying
+    @Query("update SubSaldo s set s.saldo = s.saldo + :valor where s.contaId = :contaId and s.fatia = :fatia")
+    int creditar(@Param("contaId") Long contaId, @Param("fatia") int fatia, @Param("valor") BigDecimal valor);
+
+    @Modifying
+    @Query("delete from SubSaldo s where s.contaId = :contaId")
+    int removerFatias(@Param("contaId") Long contaId);
+}
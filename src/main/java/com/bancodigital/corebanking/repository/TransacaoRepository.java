@@ -1,14 +1,22 @@
 package com.bancodigital.corebanking.repository;
 
+import com.bancodigital.corebanking.dto.ExtratoLinha;
 import com.bancodigital.corebanking.model.Transacao;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransacaoRepository extends JpaRepository<Transacao, Long> {
@@ -32,7 +40,83 @@ public interface TransacaoRepository extends JpaRepository<Transacao, Long> {
         LocalDateTime inicio1, LocalDateTime fim1, Long contaOrigemId, 
         LocalDateTime inicio2, LocalDateTime fim2, Long contaDestinoId);
     
-    // Método para obter as N transações mais recentes
-    List<Transacao> findTop10ByContaOrigemIdOrderByDataHoraDesc(Long contaId);
-    List<Transacao> findTop10ByContaDestinoIdOrderByDataHoraDesc(Long contaId);
+    // Linhas de extrato sem o grafo das contas, para o streaming da exportação
+    String SELECT_EXTRATO_LINHA = "select new com.bancodigital.corebanking.dto.ExtratoLinha("
+            + "t.id, t.dataHora, t.tipo, t.valor, t.taxa, t.descricao, o.numeroConta, d.numeroConta) "
+            + "from Transacao t left join t.contaOrigem o left join t.contaDestino d ";
+
+    // Colunas de ExtratoLinha.deColunas, na mesma ordem, em cada ramo dos UNIONs abaixo
+    String COLUNAS_EXTRATO_LINHA = "SELECT t.id, t.data_hora, t.tipo, t.valor, t.taxa, t.descricao,"
+            + " o.numero_conta AS numero_conta_origem, d.numero_conta AS numero_conta_destino"
+            + " FROM transacao t LEFT JOIN conta o ON o.id = t.conta_origem_id"
+            + " LEFT JOIN conta d ON d.id = t.conta_destino_id ";
+
+    // Extrato por keyset em (data_hora, id), do mais recente para o mais antigo, em um único
+    // comando. O OR entre origem e destino vira um UNION para que cada ramo use o seu próprio
+    // índice; o UNION também descarta a transação que aparece nos dois ramos.
+    @Query(value = "SELECT x.* FROM ("
+            + "(" + COLUNAS_EXTRATO_LINHA + "WHERE t.conta_origem_id = :contaId"
+            + " AND (t.data_hora < :dataHora OR (t.data_hora = :dataHora AND t.id < :id))"
+            + " ORDER BY t.data_hora DESC, t.id DESC LIMIT :limite)"
+            + " UNION "
+            + "(" + COLUNAS_EXTRATO_LINHA + "WHERE t.conta_destino_id = :contaId"
+            + " AND (t.data_hora < :dataHora OR (t.data_hora = :dataHora AND t.id < :id))"
+            + " ORDER BY t.data_hora DESC, t.id DESC LIMIT :limite)"
+            + ") x ORDER BY x.data_hora DESC, x.id DESC LIMIT :limite", nativeQuery = true)
+    List<Object[]> findLinhasAntesDe(@Param("contaId") Long contaId,
+                                     @Param("dataHora") LocalDateTime dataHora,
+                                     @Param("id") Long id,
+                                     @Param("limite") int limite);
+
+    // Período com limites inclusivos, do mais recente para o mais antigo, em um único comando
+    @Query(value = "SELECT x.* FROM ("
+            + "(" + COLUNAS_EXTRATO_LINHA + "WHERE t.conta_origem_id = :contaId"
+            + " AND t.data_hora BETWEEN :inicio AND :fim)"
+            + " UNION "
+            + "(" + COLUNAS_EXTRATO_LINHA + "WHERE t.conta_destino_id = :contaId"
+            + " AND t.data_hora BETWEEN :inicio AND :fim)"
+            + ") x ORDER BY x.data_hora DESC, x.id DESC", nativeQuery = true)
+    List<Object[]> findLinhasPorPeriodo(@Param("contaId") Long contaId,
+                                        @Param("inicio") LocalDateTime inicio,
+                                        @Param("fim") LocalDateTime fim);
+
+    // Efeito líquido das transações no saldo, no intervalo [inicio, fim). A perna de origem
+    // debita valor + taxa (exceto depósitos lançados na origem) e a de destino credita o valor.
+    @Query(value = "SELECT COALESCE(SUM(x.delta), 0) FROM ("
+            + "SELECT CASE WHEN t.tipo = 'DEPOSITO' THEN t.valor ELSE -(t.valor + COALESCE(t.taxa, 0)) END AS delta"
+            + " FROM transacao t WHERE t.conta_origem_id = :contaId"
+            + " AND t.data_hora >= :inicio AND t.data_hora < :fim"
+            + " UNION ALL "
+            + "SELECT t.valor AS delta FROM transacao t WHERE t.conta_destino_id = :contaId"
+            + " AND t.data_hora >= :inicio AND t.data_hora < :fim"
+            + ") x", nativeQuery = true)
+    BigDecimal somarMovimentos(@Param("contaId") Long contaId,
+                               @Param("inicio") LocalDateTime inicio,
+                               @Param("fim") LocalDateTime fim);
+
+    // Cada linha é [conta_id, soma dos deltas] para as contas que tiveram movimento no intervalo
+    @Query(value = "SELECT x.conta_id, SUM(x.delta) FROM ("
+            + "SELECT t.conta_origem_id AS conta_id,"
+            + " CASE WHEN t.tipo = 'DEPOSITO' THEN t.valor ELSE -(t.valor + COALESCE(t.taxa, 0)) END AS delta"
+            + " FROM transacao t WHERE t.conta_origem_id IS NOT NULL"
+            + " AND t.data_hora >= :inicio AND t.data_hora < :fim"
+            + " UNION ALL "
+            + "SELECT t.conta_destino_id AS conta_id, t.valor AS delta"
+            + " FROM transacao t WHERE t.conta_destino_id IS NOT NULL"
+            + " AND t.data_hora >= :inicio AND t.data_hora < :fim"
+            + ") x GROUP BY x.conta_id", nativeQuery = true)
+    List<Object[]> somarMovimentosPorConta(@Param("inicio") LocalDateTime inicio,
+                                           @Param("fim") LocalDateTime fim);
+
+    // Histórico completo em streaming para exportação. A projeção não é gerenciada pelo
+    // contexto de persistência, então o consumo de memória não cresce com a quantidade de linhas.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(SELECT_EXTRATO_LINHA + "where o.id = :contaId or d.id = :contaId order by t.dataHora, t.id")
+    Stream<ExtratoLinha> streamExtrato(@Param("contaId") Long contaId);
+
+    // Métodos usados pelo motor de lançamentos em memória
+    boolean existsBySequenciaJournal(Long sequenciaJournal);
+
+    @Query("select max(t.sequenciaJournal) from Transacao t")
+    Long findMaxSequenciaJournal();
 }
\ No newline at end of file
@@ -0,0 +1,200 @@
+package com.bancodigital.corebanking.service;
+
+import com.bancodigital.corebanking.dto.TransacaoArquivada;
+import com.bancodigital.corebanking.model.ParticaoArquivada;
+import com.bancodigital.corebanking.model.Transacao.TipoTransacao;
+import com.bancodigital.corebanking.repository.ParticaoArquivadaRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Move os meses antigos de transações para a camada fria. Para cada mês fora do horizonte,
+ * do mais antigo para o mais recente:
+ * <ol>
+ *   <li>grava o snapshot de saldo do último dia do mês para as contas que movimentaram nele,
+ *       para que consultas de saldo posteriores não precisem ler o arquivo;</li>
+ *   <li>exporta as linhas do mês em ordem de (data_hora, id) para o arquivo do mês;</li>
+ *   <li>registra o mês no catálogo, e a partir daí as leituras usam o arquivo.</li>
+ * </ol>
+ * As linhas só são removidas da tabela depois de uma carência, para que leituras que
+ * começaram antes do registro terminem com o catálogo antigo. A remoção é feita dia a
+ * dia, em transações curtas.
+ *
+ * O catálogo e a remoção são do banco, compartilhados, mas os arquivos ficam no diretório
+ * de {@link ArquivoTransacoes}. Só uma instância pode ter o arquivamento habilitado, e as
+ * demais só podem ler os meses arquivados se enxergarem o mesmo diretório (armazenamento
+ * compartilhado); {@link ArquivoTransacoes} recusa um catálogo gravado em outro diretório.
+ */
+@Slf4j
+@Service
+public class ArquivamentoTransacoesService {
+
+    private static final String SELECT_MES = "SELECT t.id, t.data_hora, t.tipo, t.valor, t.taxa, t.descricao,"
+            + " t.conta_origem_id, o.numero_conta AS numero_origem, t.conta_destino_id, d.numero_conta AS numero_destino"
+            + " FROM transacao t"
+            + " LEFT JOIN conta o ON o.id = t.conta_origem_id"
+            + " LEFT JOIN conta d ON d.id = t.conta_destino_id"
+            + " WHERE t.data_hora < ? AND (t.data_hora > ? OR (t.data_hora = ? AND t.id > ?))"
+            + " ORDER BY t.data_hora, t.id LIMIT ?";
+    private static final String MAIS_ANTIGA = "SELECT MIN(data_hora) FROM transacao";
+    private static final String REMOVER_INTERVALO = "DELETE FROM transacao WHERE data_hora >= ? AND data_hora < ?";
+
+    private static final RowMapper<TransacaoArquivada> MAPEADOR = (rs, linha) -> new TransacaoArquivada(
+            rs.getLong("id"),
+            rs.getTimestamp("data_hora").toLocalDateTime(),
+            TipoTransacao.valueOf(rs.getString("tipo")),
+            rs.getBigDecimal("valor"),
+            rs.getBigDecimal("taxa"),
+            rs.getString("descricao"),
+            rs.getObject("conta_origem_id", Long.class),
+            rs.getString("numero_origem"),
+            rs.getObject("conta_destino_id", Long.class),
+            rs.getString("numero_destino"));
+
+    private final ArquivoTransacoes arquivo;
+    private final ParticaoArquivadaRepository particaoRepository;
+    private final SaldoDiarioService saldoDiarioService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean habilitado;
+    private final int horizonteMeses;
+    private final Duration carenciaRemocao;
+    private final int tamanhoPagina;
+
+    public ArquivamentoTransacoesService(
+            ArquivoTransacoes arquivo,
+            ParticaoArquivadaRepository particaoRepository,
+            SaldoDiarioService saldoDiarioService,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            @Value("${banco.arquivo-transacoes.habilitado:false}") boolean habilitado,
+            @Value("${banco.arquivo-transacoes.horizonte-meses:12}") int horizonteMeses,
+            @Value("${banco.arquivo-transacoes.carencia-remocao:PT1H}") Duration carenciaRemocao,
+            @Value("${banco.arquivo-transacoes.tamanho-pagina:5000}") int tamanhoPagina) {
+        if (horizonteMeses < 1) {
+            throw new IllegalArgumentException("banco.arquivo-transacoes.horizonte-meses deve ser ao menos 1");
+        }
+        this.arquivo = arquivo;
+        this.particaoRepository = particaoRepository;
+        this.saldoDiarioService = saldoDiarioService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.habilitado = habilitado;
+        this.horizonteMeses = horizonteMeses;
+        this.carenciaRemocao = carenciaRemocao;
+        this.tamanhoPagina = tamanhoPagina;
+    }
+
+    @Scheduled(cron = "${banco.arquivo-transacoes.cron:0 0 2 * * *}")
+    public void executarAgendado() {
+        if (!habilitado) {
+            return;
+        }
+        List<String> arquivados = arquivarMesesAntigos();
+        int removidos = removerMesesArquivados();
+        log.info("Arquivamento de transações: {} meses arquivados, {} meses removidos da tabela",
+                arquivados.size(), removidos);
+    }
+
+    /**
+     * Arquiva, em ordem, todos os meses anteriores ao horizonte que ainda estão na tabela.
+     *
+     * @return Competências (yyyy-MM) arquivadas nesta execução
+     */
+    public synchronized List<String> arquivarMesesAntigos() {
+        // Catálogo atual, e não o da última recarga periódica
+        arquivo.recarregar();
+        YearMonth corte = YearMonth.now().minusMonths(horizonteMeses);
+        YearMonth mes = arquivo.ultimoMes();
+        if (mes != null) {
+            mes = mes.plusMonths(1);
+        } else {
+            Timestamp maisAntiga = jdbcTemplate.queryForObject(MAIS_ANTIGA, Timestamp.class);
+            if (maisAntiga == null) {
+                return List.of();
+            }
+            mes = YearMonth.from(maisAntiga.toLocalDateTime());
+        }
+
+        List<String> arquivados = new ArrayList<>();
+        for (; mes.isBefore(corte); mes = mes.plusMonths(1)) {
+            arquivar(mes);
+            arquivados.add(mes.toString());
+        }
+        return arquivados;
+    }
+
+    private void arquivar(YearMonth mes) {
+        int contas = saldoDiarioService.fecharPeriodo(mes.atDay(1), mes.atEndOfMonth());
+
+        LocalDateTime fim = mes.plusMonths(1).atDay(1).atStartOfDay();
+        String nomeArquivo;
+        long quantidade;
+        try (ArquivoTransacoes.Escritor escritor = arquivo.escritor(mes)) {
+            // Keyset em (data_hora, id) a partir do início do mês
+            Timestamp dataHora = Timestamp.valueOf(mes.atDay(1).atStartOfDay());
+            long id = 0;
+            List<TransacaoArquivada> pagina;
+            do {
+                pagina = jdbcTemplate.query(SELECT_MES, MAPEADOR,
+                        Timestamp.valueOf(fim), dataHora, dataHora, id, tamanhoPagina);
+                for (TransacaoArquivada transacao : pagina) {
+                    escritor.gravar(transacao);
+                }
+                if (!pagina.isEmpty()) {
+                    TransacaoArquivada ultima = pagina.get(pagina.size() - 1);
+                    dataHora = Timestamp.valueOf(ultima.getDataHora());
+                    id = ultima.getId();
+                }
+            } while (pagina.size() == tamanhoPagina);
+            quantidade = escritor.getQuantidade();
+            nomeArquivo = escritor.concluir();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao gravar o arquivo de transações de " + mes, e);
+        }
+
+        arquivo.registrar(new ParticaoArquivada(mes.toString(), nomeArquivo, quantidade, LocalDateTime.now(), null,
+                arquivo.getArmazenamento()));
+        log.info("Mês {} arquivado: {} transações, snapshots de {} contas", mes, quantidade, contas);
+    }
+
+    /**
+     * Remove da tabela as linhas dos meses arquivados há mais tempo que a carência.
+     *
+     * @return Quantidade de meses removidos
+     */
+    public synchronized int removerMesesArquivados() {
+        List<ParticaoArquivada> particoes = particaoRepository
+                .findByRemovidaEmIsNullAndArquivadaEmBeforeOrderByCompetencia(LocalDateTime.now().minus(carenciaRemocao));
+        for (ParticaoArquivada particao : particoes) {
+            YearMonth mes = YearMonth.parse(particao.getCompetencia());
+            long removidas = 0;
+            for (LocalDate dia = mes.atDay(1); !dia.isAfter(mes.atEndOfMonth()); dia = dia.plusDays(1)) {
+                Timestamp inicio = Timestamp.valueOf(dia.atStartOfDay());
+                Timestamp fim = Timestamp.valueOf(dia.plusDays(1).atStartOfDay());
+                Integer linhas = transactionTemplate.execute(status ->
+                        jdbcTemplate.update(REMOVER_INTERVALO, inicio, fim));
+                removidas += linhas == null ? 0 : linhas;
+            }
+            particao.setRemovidaEm(LocalDateTime.now());
+            particaoRepository.save(particao);
+            log.info("Mês {} removido da tabela de transações: {} linhas", mes, removidas);
+        }
+        return particoes.size();
+    }
+}
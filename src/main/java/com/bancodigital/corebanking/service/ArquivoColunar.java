@@ -0,0 +1,514 @@
+package com.bancodigital.corebanking.service;
+
+import com.bancodigital.corebanking.dto.TransacaoArquivada;
+import com.bancodigital.corebanking.model.Money;
+import com.bancodigital.corebanking.model.Transacao.TipoTransacao;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Formato colunar dos arquivos de transações arquivadas.
+ *
+ * As linhas são gravadas em ordem de (data_hora, id), em blocos de até
+ * {@value #LINHAS_POR_BLOCO} linhas. Dentro de cada bloco as colunas ficam separadas:
+ * id e data/hora (em microssegundos) codificados por diferença em relação à linha anterior,
+ * valor e taxa em centavos, tipo e descrição como índices de dicionário e contas pelo id,
+ * todos em varint. Cada bloco pode ser decodificado sozinho.
+ *
+ * O rodapé traz os dicionários, o intervalo de data/hora de cada bloco e um índice esparso
+ * com os blocos em que cada conta aparece, para que a leitura de uma conta só decodifique
+ * esses blocos. Os últimos 12 bytes são a posição do rodapé e o número mágico.
+ */
+public final class ArquivoColunar {
+
+    static final int LINHAS_POR_BLOCO = 4096;
+
+    private static final int MAGICO = 0x42445443; // "BDTC"
+    private static final int VERSAO = 1;
+    private static final int COLUNAS = 8;
+    // Blocos são mapeados em segmentos de até 1 GiB, limite prático de um MappedByteBuffer
+    private static final long TAMANHO_SEGMENTO = 1L << 30;
+
+    private ArquivoColunar() {
+    }
+
+    /**
+     * Grava um arquivo colunar. As transações devem chegar em ordem de (data_hora, id).
+     */
+    public static final class Escritor implements Closeable {
+
+        private final FileChannel canal;
+        private final Buffer[] colunas = new Buffer[COLUNAS];
+        private final Map<String, Integer> tipos = new LinkedHashMap<>();
+        private final Map<String, Integer> descricoes = new LinkedHashMap<>();
+        private final Map<Long, IndiceConta> contas = new HashMap<>();
+        private final Buffer blocos = new Buffer();
+
+        private int linhasNoBloco;
+        private int quantidadeBlocos;
+        private long posicao;
+        private long idAnterior;
+        private long microsAnterior;
+        private long microsInicioBloco;
+        private long microsFimBlocoAnterior;
+        private long posicaoBlocoAnterior;
+        private long quantidade;
+
+        public Escritor(Path arquivo) throws IOException {
+            this.canal = FileChannel.open(arquivo, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            for (int i = 0; i < COLUNAS; i++) {
+                colunas[i] = new Buffer();
+            }
+        }
+
+        public void gravar(TransacaoArquivada transacao) throws IOException {
+            long micros = paraMicros(transacao.getDataHora());
+            if (linhasNoBloco == 0) {
+                microsInicioBloco = micros;
+                idAnterior = 0;
+                microsAnterior = 0;
+            }
+            colunas[0].varLong(zigzag(transacao.getId() - idAnterior));
+            colunas[1].varLong(zigzag(micros - microsAnterior));
+            colunas[2].varLong(indice(tipos, transacao.getTipo().name()));
+            colunas[3].varLong(zigzag(Money.de(transacao.getValor()).centavos()));
+            colunas[4].varLong(transacao.getTaxa() == null ? 0 : zigzag(Money.de(transacao.getTaxa()).centavos()) + 1);
+            colunas[5].varLong(transacao.getDescricao() == null ? 0 : indice(descricoes, transacao.getDescricao()) + 1);
+            colunas[6].varLong(registrarConta(transacao.getContaOrigemId(), transacao.getNumeroContaOrigem()));
+            colunas[7].varLong(registrarConta(transacao.getContaDestinoId(), transacao.getNumeroContaDestino()));
+            idAnterior = transacao.getId();
+            microsAnterior = micros;
+            quantidade++;
+            if (++linhasNoBloco == LINHAS_POR_BLOCO) {
+                fecharBloco();
+            }
+        }
+
+        public long getQuantidade() {
+            return quantidade;
+        }
+
+        /**
+         * Grava o último bloco e o rodapé e força os dados para o disco.
+         */
+        public void concluir() throws IOException {
+            if (linhasNoBloco > 0) {
+                fecharBloco();
+            }
+            Buffer rodape = new Buffer();
+            rodape.varLong(VERSAO);
+            rodape.varLong(quantidade);
+            escreverDicionario(rodape, tipos);
+            escreverDicionario(rodape, descricoes);
+
+            rodape.varLong(quantidadeBlocos);
+            rodape.writeBytes(blocos.toByteArray());
+
+            Long[] ids = contas.keySet().toArray(new Long[0]);
+            Arrays.sort(ids);
+            rodape.varLong(ids.length);
+            long idAnteriorConta = 0;
+            for (Long id : ids) {
+                IndiceConta indice = contas.get(id);
+                rodape.varLong(id - idAnteriorConta);
+                rodape.texto(indice.numeroConta);
+                rodape.varLong(indice.quantidade);
+                int blocoAnterior = 0;
+                for (int i = 0; i < indice.quantidade; i++) {
+                    rodape.varLong(indice.blocos[i] - blocoAnterior);
+                    blocoAnterior = indice.blocos[i];
+                }
+                idAnteriorConta = id;
+            }
+
+            long posicaoRodape = posicao;
+            escrever(ByteBuffer.wrap(rodape.toByteArray()));
+            escrever(ByteBuffer.allocate(12).putLong(posicaoRodape).putInt(MAGICO).flip());
+            canal.force(true);
+        }
+
+        @Override
+        public void close() throws IOException {
+            canal.close();
+        }
+
+        private void fecharBloco() throws IOException {
+            Buffer cabecalho = new Buffer();
+            cabecalho.varLong(linhasNoBloco);
+            for (Buffer coluna : colunas) {
+                cabecalho.varLong(coluna.size());
+            }
+            // Diretório do bloco no rodapé: posição, linhas e intervalo de data/hora
+            blocos.varLong(posicao - posicaoBlocoAnterior);
+            blocos.varLong(linhasNoBloco);
+            blocos.varLong(zigzag(microsInicioBloco - microsFimBlocoAnterior));
+            blocos.varLong(microsAnterior - microsInicioBloco);
+            posicaoBlocoAnterior = posicao;
+            microsFimBlocoAnterior = microsAnterior;
+
+            escrever(ByteBuffer.wrap(cabecalho.toByteArray()));
+            for (Buffer coluna : colunas) {
+                escrever(ByteBuffer.wrap(coluna.buffer(), 0, coluna.size()));
+                coluna.reset();
+            }
+            linhasNoBloco = 0;
+            quantidadeBlocos++;
+        }
+
+        private long registrarConta(Long contaId, String numeroConta) {
+            if (contaId == null) {
+                return 0;
+            }
+            contas.computeIfAbsent(contaId, id -> new IndiceConta(numeroConta)).adicionar(quantidadeBlocos);
+            return contaId + 1;
+        }
+
+        private void escrever(ByteBuffer dados) throws IOException {
+            while (dados.hasRemaining()) {
+                posicao += canal.write(dados);
+            }
+        }
+
+        private static int indice(Map<String, Integer> dicionario, String valor) {
+            return dicionario.computeIfAbsent(valor, v -> dicionario.size());
+        }
+
+        private static void escreverDicionario(Buffer destino, Map<String, Integer> dicionario) {
+            destino.varLong(dicionario.size());
+            for (String valor : dicionario.keySet()) {
+                destino.texto(valor);
+            }
+        }
+    }
+
+    /**
+     * Leitor sobre o arquivo mapeado em memória. O rodapé é carregado na abertura; os
+     * blocos são lidos direto do mapeamento. Pode ser usado por várias threads.
+     */
+    public static final class Leitor implements Closeable {
+
+        private final FileChannel canal;
+        private final MappedByteBuffer[] segmentos;
+        private final long quantidade;
+        private final TipoTransacao[] tipos;
+        private final String[] descricoes;
+
+        private final int[] segmentoBloco;
+        private final int[] posicaoBloco;
+        private final long[] microsInicioBloco;
+        private final long[] microsFimBloco;
+
+        private final long[] contaIds;
+        private final String[] numerosConta;
+        private final int[] inicioBlocosConta;
+        private final int[] blocosConta;
+
+        public Leitor(Path arquivo) throws IOException {
+            this.canal = FileChannel.open(arquivo, StandardOpenOption.READ);
+            long tamanho = canal.size();
+            ByteBuffer final12 = ByteBuffer.allocate(12);
+            while (final12.hasRemaining()) {
+                if (canal.read(final12, tamanho - 12 + final12.position()) < 0) {
+                    throw new IOException("Arquivo de transações truncado: " + arquivo);
+                }
+            }
+            final12.flip();
+            long posicaoRodape = final12.getLong();
+            if (final12.getInt() != MAGICO) {
+                throw new IOException("Arquivo de transações inválido: " + arquivo);
+            }
+
+            Cursor rodape = new Cursor(canal.map(FileChannel.MapMode.READ_ONLY, posicaoRodape,
+                    tamanho - 12 - posicaoRodape), 0);
+            if (rodape.varLong() != VERSAO) {
+                throw new IOException("Versão do arquivo de transações não suportada: " + arquivo);
+            }
+            this.quantidade = rodape.varLong();
+            String[] nomesTipos = lerDicionario(rodape);
+            this.tipos = new TipoTransacao[nomesTipos.length];
+            for (int i = 0; i < nomesTipos.length; i++) {
+                tipos[i] = TipoTransacao.valueOf(nomesTipos[i]);
+            }
+            this.descricoes = lerDicionario(rodape);
+
+            int quantidadeBlocos = (int) rodape.varLong();
+            long[] posicoes = new long[quantidadeBlocos + 1];
+            this.microsInicioBloco = new long[quantidadeBlocos];
+            this.microsFimBloco = new long[quantidadeBlocos];
+            long posicao = 0;
+            long microsFim = 0;
+            for (int b = 0; b < quantidadeBlocos; b++) {
+                posicao += rodape.varLong();
+                rodape.varLong(); // linhas do bloco, repetidas no cabeçalho
+                microsInicioBloco[b] = microsFim + dezigzag(rodape.varLong());
+                microsFim = microsInicioBloco[b] + rodape.varLong();
+                microsFimBloco[b] = microsFim;
+                posicoes[b] = posicao;
+            }
+            posicoes[quantidadeBlocos] = posicaoRodape;
+
+            int quantidadeContas = (int) rodape.varLong();
+            this.contaIds = new long[quantidadeContas];
+            this.numerosConta = new String[quantidadeContas];
+            this.inicioBlocosConta = new int[quantidadeContas + 1];
+            List<Integer> blocos = new ArrayList<>();
+            long contaId = 0;
+            for (int c = 0; c < quantidadeContas; c++) {
+                contaId += rodape.varLong();
+                contaIds[c] = contaId;
+                numerosConta[c] = rodape.texto();
+                inicioBlocosConta[c] = blocos.size();
+                int quantidadeBlocosConta = (int) rodape.varLong();
+                int bloco = 0;
+                for (int i = 0; i < quantidadeBlocosConta; i++) {
+                    bloco += (int) rodape.varLong();
+                    blocos.add(bloco);
+                }
+            }
+            inicioBlocosConta[quantidadeContas] = blocos.size();
+            this.blocosConta = blocos.stream().mapToInt(Integer::intValue).toArray();
+
+            // Agrupa blocos consecutivos em segmentos mapeados
+            this.segmentoBloco = new int[quantidadeBlocos];
+            this.posicaoBloco = new int[quantidadeBlocos];
+            List<MappedByteBuffer> mapeados = new ArrayList<>();
+            int primeiro = 0;
+            while (primeiro < quantidadeBlocos) {
+                int ultimo = primeiro;
+                while (ultimo + 1 < quantidadeBlocos
+                        && posicoes[ultimo + 2] - posicoes[primeiro] <= TAMANHO_SEGMENTO) {
+                    ultimo++;
+                }
+                for (int b = primeiro; b <= ultimo; b++) {
+                    segmentoBloco[b] = mapeados.size();
+                    posicaoBloco[b] = (int) (posicoes[b] - posicoes[primeiro]);
+                }
+                mapeados.add(canal.map(FileChannel.MapMode.READ_ONLY, posicoes[primeiro],
+                        posicoes[ultimo + 1] - posicoes[primeiro]));
+                primeiro = ultimo + 1;
+            }
+            this.segmentos = mapeados.toArray(new MappedByteBuffer[0]);
+        }
+
+        public long getQuantidade() {
+            return quantidade;
+        }
+
+        /**
+         * Entrega as transações da conta com data/hora em [inicio, fim], em ordem de
+         * (data_hora, id). Só os blocos em que a conta aparece e que alcançam o intervalo
+         * são decodificados, e só as linhas da conta viram objetos.
+         */
+        public void ler(Long contaId, LocalDateTime inicio, LocalDateTime fim, Consumer<TransacaoArquivada> consumidor) {
+            int conta = Arrays.binarySearch(contaIds, contaId);
+            if (conta < 0) {
+                return;
+            }
+            long microsInicio = paraMicros(inicio);
+            long microsFim = paraMicros(fim);
+            long codigoConta = contaId + 1;
+            for (int i = inicioBlocosConta[conta]; i < inicioBlocosConta[conta + 1]; i++) {
+                int bloco = blocosConta[i];
+                if (microsFimBloco[bloco] < microsInicio) {
+                    continue;
+                }
+                if (microsInicioBloco[bloco] > microsFim) {
+                    break;
+                }
+                lerBloco(bloco, codigoConta, microsInicio, microsFim, consumidor);
+            }
+        }
+
+        private void lerBloco(int bloco, long codigoConta, long microsInicio, long microsFim,
+                              Consumer<TransacaoArquivada> consumidor) {
+            MappedByteBuffer segmento = segmentos[segmentoBloco[bloco]];
+            Cursor cabecalho = new Cursor(segmento, posicaoBloco[bloco]);
+            int linhas = (int) cabecalho.varLong();
+            int[] inicioColuna = new int[COLUNAS];
+            int posicao = 0;
+            for (int c = 0; c < COLUNAS; c++) {
+                inicioColuna[c] = posicao;
+                posicao += (int) cabecalho.varLong();
+            }
+            int base = cabecalho.posicao;
+
+            // Primeiro as colunas do filtro: contas e data/hora
+            Cursor origem = new Cursor(segmento, base + inicioColuna[6]);
+            Cursor destino = new Cursor(segmento, base + inicioColuna[7]);
+            Cursor dataHora = new Cursor(segmento, base + inicioColuna[1]);
+            long[] origens = new long[linhas];
+            long[] destinos = new long[linhas];
+            long[] micros = new long[linhas];
+            boolean[] selecionadas = new boolean[linhas];
+            int quantidadeSelecionadas = 0;
+            long microsAtual = 0;
+            for (int l = 0; l < linhas; l++) {
+                origens[l] = origem.varLong();
+                destinos[l] = destino.varLong();
+                microsAtual += dezigzag(dataHora.varLong());
+                micros[l] = microsAtual;
+                if ((origens[l] == codigoConta || destinos[l] == codigoConta)
+                        && microsAtual >= microsInicio && microsAtual <= microsFim) {
+                    selecionadas[l] = true;
+                    quantidadeSelecionadas++;
+                }
+            }
+            if (quantidadeSelecionadas == 0) {
+                return;
+            }
+
+            Cursor id = new Cursor(segmento, base + inicioColuna[0]);
+            Cursor tipo = new Cursor(segmento, base + inicioColuna[2]);
+            Cursor valor = new Cursor(segmento, base + inicioColuna[3]);
+            Cursor taxa = new Cursor(segmento, base + inicioColuna[4]);
+            Cursor descricao = new Cursor(segmento, base + inicioColuna[5]);
+            long idAtual = 0;
+            for (int l = 0; l < linhas && quantidadeSelecionadas > 0; l++) {
+                idAtual += dezigzag(id.varLong());
+                long codigoTipo = tipo.varLong();
+                long centavos = dezigzag(valor.varLong());
+                long codigoTaxa = taxa.varLong();
+                long codigoDescricao = descricao.varLong();
+                if (!selecionadas[l]) {
+                    continue;
+                }
+                quantidadeSelecionadas--;
+                consumidor.accept(new TransacaoArquivada(
+                        idAtual,
+                        deMicros(micros[l]),
+                        tipos[(int) codigoTipo],
+                        Money.deCentavos(centavos).toBigDecimal(),
+                        codigoTaxa == 0 ? null : Money.deCentavos(dezigzag(codigoTaxa - 1)).toBigDecimal(),
+                        codigoDescricao == 0 ? null : descricoes[(int) codigoDescricao - 1],
+                        origens[l] == 0 ? null : origens[l] - 1,
+                        numeroConta(origens[l]),
+                        destinos[l] == 0 ? null : destinos[l] - 1,
+                        numeroConta(destinos[l])));
+            }
+        }
+
+        private String numeroConta(long codigoConta) {
+            return codigoConta == 0 ? null : numerosConta[Arrays.binarySearch(contaIds, codigoConta - 1)];
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Os mapeamentos são liberados pelo coletor quando o leitor deixa de ser referenciado
+            canal.close();
+        }
+
+        private static String[] lerDicionario(Cursor cursor) {
+            String[] valores = new String[(int) cursor.varLong()];
+            for (int i = 0; i < valores.length; i++) {
+                valores[i] = cursor.texto();
+            }
+            return valores;
+        }
+    }
+
+    private static final class IndiceConta {
+        private final String numeroConta;
+        private int[] blocos = new int[4];
+        private int quantidade;
+
+        private IndiceConta(String numeroConta) {
+            this.numeroConta = numeroConta;
+        }
+
+        private void adicionar(int bloco) {
+            if (quantidade > 0 && blocos[quantidade - 1] == bloco) {
+                return;
+            }
+            if (quantidade == blocos.length) {
+                blocos = Arrays.copyOf(blocos, quantidade * 2);
+            }
+            blocos[quantidade++] = bloco;
+        }
+    }
+
+    private static final class Buffer extends ByteArrayOutputStream {
+
+        private void varLong(long valor) {
+            while ((valor & ~0x7FL) != 0) {
+                write((int) ((valor & 0x7F) | 0x80));
+                valor >>>= 7;
+            }
+            write((int) valor);
+        }
+
+        private void texto(String valor) {
+            byte[] bytes = valor.getBytes(StandardCharsets.UTF_8);
+            varLong(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+
+        private byte[] buffer() {
+            return buf;
+        }
+    }
+
+    private static final class Cursor {
+        private final ByteBuffer dados;
+        private int posicao;
+
+        private Cursor(ByteBuffer dados, int posicao) {
+            this.dados = dados;
+            this.posicao = posicao;
+        }
+
+        private long varLong() {
+            long valor = 0;
+            int deslocamento = 0;
+            byte b;
+            do {
+                b = dados.get(posicao++);
+                valor |= (long) (b & 0x7F) << deslocamento;
+                deslocamento += 7;
+            } while (b < 0);
+            return valor;
+        }
+
+        private String texto() {
+            int tamanho = (int) varLong();
+            byte[] bytes = new byte[tamanho];
+            dados.get(posicao, bytes);
+            posicao += tamanho;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static long zigzag(long valor) {
+        return (valor << 1) ^ (valor >> 63);
+    }
+
+    private static long dezigzag(long valor) {
+        return (valor >>> 1) ^ -(valor & 1);
+    }
+
+    private static long paraMicros(LocalDateTime dataHora) {
+        return dataHora.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + dataHora.getNano() / 1_000;
+    }
+
+    private static LocalDateTime deMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+}
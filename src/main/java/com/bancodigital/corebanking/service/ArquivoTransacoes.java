@@ -0,0 +1,284 @@
+package com.bancodigital.corebanking.service;
+
+import com.bancodigital.corebanking.dto.TransacaoArquivada;
+import com.bancodigital.corebanking.model.ParticaoArquivada;
+import com.bancodigital.corebanking.repository.ParticaoArquivadaRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Camada fria das transações: um arquivo no formato {@link ArquivoColunar} por mês arquivado
+ * e o catálogo {@link ParticaoArquivada} mantido em memória.
+ *
+ * O catálogo é recarregado periodicamente para enxergar meses arquivados por outra instância.
+ * Os leitores ficam abertos, com o arquivo mapeado em memória, enquanto o mês está no catálogo.
+ *
+ * O catálogo é compartilhado pelo banco, mas os arquivos não: ficam no diretório configurado.
+ * Para que uma instância não leia um catálogo cujos arquivos estão no disco de outra, o
+ * diretório recebe um identificador ({@value #MARCADOR}), gravado também em cada mês do
+ * catálogo, e a instância não sobe (nem recarrega) se o catálogo apontar para outro
+ * diretório. Com várias instâncias, o diretório tem de ser um armazenamento compartilhado
+ * entre elas; sem isso, só uma instância pode usar o arquivamento.
+ */
+@Slf4j
+@Component
+public class ArquivoTransacoes {
+
+    private static final String MARCADOR = "armazenamento.id";
+
+    private final ParticaoArquivadaRepository particaoRepository;
+    private final Path diretorio;
+    private final Map<YearMonth, ArquivoColunar.Leitor> leitores = new ConcurrentHashMap<>();
+
+    private volatile NavigableMap<YearMonth, ParticaoArquivada> particoes = Collections.emptyNavigableMap();
+    // Nulo até o primeiro mês arquivado neste diretório
+    private volatile String armazenamento;
+
+    public ArquivoTransacoes(
+            ParticaoArquivadaRepository particaoRepository,
+            @Value("${banco.arquivo-transacoes.diretorio:data/arquivo/transacoes}") String diretorio) {
+        this.particaoRepository = particaoRepository;
+        this.diretorio = Paths.get(diretorio);
+    }
+
+    @PostConstruct
+    public void iniciar() throws IOException {
+        if (particaoRepository.count() > 0) {
+            armazenamento = identificarArmazenamento();
+        }
+        recarregar();
+    }
+
+    /**
+     * Lê o identificador do diretório, ou o cria. Sem identificador, o catálogo só pode estar
+     * vazio ou ter meses de antes do identificador com os arquivos neste diretório, que passam
+     * a ser dele.
+     */
+    private synchronized String identificarArmazenamento() throws IOException {
+        Path marcador = diretorio.resolve(MARCADOR);
+        if (Files.exists(marcador)) {
+            return Files.readString(marcador).trim();
+        }
+        List<ParticaoArquivada> catalogo = particaoRepository.findAllByOrderByCompetencia();
+        for (ParticaoArquivada particao : catalogo) {
+            if (particao.getArmazenamento() != null || !Files.exists(diretorio.resolve(particao.getArquivo()))) {
+                throw new IllegalStateException("O catálogo de transações arquivadas aponta para arquivos fora de "
+                        + diretorio.toAbsolutePath() + " (mês " + particao.getCompetencia() + "). Use o mesmo"
+                        + " armazenamento compartilhado em todas as instâncias ou uma única instância");
+            }
+        }
+        Files.createDirectories(diretorio);
+        String identificador = UUID.randomUUID().toString();
+        try {
+            Files.writeString(marcador, identificador, StandardOpenOption.CREATE_NEW);
+        } catch (FileAlreadyExistsException e) {
+            // Outra instância no mesmo armazenamento criou antes
+            return Files.readString(marcador).trim();
+        }
+        for (ParticaoArquivada particao : catalogo) {
+            particao.setArmazenamento(identificador);
+        }
+        particaoRepository.saveAll(catalogo);
+        return identificador;
+    }
+
+    @Scheduled(fixedDelayString = "${banco.arquivo-transacoes.atualizacao-catalogo:PT1M}")
+    public void recarregar() {
+        Path marcador = diretorio.resolve(MARCADOR);
+        if (armazenamento == null && Files.exists(marcador)) {
+            // Diretório compartilhado em que outra instância arquivou o primeiro mês
+            try {
+                armazenamento = Files.readString(marcador).trim();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Falha ao ler " + marcador, e);
+            }
+        }
+        NavigableMap<YearMonth, ParticaoArquivada> novas = new TreeMap<>();
+        for (ParticaoArquivada particao : particaoRepository.findAllByOrderByCompetencia()) {
+            if (particao.getArmazenamento() != null && !particao.getArmazenamento().equals(armazenamento)) {
+                // Mantém o catálogo anterior; os meses novos estão em um disco que esta instância não enxerga
+                throw new IllegalStateException("O mês " + particao.getCompetencia() + " foi arquivado em outro"
+                        + " armazenamento (" + particao.getArmazenamento() + "), não em " + diretorio.toAbsolutePath()
+                        + " (" + armazenamento + ")");
+            }
+            novas.put(YearMonth.parse(particao.getCompetencia()), particao);
+        }
+        particoes = Collections.unmodifiableNavigableMap(novas);
+        leitores.entrySet().removeIf(entrada -> {
+            if (novas.containsKey(entrada.getKey())) {
+                return false;
+            }
+            fechar(entrada.getKey(), entrada.getValue());
+            return true;
+        });
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        leitores.forEach(this::fechar);
+        leitores.clear();
+    }
+
+    private void fechar(YearMonth mes, ArquivoColunar.Leitor leitor) {
+        try {
+            leitor.close();
+        } catch (IOException e) {
+            log.warn("Falha ao fechar o arquivo de transações de {}", mes, e);
+        }
+    }
+
+    /**
+     * Início do primeiro mês não arquivado: transações antes deste instante são lidas dos
+     * arquivos, mesmo que ainda não tenham sido removidas da tabela.
+     *
+     * @return O limite, ou nulo se nenhum mês foi arquivado
+     */
+    public LocalDateTime limite() {
+        NavigableMap<YearMonth, ParticaoArquivada> atuais = particoes;
+        return atuais.isEmpty() ? null : atuais.lastKey().plusMonths(1).atDay(1).atStartOfDay();
+    }
+
+    public String getArmazenamento() {
+        return armazenamento;
+    }
+
+    public YearMonth ultimoMes() {
+        NavigableMap<YearMonth, ParticaoArquivada> atuais = particoes;
+        return atuais.isEmpty() ? null : atuais.lastKey();
+    }
+
+    /**
+     * Meses arquivados que têm alguma transação em [inicio, fim], do mais antigo para o mais recente.
+     */
+    public List<YearMonth> meses(LocalDateTime inicio, LocalDateTime fim) {
+        NavigableMap<YearMonth, ParticaoArquivada> atuais = particoes;
+        if (atuais.isEmpty() || fim.isBefore(inicio)) {
+            return List.of();
+        }
+        return List.copyOf(atuais.subMap(YearMonth.from(inicio), true, YearMonth.from(fim), true).keySet());
+    }
+
+    /**
+     * Entrega as transações da conta no mês arquivado com data/hora em [inicio, fim],
+     * em ordem de (data_hora, id).
+     */
+    public void ler(YearMonth mes, Long contaId, LocalDateTime inicio, LocalDateTime fim,
+                    Consumer<TransacaoArquivada> consumidor) {
+        ParticaoArquivada particao = particoes.get(mes);
+        if (particao == null) {
+            return;
+        }
+        // Limita ao próprio mês, para que limites abertos não estourem a conversão para microssegundos
+        LocalDateTime inicioMes = mes.atDay(1).atStartOfDay();
+        LocalDateTime fimMes = mes.plusMonths(1).atDay(1).atStartOfDay().minusNanos(1);
+        leitor(mes, particao).ler(contaId,
+                inicio.isBefore(inicioMes) ? inicioMes : inicio,
+                fim.isAfter(fimMes) ? fimMes : fim,
+                consumidor);
+    }
+
+    private ArquivoColunar.Leitor leitor(YearMonth mes, ParticaoArquivada particao) {
+        return leitores.computeIfAbsent(mes, m -> {
+            try {
+                return new ArquivoColunar.Leitor(diretorio.resolve(particao.getArquivo()));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Falha ao abrir o arquivo de transações de " + m, e);
+            }
+        });
+    }
+
+    public Escritor escritor(YearMonth mes) throws IOException {
+        Files.createDirectories(diretorio);
+        if (armazenamento == null) {
+            armazenamento = identificarArmazenamento();
+        }
+        return new Escritor(mes);
+    }
+
+    /**
+     * Registra o mês no catálogo. A partir daqui ele é lido do arquivo.
+     *
+     * @throws IllegalStateException se o mês já está no catálogo (outra instância com o
+     *         arquivamento habilitado)
+     */
+    public void registrar(ParticaoArquivada particao) {
+        if (particaoRepository.existsById(particao.getCompetencia())) {
+            throw new IllegalStateException("O mês " + particao.getCompetencia() + " já foi arquivado;"
+                    + " o arquivamento deve estar habilitado em uma única instância");
+        }
+        particaoRepository.save(particao);
+        recarregar();
+    }
+
+    /**
+     * Grava o arquivo de um mês em um temporário e o move para o nome final só em
+     * {@link #concluir()}, depois de forçar os dados para o disco.
+     */
+    public final class Escritor implements AutoCloseable {
+
+        private final Path temporario;
+        private final Path destino;
+        private final ArquivoColunar.Escritor colunar;
+        private boolean concluido;
+
+        private Escritor(YearMonth mes) throws IOException {
+            this.destino = diretorio.resolve(nomeArquivo(mes));
+            this.temporario = diretorio.resolve(nomeArquivo(mes) + ".tmp");
+            this.colunar = new ArquivoColunar.Escritor(temporario);
+        }
+
+        public void gravar(TransacaoArquivada transacao) throws IOException {
+            colunar.gravar(transacao);
+        }
+
+        public long getQuantidade() {
+            return colunar.getQuantidade();
+        }
+
+        /**
+         * @return Nome do arquivo gravado, relativo ao diretório do arquivo
+         */
+        public String concluir() throws IOException {
+            colunar.concluir();
+            colunar.close();
+            Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            concluido = true;
+            return destino.getFileName().toString();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!concluido) {
+                colunar.close();
+                Files.deleteIfExists(temporario);
+            }
+        }
+    }
+
+    private static String nomeArquivo(YearMonth mes) {
+        return "transacoes-" + mes + ".col";
+    }
+}
@@ -0,0 +1,331 @@
+package com.bancodigital.corebanking.service;
+
+import com.bancodigital.corebanking.config.ConsistenciaLeitura;
+import com.bancodigital.corebanking.dto.ExtratoLinha;
+import com.bancodigital.corebanking.model.Transacao.TipoTransacao;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Últimas transações de cada conta em memória, para o feed de atividade recente do cliente.
+ *
+ * Cada conta tem um buffer circular com as {@code tamanho} transações mais recentes,
+ * alimentado no commit de cada lançamento (ver {@link AtividadeRecenteListener}) e
+ * carregado do banco na primeira leitura. O feed de várias contas é uma intercalação
+ * (k-way merge) dos buffers; as contas sem buffer são carregadas juntas em uma única
+ * consulta com UNION ALL, sempre no primário para não guardar o estado de uma réplica atrasada.
+ */
+@Component
+public class AtividadeRecenteCache {
+
+    // Do mais recente para o mais antigo, com o id desempatando transações no mesmo instante
+    static final Comparator<ExtratoLinha> MAIS_RECENTE_PRIMEIRO = Comparator
+            .comparing(ExtratoLinha::getDataHora)
+            .thenComparing(ExtratoLinha::getId)
+            .reversed();
+
+    private static final String COLUNAS = "t.id, t.data_hora, t.tipo, t.valor, t.taxa, t.descricao,"
+            + " o.numero_conta AS numero_origem, d.numero_conta AS numero_destino";
+    private static final String PERNA_ORIGEM = "(SELECT t.conta_origem_id AS conta_id, " + COLUNAS
+            + " FROM transacao t JOIN conta o ON o.id = t.conta_origem_id"
+            + " LEFT JOIN conta d ON d.id = t.conta_destino_id"
+            + " WHERE t.conta_origem_id = ? ORDER BY t.data_hora DESC, t.id DESC LIMIT ?)";
+    private static final String PERNA_DESTINO = "(SELECT t.conta_destino_id AS conta_id, " + COLUNAS
+            + " FROM transacao t JOIN conta d ON d.id = t.conta_destino_id"
+            + " LEFT JOIN conta o ON o.id = t.conta_origem_id"
+            + " WHERE t.conta_destino_id = ? ORDER BY t.data_hora DESC, t.id DESC LIMIT ?)";
+
+    private static final int FAIXAS_VERSAO = 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ConsistenciaLeitura consistenciaLeitura;
+    private final Cache<Long, Buffer> buffers;
+    private final int tamanho;
+
+    // Versão por faixa de conta, incrementada a cada lançamento. Uma carga só é guardada se
+    // nenhuma conta dela recebeu lançamento durante a consulta; colisão de faixa só descarta a carga.
+    private final AtomicLongArray versoes = new AtomicLongArray(FAIXAS_VERSAO);
+
+    public AtividadeRecenteCache(
+            JdbcTemplate jdbcTemplate,
+            ConsistenciaLeitura consistenciaLeitura,
+            @Value("${banco.atividade-recente.tamanho:10}") int tamanho,
+            @Value("${banco.atividade-recente.contas-maximas:100000}") long contasMaximas,
+            @Value("${banco.atividade-recente.ttl:PT30M}") Duration ttl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.consistenciaLeitura = consistenciaLeitura;
+        this.tamanho = tamanho;
+        this.buffers = Caffeine.newBuilder()
+                .maximumSize(contasMaximas)
+                .expireAfterAccess(ttl)
+                .build();
+    }
+
+    /**
+     * As transações mais recentes das contas, sem repetição (uma transferência entre duas
+     * das contas aparece uma vez).
+     *
+     * @param contaIds IDs das contas
+     * @param limite Quantidade máxima de transações, no máximo {@code tamanho}
+     * @return Transações da mais recente para a mais antiga
+     */
+    public List<ExtratoLinha> recentes(Collection<Long> contaIds, int limite) {
+        int quantidade = Math.min(limite, tamanho);
+        if (contaIds.isEmpty() || quantidade <= 0) {
+            return List.of();
+        }
+
+        List<List<ExtratoLinha>> listas = new ArrayList<>(contaIds.size());
+        Set<Long> frias = new LinkedHashSet<>();
+        for (Long contaId : new LinkedHashSet<>(contaIds)) {
+            Buffer buffer = buffers.getIfPresent(contaId);
+            if (buffer == null) {
+                frias.add(contaId);
+            } else {
+                listas.add(buffer.copia());
+            }
+        }
+        if (!frias.isEmpty()) {
+            listas.addAll(carregar(frias).values());
+        }
+        return intercalar(listas, quantidade);
+    }
+
+    /**
+     * Registra um lançamento nas contas envolvidas depois do commit da transação atual.
+     * Só as contas que já têm buffer recebem a linha; as demais continuam frias.
+     */
+    void registrar(ExtratoLinha linha, Long contaOrigemId, Long contaDestinoId) {
+        marcar(contaOrigemId);
+        marcar(contaDestinoId);
+        depoisDoCommit(() -> {
+            adicionar(contaOrigemId, linha);
+            adicionar(contaDestinoId, linha);
+        });
+    }
+
+    /**
+     * Descarta os buffers das contas depois do commit, para lançamentos cujo conteúdo não
+     * está disponível sem ir ao banco. A próxima leitura recarrega as contas.
+     */
+    void invalidar(Long contaOrigemId, Long contaDestinoId) {
+        marcar(contaOrigemId);
+        marcar(contaDestinoId);
+        depoisDoCommit(() -> {
+            if (contaOrigemId != null) {
+                buffers.invalidate(contaOrigemId);
+            }
+            if (contaDestinoId != null) {
+                buffers.invalidate(contaDestinoId);
+            }
+        });
+    }
+
+    private void depoisDoCommit(Runnable acao) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            acao.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                acao.run();
+            }
+        });
+    }
+
+    private void marcar(Long contaId) {
+        if (contaId != null) {
+            versoes.incrementAndGet(faixa(contaId));
+        }
+    }
+
+    private void adicionar(Long contaId, ExtratoLinha linha) {
+        if (contaId == null) {
+            return;
+        }
+        Buffer buffer = buffers.getIfPresent(contaId);
+        if (buffer != null) {
+            buffer.adicionar(linha);
+        }
+    }
+
+    // Uma única ida ao banco para todas as contas frias: duas pernas limitadas por conta,
+    // cada uma usando o índice (conta, data_hora, id) do seu lado
+    private Map<Long, List<ExtratoLinha>> carregar(Set<Long> contaIds) {
+        Map<Long, Long> versaoAntes = new HashMap<>();
+        for (Long contaId : contaIds) {
+            versaoAntes.put(contaId, versoes.get(faixa(contaId)));
+        }
+
+        StringBuilder sql = new StringBuilder();
+        List<Object> parametros = new ArrayList<>(contaIds.size() * 4);
+        for (Long contaId : contaIds) {
+            if (!sql.isEmpty()) {
+                sql.append(" UNION ALL ");
+            }
+            sql.append(PERNA_ORIGEM).append(" UNION ALL ").append(PERNA_DESTINO);
+            parametros.add(contaId);
+            parametros.add(tamanho);
+            parametros.add(contaId);
+            parametros.add(tamanho);
+        }
+
+        Map<Long, List<ExtratoLinha>> porConta = new HashMap<>();
+        for (Long contaId : contaIds) {
+            porConta.put(contaId, new ArrayList<>());
+        }
+        consistenciaLeitura.carregarParaCache(() -> {
+            jdbcTemplate.query(sql.toString(), rs -> {
+                Timestamp dataHora = rs.getTimestamp("data_hora");
+                String tipo = rs.getString("tipo");
+                ExtratoLinha linha = new ExtratoLinha(
+                        rs.getLong("id"),
+                        dataHora == null ? null : dataHora.toLocalDateTime(),
+                        tipo == null ? null : TipoTransacao.valueOf(tipo),
+                        rs.getBigDecimal("valor"),
+                        rs.getBigDecimal("taxa"),
+                        rs.getString("descricao"),
+                        rs.getString("numero_origem"),
+                        rs.getString("numero_destino"));
+                porConta.get(rs.getLong("conta_id")).add(linha);
+            }, parametros.toArray());
+            return null;
+        });
+
+        for (Map.Entry<Long, List<ExtratoLinha>> entrada : porConta.entrySet()) {
+            Long contaId = entrada.getKey();
+            List<ExtratoLinha> linhas = entrada.getValue();
+            linhas.sort(MAIS_RECENTE_PRIMEIRO);
+            if (versoes.get(faixa(contaId)) == versaoAntes.get(contaId)) {
+                Buffer buffer = new Buffer(tamanho);
+                // Do mais antigo para o mais recente, que é a ordem natural do buffer
+                for (int i = Math.min(linhas.size(), tamanho) - 1; i >= 0; i--) {
+                    buffer.adicionar(linhas.get(i));
+                }
+                buffers.asMap().putIfAbsent(contaId, buffer);
+            }
+        }
+        return porConta;
+    }
+
+    // Cada lista já vem do mais recente para o mais antigo; a fila guarda a cabeça de cada uma
+    static List<ExtratoLinha> intercalar(List<List<ExtratoLinha>> listas, int limite) {
+        PriorityQueue<Cursor> fila = new PriorityQueue<>(Math.max(1, listas.size()),
+                (a, b) -> MAIS_RECENTE_PRIMEIRO.compare(a.atual(), b.atual()));
+        for (List<ExtratoLinha> lista : listas) {
+            if (!lista.isEmpty()) {
+                fila.add(new Cursor(lista));
+            }
+        }
+
+        List<ExtratoLinha> resultado = new ArrayList<>(limite);
+        Set<Long> vistos = new HashSet<>();
+        while (resultado.size() < limite && !fila.isEmpty()) {
+            Cursor cursor = fila.poll();
+            ExtratoLinha linha = cursor.atual();
+            if (vistos.add(linha.getId())) {
+                resultado.add(linha);
+            }
+            if (cursor.avancar()) {
+                fila.add(cursor);
+            }
+        }
+        return resultado;
+    }
+
+    private static int faixa(Long contaId) {
+        return (int) Math.floorMod(contaId, (long) FAIXAS_VERSAO);
+    }
+
+    private static final class Cursor {
+        private final List<ExtratoLinha> lista;
+        private int posicao;
+
+        private Cursor(List<ExtratoLinha> lista) {
+            this.lista = lista;
+        }
+
+        private ExtratoLinha atual() {
+            return lista.get(posicao);
+        }
+
+        private boolean avancar() {
+            return ++posicao < lista.size();
+        }
+    }
+
+    /**
+     * Buffer circular de capacidade fixa. Os lançamentos chegam quase sempre em ordem;
+     * um commit fora de ordem é encaixado na posição certa, e uma linha já presente
+     * (carga concorrente com o commit) é ignorada.
+     */
+    static final class Buffer {
+        private final ExtratoLinha[] linhas;
+        // Posição onde entra a próxima linha; a mais recente fica em (proxima - 1)
+        private int proxima;
+        private int quantidade;
+
+        Buffer(int capacidade) {
+            this.linhas = new ExtratoLinha[capacidade];
+        }
+
+        synchronized void adicionar(ExtratoLinha linha) {
+            int capacidade = linhas.length;
+            // Procura, a partir da mais recente, a primeira linha mais antiga que a nova
+            int deslocamento = 0;
+            while (deslocamento < quantidade) {
+                ExtratoLinha existente = linhas[Math.floorMod(proxima - 1 - deslocamento, capacidade)];
+                if (existente.getId().equals(linha.getId())) {
+                    return;
+                }
+                if (MAIS_RECENTE_PRIMEIRO.compare(linha, existente) <= 0) {
+                    break;
+                }
+                deslocamento++;
+            }
+            if (quantidade == capacidade && deslocamento == quantidade) {
+                // Mais antiga que tudo o que está no buffer cheio
+                return;
+            }
+
+            // Abre espaço deslocando as 'deslocamento' linhas mais recentes uma posição à frente
+            for (int i = 0; i < deslocamento; i++) {
+                int destino = Math.floorMod(proxima - i, capacidade);
+                int origem = Math.floorMod(proxima - 1 - i, capacidade);
+                linhas[destino] = linhas[origem];
+            }
+            linhas[Math.floorMod(proxima - deslocamento, capacidade)] = linha;
+            proxima = (proxima + 1) % capacidade;
+            quantidade = Math.min(quantidade + 1, capacidade);
+        }
+
+        /** Cópia do conteúdo, da mais recente para a mais antiga. */
+        synchronized List<ExtratoLinha> copia() {
+            List<ExtratoLinha> copia = new ArrayList<>(quantidade);
+            for (int i = 1; i <= quantidade; i++) {
+                copia.add(linhas[Math.floorMod(proxima - i, linhas.length)]);
+            }
+            return copia;
+        }
+    }
+}
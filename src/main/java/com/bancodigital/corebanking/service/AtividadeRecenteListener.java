@@ -0,0 +1,40 @@
+package com.bancodigital.corebanking.service;
+
+import com.bancodigital.corebanking.dto.ExtratoLinha;
+import com.bancodigital.corebanking.model.Conta;
+import com.bancodigital.corebanking.model.Transacao;
+import jakarta.persistence.PostPersist;
+import org.hibernate.Hibernate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener de entidade da {@link Transacao}: todo lançamento gravado pelo JPA, por qualquer
+ * serviço, chega ao {@link AtividadeRecenteCache}. É instanciado pelo Spring, que o Hibernate
+ * usa como container de beans.
+ */
+@Component
+public class AtividadeRecenteListener {
+
+    private final AtividadeRecenteCache atividadeRecente;
+
+    public AtividadeRecenteListener(AtividadeRecenteCache atividadeRecente) {
+        this.atividadeRecente = atividadeRecente;
+    }
+
+    @PostPersist
+    public void aoGravar(Transacao transacao) {
+        Conta contaOrigem = transacao.getContaOrigem();
+        Conta contaDestino = transacao.getContaDestino();
+        Long contaOrigemId = contaOrigem == null ? null : contaOrigem.getId();
+        Long contaDestinoId = contaDestino == null ? null : contaDestino.getId();
+
+        // Contas obtidas com getReference (ex.: fechamento mensal) exigiriam um SELECT para
+        // o número da conta; nesse caso os buffers são descartados e recarregados depois
+        if ((contaOrigem != null && !Hibernate.isInitialized(contaOrigem))
+                || (contaDestino != null && !Hibernate.isInitialized(contaDestino))) {
+            atividadeRecente.invalidar(contaOrigemId, contaDestinoId);
+            return;
+        }
+        atividadeRecente.registrar(ExtratoLinha.de(transacao), contaOrigemId, contaDestinoId);
+    }
+}
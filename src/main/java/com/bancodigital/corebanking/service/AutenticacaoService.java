@@ -10,13 +10,20 @@ import dev.samstevens.totp.secret.DefaultSecretGenerator;
 import dev.samstevens.totp.secret.SecretGenerator;
 import dev.samstevens.totp.time.SystemTimeProvider;
 import dev.samstevens.totp.time.TimeProvider;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+
 @Service
 @RequiredArgsConstructor
 public class AutenticacaoService implements UserDetailsService {
@@ -24,12 +31,58 @@ public class AutenticacaoService implements UserDetailsService {
     private final UsuarioRepository usuarioRepository;
     private final PasswordEncoder passwordEncoder;
 
+    @Value("${banco.cache-usuarios.tamanho-maximo:10000}")
+    private long tamanhoMaximoCache;
+
+    @Value("${banco.cache-usuarios.ttl:PT5M}")
+    private Duration ttlCache;
+
+    // Cópias imutáveis dos usuários das requisições autenticadas por JWT; nunca usado no login
+    private Cache<String, UserDetails> usuariosAutenticados;
+
+    @PostConstruct
+    void inicializarCache() {
+        usuariosAutenticados = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximoCache)
+                .expireAfterWrite(ttlCache)
+                .build();
+    }
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         return usuarioRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("Usuário não encontrado"));
     }
 
+    /**
+     * Carrega o usuário de uma requisição já autenticada por token, usando o cache.
+     * O cache guarda só username, perfis e situação, nunca a entidade gerenciada pelo JPA.
+     * Mudanças de perfil ou situação feitas no banco valem ao fim do TTL, ou antes com
+     * {@link #invalidarUsuario}.
+     */
+    public UserDetails carregarUsuarioAutenticado(String username) throws UsernameNotFoundException {
+        UserDetails usuario = usuariosAutenticados.get(username,
+                chave -> usuarioRepository.findByUsername(chave)
+                        .map(AutenticacaoService::copiarUsuario)
+                        .orElse(null));
+        if (usuario == null) {
+            throw new UsernameNotFoundException("Usuário não encontrado");
+        }
+        return usuario;
+    }
+
+    public void invalidarUsuario(String username) {
+        usuariosAutenticados.invalidate(username);
+    }
+
+    private static UserDetails copiarUsuario(Usuario usuario) {
+        return User.withUsername(usuario.getUsername())
+                .password("")
+                .authorities(usuario.getAuthorities())
+                .disabled(!usuario.isEnabled())
+                .build();
+    }
+
     public Usuario registrarUsuario(String username, String password, boolean usar2FA) {
         if (usuarioRepository.existsByUsername(username)) {
             throw new IllegalArgumentException("Nome de usuário já existe");
@@ -73,6 +126,7 @@ public class AutenticacaoService implements UserDetailsService {
             usuario.setSecretKey(secret);
             usuario.setUsing2FA(true);
             usuarioRepository.save(usuario);
+            invalidarUsuario(usuario.getUsername());
         }
     }
 
@@ -81,6 +135,7 @@ public class AutenticacaoService implements UserDetailsService {
             usuario.setSecretKey(null);
             usuario.setUsing2FA(false);
             usuarioRepository.save(usuario);
+            invalidarUsuario(usuario.getUsername());
         }
     }
-}
\ No newline at end of file
+}
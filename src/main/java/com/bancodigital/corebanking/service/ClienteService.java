@@ -1,13 +1,14 @@
 package com.bancodigital.corebanking.service;
 
+import com.bancodigital.corebanking.dto.ClienteResumo;
 import com.bancodigital.corebanking.exception.RecursoNaoEncontradoException;
 import com.bancodigital.corebanking.model.Cliente;
 import com.bancodigital.corebanking.model.ContaCorrente;
 import com.bancodigital.corebanking.model.ContaPoupanca;
 import com.bancodigital.corebanking.repository.ClienteRepository;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -17,7 +18,9 @@ public class ClienteService {
 
     private final ClienteRepository clienteRepository;
     private final ContaService contaService;
+    private final ContaCache contaCache;
 
+    @Transactional(readOnly = true)
     public List<Cliente> listarClientes() {
         return clienteRepository.findAll();
     }
@@ -27,6 +30,21 @@ public class ClienteService {
                 .orElseThrow(() -> new RecursoNaoEncontradoException("Cliente não encontrado"));
     }
 
+    @Transactional(readOnly = true)
+    public List<ClienteResumo> listarResumos() {
+        return clienteRepository.listarResumos();
+    }
+
+    public ClienteResumo buscarResumoPorId(Long id) {
+        return clienteRepository.findResumoById(id)
+                .orElseThrow(() -> new RecursoNaoEncontradoException("Cliente não encontrado"));
+    }
+
+    public ClienteResumo buscarResumoPorCpf(String cpf) {
+        return clienteRepository.findResumoByCpf(cpf)
+                .orElseThrow(() -> new RecursoNaoEncontradoException("Cliente não encontrado"));
+    }
+
     public Cliente buscarClientePorCpf(String cpf) {
         return clienteRepository.findByCpf(cpf)
                 .orElseThrow(() -> new RecursoNaoEncontradoException("Cliente não encontrado"));
@@ -51,6 +69,8 @@ public class ClienteService {
         cliente.setEmail(clienteAtualizado.getEmail());
         cliente.setTelefone(clienteAtualizado.getTelefone());
         cliente.setEndereco(clienteAtualizado.getEndereco());
+        // As contas em cache carregam os dados do cliente
+        invalidarContas(cliente);
         
         return clienteRepository.save(cliente);
     }
@@ -58,8 +78,13 @@ public class ClienteService {
     @Transactional
     public void excluirCliente(Long id) {
         Cliente cliente = buscarClientePorId(id);
+        invalidarContas(cliente);
         clienteRepository.delete(cliente);
     }
+
+    private void invalidarContas(Cliente cliente) {
+        cliente.getContas().forEach(conta -> contaCache.invalidar(conta.getNumeroConta()));
+    }
     
     @Transactional
     public ContaCorrente criarContaCorrenteParaCliente(Long clienteId) {
@@ -0,0 +1,109 @@
+package com.bancodigital.corebanking.service;
+
+import com.bancodigital.corebanking.config.ConsistenciaLeitura;
+import com.bancodigital.corebanking.exception.RecursoNaoEncontradoException;
+import com.bancodigital.corebanking.model.Conta;
+import com.bancodigital.corebanking.repository.ContaRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache de leitura das contas por número, limitado por tamanho e por TTL.
+ *
+ * As entradas são cópias destacadas do contexto de persistência. Todo código que altera
+ * saldo ou situação de uma conta deve chamar {@link #invalidar(String)}; dentro de uma
+ * transação a entrada é removida de novo após o término, para que uma leitura concorrente
+ * não recoloque o valor anterior ao commit. A carga é sempre feita no primário
+ * ({@link ConsistenciaLeitura#carregarParaCache}), nunca numa réplica atrasada.
+ */
+@Component
+public class ContaCache {
+
+    private final ContaRepository contaRepository;
+    private final EntityManager entityManager;
+    private final ConsistenciaLeitura consistenciaLeitura;
+    private final Cache<String, Conta> contasPorNumero;
+    private final AtomicLong invalidacoes = new AtomicLong();
+
+    public ContaCache(
+            ContaRepository contaRepository,
+            EntityManager entityManager,
+            ConsistenciaLeitura consistenciaLeitura,
+            @Value("${banco.cache-contas.tamanho-maximo:10000}") long tamanhoMaximo,
+            @Value("${banco.cache-contas.ttl:PT5M}") Duration ttl) {
+        this.contaRepository = contaRepository;
+        this.entityManager = entityManager;
+        this.consistenciaLeitura = consistenciaLeitura;
+        this.contasPorNumero = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public Conta buscarPorNumero(String numeroConta) {
+        // Número com dígito verificador errado não chega ao cache nem ao banco
+        if (!NumeroContaAlocador.formatoValido(numeroConta)) {
+            throw new RecursoNaoEncontradoException("Conta não encontrada");
+        }
+        // Contas inexistentes não são guardadas: o loader devolve nulo
+        Conta conta = contasPorNumero.get(numeroConta,
+                numero -> consistenciaLeitura.carregarParaCache(() -> carregar(numero)));
+        if (conta == null) {
+            throw new RecursoNaoEncontradoException("Conta não encontrada");
+        }
+        return conta;
+    }
+
+    private Conta carregar(String numeroConta) {
+        Conta conta = contaRepository.findByNumeroConta(numeroConta).orElse(null);
+        // A instância é compartilhada entre threads, então não pode continuar gerenciada
+        if (conta != null && entityManager.contains(conta)) {
+            entityManager.detach(conta);
+        }
+        return conta;
+    }
+
+    public void invalidar(String numeroConta) {
+        invalidacoes.incrementAndGet();
+        contasPorNumero.invalidate(numeroConta);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    contasPorNumero.invalidate(numeroConta);
+                }
+            });
+        }
+    }
+
+    public void invalidar(Collection<String> numerosConta) {
+        for (String numeroConta : numerosConta) {
+            invalidar(numeroConta);
+        }
+    }
+
+    public Map<String, Object> estatisticas() {
+        CacheStats stats = contasPorNumero.stats();
+        Map<String, Object> estatisticas = new LinkedHashMap<>();
+        estatisticas.put("tamanho", contasPorNumero.estimatedSize());
+        estatisticas.put("acertos", stats.hitCount());
+        estatisticas.put("falhas", stats.missCount());
+        estatisticas.put("taxaAcerto", stats.hitRate());
+        estatisticas.put("despejos", stats.evictionCount());
+        estatisticas.put("invalidacoes", invalidacoes.get());
+        return estatisticas;
+    }
+}
@@ -0,0 +1,230 @@
+package com.bancodigital.corebanking.service;
+
+import com.bancodigital.corebanking.dto.ContaResumo;
+import com.bancodigital.corebanking.exception.RecursoNaoEncontradoException;
+import com.bancodigital.corebanking.model.Conta;
+import com.bancodigital.corebanking.model.SubSaldo;
+import com.bancodigital.corebanking.repository.ContaRepository;
+import com.bancodigital.corebanking.repository.SubSaldoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Contas quentes: contas que recebem muitos créditos simultâneos (ex.: grandes lojistas
+ * recebendo PIX). Os créditos vão para uma de K fatias {@link SubSaldo}, sorteada a cada
+ * lançamento, em vez de todos travarem a linha da conta.
+ *
+ * Débitos e leituras de saldo consideram as fatias: o débito primeiro incorpora as fatias
+ * à conta, travando a linha da conta antes das fatias, e a leitura soma conta e fatias em
+ * uma única consulta. Um consolidador em segundo plano incorpora as fatias periodicamente.
+ *
+ * Os demais caminhos que alteram o saldo pela entidade (lotes, fechamento mensal) continuam
+ * corretos: créditos na coluna da conta também fazem parte do saldo, e débitos que só
+ * enxergam a coluna são conservadores até a próxima consolidação. O PIX assíncrono
+ * incorpora as fatias das origens quentes antes de debitá-las.
+ */
+@Slf4j
+@Service
+public class ContaQuenteService {
+
+    private static final String TRAVAR_CONTA = "SELECT id FROM conta WHERE id = ? FOR UPDATE";
+    private static final String TRAVAR_FATIAS = "SELECT saldo FROM sub_saldo WHERE conta_id = ? FOR UPDATE";
+    private static final String ZERAR_FATIAS = "UPDATE sub_saldo SET saldo = 0 WHERE conta_id = ?";
+    private static final String CREDITAR_CONTA = "UPDATE conta SET saldo = saldo + ? WHERE id = ?";
+
+    private static final int SEM_FATIA = -1;
+
+    private final ContaRepository contaRepository;
+    private final SubSaldoRepository subSaldoRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ContaCache contaCache;
+    private final int fatiasMaximas;
+
+    public ContaQuenteService(
+            ContaRepository contaRepository,
+            SubSaldoRepository subSaldoRepository,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            ContaCache contaCache,
+            @Value("${banco.conta-quente.fatias-maximas:64}") int fatiasMaximas) {
+        this.contaRepository = contaRepository;
+        this.subSaldoRepository = subSaldoRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.contaCache = contaCache;
+        this.fatiasMaximas = fatiasMaximas;
+    }
+
+    static boolean quente(Conta conta) {
+        return conta.getFatiasCredito() > 1;
+    }
+
+    /**
+     * Credita a conta, em uma fatia sorteada se ela for quente. Deve ser chamado dentro
+     * de uma transação.
+     */
+    public void creditar(Conta conta, BigDecimal valor) {
+        creditarNaFatia(conta, valor, sortearFatia(conta));
+    }
+
+    /**
+     * Debita a conta verificando o saldo no próprio UPDATE. Numa conta quente as fatias são
+     * incorporadas antes, para que os créditos ainda nelas contem como saldo disponível.
+     * Deve ser chamado dentro de uma transação.
+     *
+     * @return {@code false} se a conta não tinha saldo suficiente
+     */
+    public boolean debitar(Conta conta, BigDecimal valor, boolean usarLimite) {
+        if (quente(conta)) {
+            consolidar(conta.getId());
+        }
+        int linhas = usarLimite
+                ? contaRepository.debitarComLimite(conta.getNumeroConta(), valor)
+                : contaRepository.debitar(conta.getNumeroConta(), valor);
+        return linhas > 0;
+    }
+
+    /**
+     * Mesma semântica de {@link ContaRepository#transferirSaldo}, com o crédito numa fatia
+     * quando o destino é quente. As fatias de uma conta são travadas na mesma posição da
+     * ordem por número de conta que a própria conta, então a ordem de travamento continua
+     * evitando deadlock.
+     */
+    public boolean transferirSaldo(Conta origem, Conta destino, BigDecimal valorDebito,
+                                   BigDecimal valorCredito, boolean usarLimite) {
+        if (!quente(origem) && !quente(destino)) {
+            return contaRepository.transferirSaldo(origem.getNumeroConta(), destino.getNumeroConta(),
+                    valorDebito, valorCredito, usarLimite);
+        }
+
+        if (origem.getNumeroConta().compareTo(destino.getNumeroConta()) < 0) {
+            if (!debitar(origem, valorDebito, usarLimite)) {
+                return false;
+            }
+            creditar(destino, valorCredito);
+            return true;
+        }
+        int fatia = creditarNaFatia(destino, valorCredito, sortearFatia(destino));
+        if (!debitar(origem, valorDebito, usarLimite)) {
+            // Desfaz o crédito no mesmo lugar; a linha já está travada por esta transação
+            creditarNaFatia(destino, valorCredito.negate(), fatia);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Saldo da conta incluindo as fatias de crédito.
+     */
+    public BigDecimal saldoTotal(Conta conta) {
+        return quente(conta) ? contaRepository.findSaldoTotal(conta.getId()) : conta.getSaldo();
+    }
+
+    public ContaResumo resumo(Conta conta) {
+        ContaResumo resumo = ContaResumo.de(conta);
+        resumo.setSaldo(saldoTotal(conta));
+        return resumo;
+    }
+
+    private int sortearFatia(Conta conta) {
+        return quente(conta) ? ThreadLocalRandom.current().nextInt(conta.getFatiasCredito()) : SEM_FATIA;
+    }
+
+    // Retorna a fatia efetivamente creditada, ou SEM_FATIA se o crédito foi na própria conta
+    private int creditarNaFatia(Conta conta, BigDecimal valor, int fatia) {
+        // Zero linhas: a conta deixou de ser quente depois de ser lida do cache
+        if (fatia != SEM_FATIA && subSaldoRepository.creditar(conta.getId(), fatia, valor) > 0) {
+            return fatia;
+        }
+        contaRepository.creditar(conta.getNumeroConta(), valor);
+        return SEM_FATIA;
+    }
+
+    /**
+     * Incorpora as fatias ao saldo da conta. Trava a conta e depois as fatias; créditos
+     * concorrentes esperam só pela fatia que sortearam. Deve ser chamado dentro de uma transação.
+     *
+     * @return Valor incorporado
+     */
+    BigDecimal consolidar(Long contaId) {
+        jdbcTemplate.queryForList(TRAVAR_CONTA, Long.class, contaId);
+        BigDecimal soma = BigDecimal.ZERO;
+        for (BigDecimal saldo : jdbcTemplate.queryForList(TRAVAR_FATIAS, BigDecimal.class, contaId)) {
+            soma = soma.add(saldo);
+        }
+        if (soma.signum() != 0) {
+            jdbcTemplate.update(ZERAR_FATIAS, contaId);
+            jdbcTemplate.update(CREDITAR_CONTA, soma, contaId);
+        }
+        return soma;
+    }
+
+    /**
+     * Incorpora periodicamente as fatias de todas as contas quentes, uma transação por conta.
+     */
+    @Scheduled(fixedDelayString = "${banco.conta-quente.intervalo-consolidacao:PT1S}")
+    public void consolidarContasQuentes() {
+        for (Conta conta : contaRepository.findByFatiasCreditoGreaterThan(1)) {
+            BigDecimal incorporado = transactionTemplate.execute(status -> {
+                BigDecimal soma = consolidar(conta.getId());
+                if (soma.signum() != 0) {
+                    contaCache.invalidar(conta.getNumeroConta());
+                }
+                return soma;
+            });
+            log.debug("Conta quente {}: {} incorporados das fatias", conta.getNumeroConta(), incorporado);
+        }
+    }
+
+    /**
+     * Passa a espalhar os créditos da conta em {@code fatias} fatias. Chamado de novo com
+     * outra quantidade, incorpora as fatias atuais e recria as fatias.
+     *
+     * @param numeroConta Número da conta
+     * @param fatias Quantidade de fatias, entre 2 e o máximo configurado
+     * @return Resumo da conta
+     */
+    public ContaResumo habilitar(String numeroConta, int fatias) {
+        if (fatias < 2 || fatias > fatiasMaximas) {
+            throw new IllegalArgumentException("Quantidade de fatias deve estar entre 2 e " + fatiasMaximas);
+        }
+        return alterarFatias(numeroConta, fatias);
+    }
+
+    /**
+     * Volta a conta ao modo comum, incorporando e removendo as fatias.
+     */
+    public ContaResumo desabilitar(String numeroConta) {
+        return alterarFatias(numeroConta, 0);
+    }
+
+    private ContaResumo alterarFatias(String numeroConta, int fatias) {
+        Long contaId = transactionTemplate.execute(status -> {
+            Conta conta = contaRepository.findByNumeroConta(numeroConta)
+                    .orElseThrow(() -> new RecursoNaoEncontradoException("Conta não encontrada"));
+            consolidar(conta.getId());
+            subSaldoRepository.removerFatias(conta.getId());
+            List<SubSaldo> novas = new ArrayList<>(fatias);
+            for (int fatia = 0; fatia < fatias; fatia++) {
+                novas.add(new SubSaldo(null, conta.getId(), fatia, BigDecimal.ZERO));
+            }
+            subSaldoRepository.saveAll(novas);
+            contaRepository.definirFatiasCredito(conta.getId(), fatias);
+            contaCache.invalidar(numeroConta);
+            return conta.getId();
+        });
+        log.info("Conta {} com {} fatias de crédito", numeroConta, fatias);
+        return contaRepository.findResumoById(contaId)
+                .orElseThrow(() -> new RecursoNaoEncontradoException("Conta não encontrada"));
+    }
+}
@@ -1,18 +1,29 @@
 package com.bancodigital.corebanking.service;
 
+import com.bancodigital.corebanking.dto.ContaResumo;
+import com.bancodigital.corebanking.dto.ExtratoLinha;
+import com.bancodigital.corebanking.dto.ExtratoPagina;
+import com.bancodigital.corebanking.dto.ExtratoPeriodo;
+import com.bancodigital.corebanking.dto.ExtratoPeriodoLinha;
 import com.bancodigital.corebanking.exception.SaldoInsuficienteException;
 import com.bancodigital.corebanking.exception.RecursoNaoEncontradoException;
 import com.bancodigital.corebanking.model.*;
 import com.bancodigital.corebanking.repository.ContaRepository;
 import com.bancodigital.corebanking.repository.TransacaoRepository;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
-import java.util.Random;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
@@ -20,11 +31,22 @@ public class ContaService {
 
     private final ContaRepository contaRepository;
     private final TransacaoRepository transacaoRepository;
+    private final Optional<MotorLancamentos> motorLancamentos;
+    private final SaldoDiarioService saldoDiarioService;
+    private final ContaCache contaCache;
+    private final NumeroContaAlocador numeroContaAlocador;
+    private final ContaQuenteService contaQuenteService;
+    private final HistoricoTransacoes historicoTransacoes;
+    private final TransactionTemplate transactionTemplate;
 
+    private static final int TAMANHO_MAXIMO_PAGINA_EXTRATO = 500;
+
+    @Transactional(readOnly = true)
     public List<Conta> listarContas() {
         return contaRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
     public List<Conta> listarContasPorCliente(Long clienteId) {
         return contaRepository.findByClienteId(clienteId);
     }
@@ -34,11 +56,30 @@ public class ContaService {
                 .orElseThrow(() -> new RecursoNaoEncontradoException("Conta não encontrada"));
     }
 
-    public Conta buscarContaPorNumero(String numeroConta) {
-        return contaRepository.findByNumeroConta(numeroConta)
+    @Transactional(readOnly = true)
+    public List<ContaResumo> listarResumos() {
+        return contaRepository.listarResumos();
+    }
+
+    @Transactional(readOnly = true)
+    public List<ContaResumo> listarResumosPorCliente(Long clienteId) {
+        return contaRepository.findResumosByClienteId(clienteId);
+    }
+
+    public ContaResumo buscarResumoPorId(Long id) {
+        return contaRepository.findResumoById(id)
                 .orElseThrow(() -> new RecursoNaoEncontradoException("Conta não encontrada"));
     }
 
+    public Conta buscarContaPorNumero(String numeroConta) {
+        return contaCache.buscarPorNumero(numeroConta);
+    }
+
+    // A conta vem do cache; numa conta quente o saldo é lido com as fatias
+    public ContaResumo buscarResumoPorNumero(String numeroConta) {
+        return contaQuenteService.resumo(buscarContaPorNumero(numeroConta));
+    }
+
     @Transactional
     public ContaCorrente criarContaCorrente(Cliente cliente) {
         ContaCorrente conta = new ContaCorrente();
@@ -61,152 +102,229 @@ public class ContaService {
     }
 
     private String gerarNumeroConta() {
-        Random random = new Random();
-        String numeroConta;
-        do {
-            numeroConta = String.format("%08d", random.nextInt(100000000));
-        } while (contaRepository.existsByNumeroConta(numeroConta));
-        return numeroConta;
+        return numeroContaAlocador.proximoNumero();
     }
 
-    @Transactional
     public Transacao depositar(String numeroConta, BigDecimal valor) {
         if (valor.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Valor de depósito deve ser maior que zero");
         }
 
-        Conta conta = buscarContaPorNumero(numeroConta);
-        conta.setSaldo(conta.getSaldo().add(valor));
-        contaRepository.save(conta);
+        if (motorLancamentos.isPresent()) {
+            return motorLancamentos.get().depositar(numeroConta, valor);
+        }
+
+        return transactionTemplate.execute(status -> {
+            Conta conta = buscarContaPorNumero(numeroConta);
+            contaQuenteService.creditar(conta, valor);
+            contaCache.invalidar(numeroConta);
 
-        Transacao transacao = new Transacao();
-        transacao.setTipo(Transacao.TipoTransacao.DEPOSITO);
-        transacao.setValor(valor);
-        transacao.setTaxa(BigDecimal.ZERO);
-        transacao.setContaDestino(conta);
-        transacao.setDataHora(LocalDateTime.now());
-        transacao.setDescricao("Depósito em conta");
+            Transacao transacao = new Transacao();
+            transacao.setTipo(Transacao.TipoTransacao.DEPOSITO);
+            transacao.setValor(valor);
+            transacao.setTaxa(BigDecimal.ZERO);
+            transacao.setContaDestino(conta);
+            transacao.setDataHora(LocalDateTime.now());
+            transacao.setDescricao("Depósito em conta");
 
-        return transacaoRepository.save(transacao);
+            return transacaoRepository.save(transacao);
+        });
     }
 
-    @Transactional
     public Transacao sacar(String numeroConta, BigDecimal valor) {
         if (valor.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Valor de saque deve ser maior que zero");
         }
 
-        Conta conta = buscarContaPorNumero(numeroConta);
-        BigDecimal saldoDisponivel = conta.getSaldo();
-        
-        // Verifica se é conta corrente com cheque especial
-        if (conta instanceof ContaCorrente) {
-            saldoDisponivel = saldoDisponivel.add(((ContaCorrente) conta).getLimiteChequeEspecial());
-        }
-        
-        if (saldoDisponivel.compareTo(valor) < 0) {
-            throw new SaldoInsuficienteException("Saldo insuficiente para realizar o saque");
+        if (motorLancamentos.isPresent()) {
+            return motorLancamentos.get().sacar(numeroConta, valor);
         }
 
-        conta.setSaldo(conta.getSaldo().subtract(valor));
-        contaRepository.save(conta);
+        return transactionTemplate.execute(status -> {
+            Conta conta = buscarContaPorNumero(numeroConta);
 
-        Transacao transacao = new Transacao();
-        transacao.setTipo(Transacao.TipoTransacao.SAQUE);
-        transacao.setValor(valor);
-        transacao.setTaxa(BigDecimal.ZERO);
-        transacao.setContaOrigem(conta);
-        transacao.setDataHora(LocalDateTime.now());
-        transacao.setDescricao("Saque em conta");
+            // O saldo disponível (incluindo cheque especial) é verificado pelo próprio UPDATE
+            if (!contaQuenteService.debitar(conta, valor, true)) {
+                throw new SaldoInsuficienteException("Saldo insuficiente para realizar o saque");
+            }
+            contaCache.invalidar(numeroConta);
 
-        return transacaoRepository.save(transacao);
+            Transacao transacao = new Transacao();
+            transacao.setTipo(Transacao.TipoTransacao.SAQUE);
+            transacao.setValor(valor);
+            transacao.setTaxa(BigDecimal.ZERO);
+            transacao.setContaOrigem(conta);
+            transacao.setDataHora(LocalDateTime.now());
+            transacao.setDescricao("Saque em conta");
+
+            return transacaoRepository.save(transacao);
+        });
     }
 
-    @Transactional
     public Transacao transferir(String numeroContaOrigem, String numeroContaDestino, BigDecimal valor) {
         if (valor.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Valor de transferência deve ser maior que zero");
         }
 
-        Conta contaOrigem = buscarContaPorNumero(numeroContaOrigem);
-        Conta contaDestino = buscarContaPorNumero(numeroContaDestino);
-        
-        BigDecimal taxa = contaOrigem.calcularTaxa(valor);
-        BigDecimal valorTotal = valor.add(taxa);
-        
-        BigDecimal saldoDisponivel = contaOrigem.getSaldo();
-        
-        // Verifica se é conta corrente com cheque especial
-        if (contaOrigem instanceof ContaCorrente) {
-            saldoDisponivel = saldoDisponivel.add(((ContaCorrente) contaOrigem).getLimiteChequeEspecial());
-        }
-        
-        if (saldoDisponivel.compareTo(valorTotal) < 0) {
-            throw new SaldoInsuficienteException("Saldo insuficiente para realizar a transferência");
+        if (motorLancamentos.isPresent()) {
+            return motorLancamentos.get().transferir(numeroContaOrigem, numeroContaDestino, valor);
         }
 
-        contaOrigem.setSaldo(contaOrigem.getSaldo().subtract(valorTotal));
-        contaDestino.setSaldo(contaDestino.getSaldo().add(valor));
-        
-        contaRepository.save(contaOrigem);
-        contaRepository.save(contaDestino);
+        return transactionTemplate.execute(status -> {
+            Conta contaOrigem = buscarContaPorNumero(numeroContaOrigem);
+            Conta contaDestino = buscarContaPorNumero(numeroContaDestino);
+
+            BigDecimal taxa = contaOrigem.calcularTaxa(valor);
+            BigDecimal valorTotal = valor.add(taxa);
+
+            // Considera o cheque especial da conta corrente
+            if (!contaQuenteService.transferirSaldo(contaOrigem, contaDestino, valorTotal, valor, true)) {
+                throw new SaldoInsuficienteException("Saldo insuficiente para realizar a transferência");
+            }
+            contaCache.invalidar(List.of(numeroContaOrigem, numeroContaDestino));
 
-        Transacao transacao = new Transacao();
-        transacao.setTipo(Transacao.TipoTransacao.TRANSFERENCIA);
-        transacao.setValor(valor);
-        transacao.setTaxa(taxa);
-        transacao.setContaOrigem(contaOrigem);
-        transacao.setContaDestino(contaDestino);
-        transacao.setDataHora(LocalDateTime.now());
-        transacao.setDescricao("Transferência entre contas");
+            Transacao transacao = new Transacao();
+            transacao.setTipo(Transacao.TipoTransacao.TRANSFERENCIA);
+            transacao.setValor(valor);
+            transacao.setTaxa(taxa);
+            transacao.setContaOrigem(contaOrigem);
+            transacao.setContaDestino(contaDestino);
+            transacao.setDataHora(LocalDateTime.now());
+            transacao.setDescricao("Transferência entre contas");
 
-        return transacaoRepository.save(transacao);
+            return transacaoRepository.save(transacao);
+        });
     }
     
-    @Transactional
     public Transacao pix(String numeroContaOrigem, String numeroContaDestino, BigDecimal valor) {
         if (valor.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Valor de PIX deve ser maior que zero");
         }
 
-        Conta contaOrigem = buscarContaPorNumero(numeroContaOrigem);
-        Conta contaDestino = buscarContaPorNumero(numeroContaDestino);
-        
-        // PIX não tem taxa
-        BigDecimal taxa = BigDecimal.ZERO;
-        
-        if (contaOrigem.getSaldo().compareTo(valor) < 0) {
-            throw new SaldoInsuficienteException("Saldo insuficiente para realizar o PIX");
+        if (motorLancamentos.isPresent()) {
+            return motorLancamentos.get().pix(numeroContaOrigem, numeroContaDestino, valor);
         }
 
-        contaOrigem.setSaldo(contaOrigem.getSaldo().subtract(valor));
-        contaDestino.setSaldo(contaDestino.getSaldo().add(valor));
-        
-        contaRepository.save(contaOrigem);
-        contaRepository.save(contaDestino);
+        return transactionTemplate.execute(status -> {
+            Conta contaOrigem = buscarContaPorNumero(numeroContaOrigem);
+            Conta contaDestino = buscarContaPorNumero(numeroContaDestino);
+
+            // PIX não tem taxa
+            BigDecimal taxa = BigDecimal.ZERO;
+
+            // PIX não usa o cheque especial
+            if (!contaQuenteService.transferirSaldo(contaOrigem, contaDestino, valor, valor, false)) {
+                throw new SaldoInsuficienteException("Saldo insuficiente para realizar o PIX");
+            }
+            contaCache.invalidar(List.of(numeroContaOrigem, numeroContaDestino));
 
-        Transacao transacao = new Transacao();
-        transacao.setTipo(Transacao.TipoTransacao.PIX);
-        transacao.setValor(valor);
-        transacao.setTaxa(taxa);
-        transacao.setContaOrigem(contaOrigem);
-        transacao.setContaDestino(contaDestino);
-        transacao.setDataHora(LocalDateTime.now());
-        transacao.setDescricao("Transferência via PIX");
+            Transacao transacao = new Transacao();
+            transacao.setTipo(Transacao.TipoTransacao.PIX);
+            transacao.setValor(valor);
+            transacao.setTaxa(taxa);
+            transacao.setContaOrigem(contaOrigem);
+            transacao.setContaDestino(contaDestino);
+            transacao.setDataHora(LocalDateTime.now());
+            transacao.setDescricao("Transferência via PIX");
 
-        return transacaoRepository.save(transacao);
+            return transacaoRepository.save(transacao);
+        });
     }
 
-    public List<Transacao> extrato(String numeroConta) {
+    /**
+     * Retorna uma página do extrato, da transação mais recente para a mais antiga.
+     *
+     * @param numeroConta Número da conta
+     * @param tamanho Quantidade máxima de transações na página
+     * @param cursor Cursor devolvido pela página anterior, ou nulo para a primeira página
+     * @return Página do extrato com o cursor da próxima página
+     */
+    @Transactional(readOnly = true)
+    public ExtratoPagina extrato(String numeroConta, int tamanho, String cursor) {
+        if (tamanho <= 0 || tamanho > TAMANHO_MAXIMO_PAGINA_EXTRATO) {
+            throw new IllegalArgumentException("Tamanho da página deve estar entre 1 e " + TAMANHO_MAXIMO_PAGINA_EXTRATO);
+        }
+
         Conta conta = buscarContaPorNumero(numeroConta);
-        return transacaoRepository.findByContaOrigemIdOrContaDestinoId(conta.getId(), conta.getId());
+        LocalDateTime dataHora = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+        long id = Long.MAX_VALUE;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] partes = decodificarCursor(cursor);
+            dataHora = LocalDateTime.parse(partes[0]);
+            id = Long.parseLong(partes[1]);
+        }
+
+        // Busca um item a mais só para saber se existe próxima página
+        List<ExtratoLinha> linhas = historicoTransacoes.antesDe(conta.getId(), dataHora, id, tamanho + 1);
+        if (linhas.size() <= tamanho) {
+            return new ExtratoPagina(linhas, null);
+        }
+        List<ExtratoLinha> pagina = linhas.subList(0, tamanho);
+        ExtratoLinha ultima = pagina.get(tamanho - 1);
+        return new ExtratoPagina(pagina, codificarCursor(ultima.getDataHora(), ultima.getId()));
     }
     
-    public List<Transacao> extratoPeriodo(String numeroConta, LocalDateTime inicio, LocalDateTime fim) {
+    /**
+     * Extrato do período (limites inclusivos) com saldo inicial e saldo corrente por linha.
+     * O saldo inicial vem do snapshot diário mais próximo, sem somar o histórico todo.
+     */
+    @Transactional(readOnly = true)
+    public ExtratoPeriodo extratoPeriodo(String numeroConta, LocalDateTime inicio, LocalDateTime fim) {
         Conta conta = buscarContaPorNumero(numeroConta);
-        List<Transacao> transacoes = transacaoRepository.findByContaOrigemIdOrContaDestinoId(conta.getId(), conta.getId());
-        return transacoes.stream()
-                .filter(t -> t.getDataHora().isAfter(inicio) && t.getDataHora().isBefore(fim))
-                .toList();
+        BigDecimal saldoInicial = saldoDiarioService.saldoEm(conta.getId(), inicio);
+
+        List<ExtratoLinha> transacoes = historicoTransacoes.periodo(conta.getId(), inicio, fim);
+        List<ExtratoPeriodoLinha> linhas = new ArrayList<>(transacoes.size());
+        BigDecimal saldo = saldoInicial;
+        // A lista vem da mais recente para a mais antiga
+        for (int i = transacoes.size() - 1; i >= 0; i--) {
+            ExtratoLinha transacao = transacoes.get(i);
+            saldo = saldo.add(efeitoNoSaldo(transacao, conta.getNumeroConta()));
+            linhas.add(new ExtratoPeriodoLinha(transacao, saldo));
+        }
+        return new ExtratoPeriodo(saldoInicial, saldo, linhas);
+    }
+
+    public BigDecimal saldoEm(String numeroConta, LocalDate data) {
+        Conta conta = buscarContaPorNumero(numeroConta);
+        return saldoDiarioService.saldoAoFimDo(conta.getId(), data);
+    }
+
+    // Mesma regra usada nas somas de movimento do TransacaoRepository
+    private static BigDecimal efeitoNoSaldo(ExtratoLinha transacao, String numeroConta) {
+        BigDecimal taxa = transacao.getTaxa() == null ? BigDecimal.ZERO : transacao.getTaxa();
+        boolean origem = numeroConta.equals(transacao.getNumeroContaOrigem());
+        boolean destino = numeroConta.equals(transacao.getNumeroContaDestino());
+
+        BigDecimal efeito = BigDecimal.ZERO;
+        if (origem) {
+            efeito = transacao.getTipo() == Transacao.TipoTransacao.DEPOSITO
+                    ? transacao.getValor()
+                    : transacao.getValor().add(taxa).negate();
+        }
+        if (destino) {
+            efeito = efeito.add(transacao.getValor());
+        }
+        return efeito;
+    }
+
+    private static String codificarCursor(LocalDateTime dataHora, Long id) {
+        String valor = dataHora + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodificarCursor(String cursor) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = valor.split("\\|");
+            if (partes.length != 2) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            LocalDateTime.parse(partes[0]);
+            Long.parseLong(partes[1]);
+            return partes;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor inválido", e);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,170 @@
+package com.bancodigital.corebanking.service;
+
+import com.bancodigital.corebanking.dto.ExtratoLinha;
+import com.bancodigital.corebanking.exception.RecursoNaoEncontradoException;
+import com.bancodigital.corebanking.model.Conta;
+import com.bancodigital.corebanking.repository.ContaRepository;
+import com.bancodigital.corebanking.repository.TransacaoRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Exporta o histórico completo de uma conta em CSV ou NDJSON, linha a linha, sem
+ * montar a lista de transações em memória. As transações de meses arquivados da conta
+ * vêm antes, escritas à medida que são lidas dos arquivos.
+ */
+@Service
+@RequiredArgsConstructor
+public class ExtratoExportacaoService {
+
+    private final ContaRepository contaRepository;
+    private final TransacaoRepository transacaoRepository;
+    private final ObjectMapper objectMapper;
+    private final HistoricoTransacoes historicoTransacoes;
+
+    public enum Formato {
+        CSV,
+        NDJSON
+    }
+
+    /**
+     * Escreve o extrato da conta na saída. A saída não é fechada.
+     *
+     * @param numeroConta Número da conta
+     * @param formato Formato de exportação
+     * @param saida Destino dos dados
+     */
+    @Transactional(readOnly = true)
+    public void exportar(String numeroConta, Formato formato, OutputStream saida) throws IOException {
+        Conta conta = contaRepository.findByNumeroConta(numeroConta)
+                .orElseThrow(() -> new RecursoNaoEncontradoException("Conta não encontrada"));
+
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8), 64 * 1024);
+        EscritorLinhas linhas = formato == Formato.CSV ? new EscritorCsv(escritor) : new EscritorNdjson(escritor);
+
+        // Meses arquivados primeiro, escritos à medida que são lidos dos arquivos;
+        // da tabela, só o que está depois do limite de arquivamento
+        LocalDateTime limite = historicoTransacoes.limite();
+        if (limite != null) {
+            try {
+                historicoTransacoes.arquivadasEmOrdemCronologica(conta.getId(), linha -> {
+                    try {
+                        linhas.escrever(linha);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+        try (Stream<ExtratoLinha> recentes = transacaoRepository.streamExtrato(conta.getId())) {
+            Iterator<ExtratoLinha> iterador = recentes.iterator();
+            while (iterador.hasNext()) {
+                ExtratoLinha linha = iterador.next();
+                if (limite == null || !linha.getDataHora().isBefore(limite)) {
+                    linhas.escrever(linha);
+                }
+            }
+        }
+        linhas.concluir();
+        escritor.flush();
+    }
+
+    private interface EscritorLinhas {
+
+        void escrever(ExtratoLinha linha) throws IOException;
+
+        void concluir() throws IOException;
+    }
+
+    private final class EscritorCsv implements EscritorLinhas {
+
+        private final Writer escritor;
+
+        private EscritorCsv(Writer escritor) throws IOException {
+            this.escritor = escritor;
+            escritor.write("id,dataHora,tipo,valor,taxa,descricao,contaOrigem,contaDestino\n");
+        }
+
+        @Override
+        public void escrever(ExtratoLinha linha) throws IOException {
+            escritor.write(String.valueOf(linha.getId()));
+            escritor.write(',');
+            escritor.write(String.valueOf(linha.getDataHora()));
+            escritor.write(',');
+            escritor.write(String.valueOf(linha.getTipo()));
+            escritor.write(',');
+            escritor.write(linha.getValor() == null ? "" : linha.getValor().toPlainString());
+            escritor.write(',');
+            escritor.write(linha.getTaxa() == null ? "" : linha.getTaxa().toPlainString());
+            escritor.write(',');
+            escreverCampoCsv(linha.getDescricao(), escritor);
+            escritor.write(',');
+            escreverCampoCsv(linha.getNumeroContaOrigem(), escritor);
+            escritor.write(',');
+            escreverCampoCsv(linha.getNumeroContaDestino(), escritor);
+            escritor.write('\n');
+        }
+
+        @Override
+        public void concluir() {
+        }
+    }
+
+    private final class EscritorNdjson implements EscritorLinhas {
+
+        private final Writer escritor;
+        private final SequenceWriter sequencia;
+        private boolean vazio = true;
+
+        private EscritorNdjson(Writer escritor) throws IOException {
+            this.escritor = escritor;
+            this.sequencia = objectMapper.writer()
+                    .withRootValueSeparator("\n")
+                    .writeValues(escritor);
+        }
+
+        @Override
+        public void escrever(ExtratoLinha linha) throws IOException {
+            sequencia.write(linha);
+            vazio = false;
+        }
+
+        @Override
+        public void concluir() throws IOException {
+            if (vazio) {
+                return;
+            }
+            sequencia.flush();
+            escritor.write('\n');
+        }
+    }
+
+    private void escreverCampoCsv(String valor, Writer escritor) throws IOException {
+        if (valor == null) {
+            return;
+        }
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+            escritor.write(valor);
+            return;
+        }
+        escritor.write('"');
+        escritor.write(valor.replace("\"", "\"\""));
+        escritor.write('"');
+    }
+}
@@ -0,0 +1,285 @@
+package com.bancodigital.corebanking.service;
+
+import com.bancodigital.corebanking.dto.FechamentoMensalRelatorio;
+import com.bancodigital.corebanking.model.Conta;
+import com.bancodigital.corebanking.model.FechamentoMensalFaixa;
+import com.bancodigital.corebanking.model.Transacao;
+import com.bancodigital.corebanking.repository.ContaRepository;
+import com.bancodigital.corebanking.repository.FechamentoMensalFaixaRepository;
+import com.bancodigital.corebanking.repository.TransacaoRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Fechamento do mês: credita o rendimento das contas poupança ({@code taxaRendimento}
+ * sobre o saldo, somadas as fatias de uma conta quente) e debita a tarifa de manutenção
+ * das contas correntes. Só entram as contas abertas até o fim da competência.
+ *
+ * As contas são percorridas em faixas de id, distribuídas em um {@link ForkJoinPool}.
+ * Cada faixa roda em uma transação que aplica os saldos com batch de JDBC, grava as
+ * transações com o batch do Hibernate e registra o checkpoint {@link FechamentoMensalFaixa}.
+ * Uma execução interrompida pode ser repetida: faixas com checkpoint são puladas e as
+ * demais não deixaram efeito. Por isso as faixas de uma competência já iniciada não podem
+ * mudar: com outro {@code tamanho-faixa} a execução é recusada, em vez de lançar de novo
+ * as contas de faixas que se sobrepõem.
+ */
+@Slf4j
+@Service
+public class FechamentoMensalService {
+
+    // O saldo inclui as fatias de crédito das contas quentes; contas abertas depois do fim da
+    // competência não entram (sem data de criação são as anteriores ao campo)
+    private static final String SELECT_CONTAS = "SELECT c.id, c.numero_conta, c.tipo_conta,"
+            + " c.taxa_rendimento, c.taxa_manutencao,"
+            + " c.saldo + COALESCE((SELECT SUM(s.saldo) FROM sub_saldo s WHERE s.conta_id = c.id), 0) AS saldo"
+            + " FROM conta c WHERE c.id BETWEEN ? AND ? AND c.ativa = TRUE"
+            + " AND (c.data_criacao IS NULL OR c.data_criacao < ?)";
+    private static final String CREDITAR = "UPDATE conta SET saldo = saldo + ? WHERE id = ?";
+
+    private final ContaRepository contaRepository;
+    private final TransacaoRepository transacaoRepository;
+    private final FechamentoMensalFaixaRepository faixaRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final ContaCache contaCache;
+    private final Optional<MotorLancamentos> motorLancamentos;
+    private final int tamanhoFaixa;
+    private final int paralelismo;
+
+    public FechamentoMensalService(
+            ContaRepository contaRepository,
+            TransacaoRepository transacaoRepository,
+            FechamentoMensalFaixaRepository faixaRepository,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            EntityManager entityManager,
+            ContaCache contaCache,
+            Optional<MotorLancamentos> motorLancamentos,
+            @Value("${banco.fechamento-mensal.tamanho-faixa:2000}") int tamanhoFaixa,
+            @Value("${banco.fechamento-mensal.paralelismo:4}") int paralelismo) {
+        this.contaRepository = contaRepository;
+        this.transacaoRepository = transacaoRepository;
+        this.faixaRepository = faixaRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManager = entityManager;
+        this.contaCache = contaCache;
+        this.motorLancamentos = motorLancamentos;
+        this.tamanhoFaixa = tamanhoFaixa;
+        this.paralelismo = paralelismo;
+    }
+
+    /**
+     * Fecha o mês anterior. Roda no primeiro dia de cada mês.
+     */
+    @Scheduled(cron = "${banco.fechamento-mensal.cron:0 30 1 1 * *}")
+    public void fecharMesAnterior() {
+        fechar(YearMonth.now().minusMonths(1));
+    }
+
+    /**
+     * Aplica rendimentos e tarifas da competência. Pode ser chamado de novo para a mesma
+     * competência: só as faixas sem checkpoint são processadas.
+     *
+     * @param competencia Mês de referência, anterior ao mês corrente
+     * @return Resumo da execução
+     * @throws IllegalArgumentException se a competência não for anterior ao mês corrente
+     * @throws IllegalStateException se a competência foi iniciada com outro tamanho de faixa
+     */
+    public FechamentoMensalRelatorio fechar(YearMonth competencia) {
+        if (!competencia.isBefore(YearMonth.now())) {
+            throw new IllegalArgumentException("Só é possível fechar meses anteriores ao corrente");
+        }
+        if (motorLancamentos.isPresent()) {
+            // Com o motor os saldos autoritativos estão em memória e não veriam estes lançamentos
+            throw new IllegalStateException("Fechamento mensal indisponível com o motor de lançamentos habilitado");
+        }
+
+        long inicio = System.currentTimeMillis();
+        String chaveCompetencia = competencia.toString();
+        Set<Long> concluidas = new HashSet<>();
+        for (FechamentoMensalFaixa faixa : faixaRepository.findByCompetencia(chaveCompetencia)) {
+            // Só a última faixa pode terminar antes, no maior id da época
+            if ((faixa.getIdInicio() - 1) % tamanhoFaixa != 0 || faixa.getIdFim() > faixa.getIdInicio() + tamanhoFaixa - 1) {
+                throw new IllegalStateException(String.format(
+                        "Competência %s iniciada com outras faixas (%d-%d); use o tamanho-faixa daquela execução",
+                        chaveCompetencia, faixa.getIdInicio(), faixa.getIdFim()));
+            }
+            concluidas.add(faixa.getIdInicio());
+        }
+
+        List<long[]> pendentes = new ArrayList<>();
+        long maiorId = contaRepository.findMaiorId();
+        int totalFaixas = 0;
+        for (long idInicio = 1; idInicio <= maiorId; idInicio += tamanhoFaixa) {
+            totalFaixas++;
+            if (!concluidas.contains(idInicio)) {
+                pendentes.add(new long[] {idInicio, Math.min(idInicio + tamanhoFaixa - 1, maiorId)});
+            }
+        }
+
+        Totais totais = new Totais();
+        ForkJoinPool pool = new ForkJoinPool(paralelismo);
+        try {
+            pool.invoke(new Particao(chaveCompetencia, competencia, pendentes, 0, pendentes.size(), totais));
+        } finally {
+            pool.shutdown();
+        }
+
+        long duracao = System.currentTimeMillis() - inicio;
+        long contas = totais.contas.get();
+        FechamentoMensalRelatorio relatorio = new FechamentoMensalRelatorio(
+                chaveCompetencia,
+                totalFaixas,
+                totalFaixas - pendentes.size(),
+                contas,
+                totais.rendimentos.get(),
+                totais.tarifas.get(),
+                duracao,
+                duracao == 0 ? contas : contas * 1000.0 / duracao);
+        log.info("Fechamento mensal {}: {} contas em {} faixas ({} já concluídas), {} ms, {} contas/s",
+                chaveCompetencia, contas, totalFaixas, relatorio.getFaixasJaConcluidas(), duracao,
+                String.format("%.0f", relatorio.getContasPorSegundo()));
+        return relatorio;
+    }
+
+    private void processarFaixa(String chaveCompetencia, YearMonth competencia, long idInicio, long idFim, Totais totais) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // O checkpoint vai primeiro: outra execução na mesma faixa espera por esta linha e falha ao final
+                FechamentoMensalFaixa faixa = new FechamentoMensalFaixa(
+                        null, chaveCompetencia, idInicio, idFim, 0, LocalDateTime.now());
+                faixaRepository.saveAndFlush(faixa);
+
+                List<Object[]> creditos = new ArrayList<>();
+                List<Transacao> transacoes = new ArrayList<>();
+                List<String> numerosConta = new ArrayList<>();
+                BigDecimal[] somas = {BigDecimal.ZERO, BigDecimal.ZERO};
+                LocalDateTime dataHora = LocalDateTime.now();
+                LocalDateTime fimCompetencia = competencia.plusMonths(1).atDay(1).atStartOfDay();
+
+                jdbcTemplate.query(SELECT_CONTAS, linha -> {
+                    long id = linha.getLong("id");
+                    String tipo = linha.getString("tipo_conta");
+                    BigDecimal saldo = linha.getBigDecimal("saldo");
+
+                    Transacao transacao = null;
+                    if ("POUPANCA".equals(tipo)) {
+                        BigDecimal taxa = linha.getBigDecimal("taxa_rendimento");
+                        BigDecimal rendimento = taxa == null || saldo.signum() <= 0
+                                ? BigDecimal.ZERO
+                                : saldo.multiply(taxa).setScale(2, RoundingMode.HALF_EVEN);
+                        if (rendimento.signum() > 0) {
+                            creditos.add(new Object[] {rendimento, id});
+                            // Lançado na origem como depósito, que soma ao saldo
+                            transacao = novaTransacao(id, Transacao.TipoTransacao.DEPOSITO, rendimento,
+                                    "Rendimento da poupança " + chaveCompetencia, dataHora);
+                            somas[0] = somas[0].add(rendimento);
+                        }
+                    } else if ("CORRENTE".equals(tipo)) {
+                        BigDecimal tarifa = linha.getBigDecimal("taxa_manutencao");
+                        if (tarifa != null && tarifa.signum() > 0) {
+                            creditos.add(new Object[] {tarifa.negate(), id});
+                            transacao = novaTransacao(id, Transacao.TipoTransacao.PAGAMENTO, tarifa,
+                                    "Tarifa de manutenção " + chaveCompetencia, dataHora);
+                            somas[1] = somas[1].add(tarifa);
+                        }
+                    }
+                    if (transacao != null) {
+                        transacoes.add(transacao);
+                        numerosConta.add(linha.getString("numero_conta"));
+                    }
+                }, idInicio, idFim, fimCompetencia);
+
+                jdbcTemplate.batchUpdate(CREDITAR, creditos);
+                transacaoRepository.saveAll(transacoes);
+                faixa.setContasProcessadas(transacoes.size());
+                entityManager.flush();
+                entityManager.clear();
+                contaCache.invalidar(numerosConta);
+
+                totais.contas.addAndGet(transacoes.size());
+                totais.rendimentos.accumulateAndGet(somas[0], BigDecimal::add);
+                totais.tarifas.accumulateAndGet(somas[1], BigDecimal::add);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Checkpoint já existente: outra execução concluiu esta faixa
+            log.info("Faixa {}-{} da competência {} já processada", idInicio, idFim, competencia);
+        }
+    }
+
+    private Transacao novaTransacao(long contaId, Transacao.TipoTransacao tipo, BigDecimal valor,
+                                    String descricao, LocalDateTime dataHora) {
+        Transacao transacao = new Transacao();
+        transacao.setTipo(tipo);
+        transacao.setValor(valor);
+        transacao.setTaxa(BigDecimal.ZERO);
+        // Referência sem consulta: só a chave estrangeira é gravada
+        transacao.setContaOrigem(entityManager.getReference(Conta.class, contaId));
+        transacao.setDataHora(dataHora);
+        transacao.setDescricao(descricao);
+        return transacao;
+    }
+
+    private static final class Totais {
+        private final AtomicLong contas = new AtomicLong();
+        private final AtomicReference<BigDecimal> rendimentos = new AtomicReference<>(BigDecimal.ZERO);
+        private final AtomicReference<BigDecimal> tarifas = new AtomicReference<>(BigDecimal.ZERO);
+    }
+
+    // Divide a lista de faixas ao meio até sobrar uma faixa por tarefa
+    private final class Particao extends RecursiveAction {
+
+        private final String chaveCompetencia;
+        private final YearMonth competencia;
+        private final List<long[]> faixas;
+        private final int de;
+        private final int ate;
+        private final Totais totais;
+
+        private Particao(String chaveCompetencia, YearMonth competencia, List<long[]> faixas,
+                         int de, int ate, Totais totais) {
+            this.chaveCompetencia = chaveCompetencia;
+            this.competencia = competencia;
+            this.faixas = faixas;
+            this.de = de;
+            this.ate = ate;
+            this.totais = totais;
+        }
+
+        @Override
+        protected void compute() {
+            if (ate - de <= 1) {
+                if (ate > de) {
+                    long[] faixa = faixas.get(de);
+                    processarFaixa(chaveCompetencia, competencia, faixa[0], faixa[1], totais);
+                }
+                return;
+            }
+            int meio = (de + ate) >>> 1;
+            invokeAll(new Particao(chaveCompetencia, competencia, faixas, de, meio, totais),
+                    new Particao(chaveCompetencia, competencia, faixas, meio, ate, totais));
+        }
+    }
+}
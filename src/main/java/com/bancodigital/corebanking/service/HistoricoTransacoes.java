@@ -0,0 +1,151 @@
+package com.bancodigital.corebanking.service;
+
+import com.bancodigital.corebanking.dto.ExtratoLinha;
+import com.bancodigital.corebanking.dto.TransacaoArquivada;
+import com.bancodigital.corebanking.repository.TransacaoRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Leitura do histórico de transações nas duas camadas: a tabela {@code transacao} a partir
+ * do limite de arquivamento e os arquivos mensais antes dele. Cada consulta só toca os meses
+ * que o intervalo pedido alcança; linhas da tabela anteriores ao limite (meses já arquivados,
+ * ainda não removidos) são ignoradas para não aparecerem duas vezes.
+ */
+@Component
+@RequiredArgsConstructor
+public class HistoricoTransacoes {
+
+    private final TransacaoRepository transacaoRepository;
+    private final ArquivoTransacoes arquivo;
+
+    /**
+     * Transações da conta anteriores a (dataHora, id), da mais recente para a mais antiga.
+     */
+    public List<ExtratoLinha> antesDe(Long contaId, LocalDateTime dataHora, long id, int quantidade) {
+        LocalDateTime limite = arquivo.limite();
+        List<ExtratoLinha> linhas = new ArrayList<>(quantidade);
+        if (limite == null || !dataHora.isBefore(limite)) {
+            linhas = paraLinhas(transacaoRepository.findLinhasAntesDe(contaId, dataHora, id, quantidade));
+            if (limite != null) {
+                linhas.removeIf(linha -> linha.getDataHora().isBefore(limite));
+            }
+        }
+        if (limite == null || linhas.size() >= quantidade) {
+            return linhas;
+        }
+
+        // Completa com os meses arquivados, do mais recente para o mais antigo
+        LocalDateTime fim = dataHora.isBefore(limite) ? dataHora : limite.minusNanos(1);
+        List<YearMonth> meses = arquivo.meses(LocalDateTime.MIN, fim);
+        for (int m = meses.size() - 1; m >= 0 && linhas.size() < quantidade; m--) {
+            List<ExtratoLinha> doMes = new ArrayList<>();
+            arquivo.ler(meses.get(m), contaId, LocalDateTime.MIN, fim, transacao -> {
+                if (anterior(transacao, dataHora, id)) {
+                    doMes.add(transacao.paraExtratoLinha());
+                }
+            });
+            Collections.reverse(doMes);
+            linhas.addAll(doMes.subList(0, Math.min(doMes.size(), quantidade - linhas.size())));
+        }
+        return linhas;
+    }
+
+    /**
+     * Transações da conta no período (limites inclusivos), da mais recente para a mais antiga.
+     */
+    public List<ExtratoLinha> periodo(Long contaId, LocalDateTime inicio, LocalDateTime fim) {
+        LocalDateTime limite = arquivo.limite();
+        List<ExtratoLinha> linhas = new ArrayList<>();
+        if (limite == null || !fim.isBefore(limite)) {
+            LocalDateTime inicioTabela = limite != null && inicio.isBefore(limite) ? limite : inicio;
+            linhas = paraLinhas(transacaoRepository.findLinhasPorPeriodo(contaId, inicioTabela, fim));
+        }
+        if (limite == null || !inicio.isBefore(limite)) {
+            return linhas;
+        }
+
+        // Tudo que está nos arquivos é anterior ao que veio da tabela. Os meses são lidos em
+        // ordem crescente de (data_hora, id), então basta inverter
+        List<ExtratoLinha> arquivadas = new ArrayList<>();
+        for (YearMonth mes : arquivo.meses(inicio, fim.isBefore(limite) ? fim : limite.minusNanos(1))) {
+            arquivo.ler(mes, contaId, inicio, fim, transacao -> arquivadas.add(transacao.paraExtratoLinha()));
+        }
+        Collections.reverse(arquivadas);
+        linhas.addAll(arquivadas);
+        return linhas;
+    }
+
+    /**
+     * Efeito líquido das transações da tabela no saldo da conta, em [inicio, fim), a partir
+     * do limite de arquivamento.
+     */
+    public BigDecimal somarMovimentosRecentes(Long contaId, LocalDateTime inicio, LocalDateTime fim) {
+        LocalDateTime limite = arquivo.limite();
+        LocalDateTime inicioTabela = limite != null && inicio.isBefore(limite) ? limite : inicio;
+        if (!inicioTabela.isBefore(fim)) {
+            return BigDecimal.ZERO;
+        }
+        return transacaoRepository.somarMovimentos(contaId, inicioTabela, fim);
+    }
+
+    /**
+     * Efeito líquido das transações arquivadas no saldo da conta, em [inicio, fim).
+     */
+    public BigDecimal somarMovimentosArquivados(Long contaId, LocalDateTime inicio, LocalDateTime fim) {
+        LocalDateTime limite = arquivo.limite();
+        if (limite == null || !inicio.isBefore(limite) || !inicio.isBefore(fim)) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal[] soma = {BigDecimal.ZERO};
+        for (YearMonth mes : arquivo.meses(inicio, fim.minusNanos(1))) {
+            arquivo.ler(mes, contaId, inicio, fim, transacao -> {
+                if (transacao.getDataHora().isBefore(fim)) {
+                    soma[0] = soma[0].add(transacao.efeitoNoSaldo(contaId));
+                }
+            });
+        }
+        return soma[0];
+    }
+
+    /**
+     * Entrega as transações arquivadas da conta, da mais antiga para a mais recente, mês a
+     * mês à medida que são lidas dos arquivos, sem montar o histórico em memória.
+     */
+    public void arquivadasEmOrdemCronologica(Long contaId, Consumer<ExtratoLinha> consumidor) {
+        LocalDateTime limite = arquivo.limite();
+        if (limite == null) {
+            return;
+        }
+        for (YearMonth mes : arquivo.meses(LocalDateTime.MIN, limite.minusNanos(1))) {
+            // Os arquivos já estão em ordem de (data_hora, id)
+            arquivo.ler(mes, contaId, LocalDateTime.MIN, LocalDateTime.MAX,
+                    transacao -> consumidor.accept(transacao.paraExtratoLinha()));
+        }
+    }
+
+    public LocalDateTime limite() {
+        return arquivo.limite();
+    }
+
+    private static boolean anterior(TransacaoArquivada transacao, LocalDateTime dataHora, long id) {
+        int comparacao = transacao.getDataHora().compareTo(dataHora);
+        return comparacao < 0 || (comparacao == 0 && transacao.getId() < id);
+    }
+
+    private static List<ExtratoLinha> paraLinhas(List<Object[]> colunas) {
+        List<ExtratoLinha> linhas = new ArrayList<>(colunas.size());
+        for (Object[] linha : colunas) {
+            linhas.add(ExtratoLinha.deColunas(linha));
+        }
+        return linhas;
+    }
+}
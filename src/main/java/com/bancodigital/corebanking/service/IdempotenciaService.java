@@ -0,0 +1,260 @@
+package com.bancodigital.corebanking.service;
+
+import com.bancodigital.corebanking.model.RespostaIdempotente;
+import com.bancodigital.corebanking.repository.RespostaIdempotenteRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Deduplicação das operações que movimentam dinheiro pelo cabeçalho {@code Idempotency-Key}.
+ * O escopo de uma chave é o usuário autenticado e a operação: a mesma chave enviada por
+ * outro usuário é outra requisição.
+ *
+ * A primeira execução de uma chave roda na mesma transação que grava a sua resposta, então
+ * a movimentação e o registro são confirmados juntos; se outra instância gravou a mesma
+ * chave antes, a chave primária faz a transação inteira ser desfeita e a resposta já
+ * gravada é devolvida. Repetições são servidas de um cache em memória limitado, sem
+ * tocar em conta, e duplicatas simultâneas na mesma instância esperam a execução em
+ * andamento em vez de rodar de novo. O cache e quem espera só recebem a resposta depois
+ * do commit, nunca uma que ainda pode ser desfeita.
+ *
+ * Com o {@link MotorLancamentos} habilitado a movimentação já é durável no journal e não
+ * pode ser desfeita por um rollback; ela roda fora da transação, para não segurar uma
+ * conexão enquanto espera o motor, e a resposta é gravada depois numa transação curta.
+ */
+@Slf4j
+@Service
+public class IdempotenciaService {
+
+    public static final String CABECALHO = "Idempotency-Key";
+    public static final String CABECALHO_REPETICAO = "Idempotent-Replayed";
+
+    // Cabe um UUID ou ULID; sem ':', que separa usuário, operação e chave na chave gravada
+    private static final Pattern FORMATO_CHAVE = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    private final RespostaIdempotenteRepository respostaRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean execucaoForaDaTransacao;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration esperaMaxima;
+    private final Cache<String, RespostaIdempotente> respostas;
+    private final Map<String, CompletableFuture<RespostaIdempotente>> emAndamento = new ConcurrentHashMap<>();
+
+    public IdempotenciaService(
+            RespostaIdempotenteRepository respostaRepository,
+            TransactionTemplate transactionTemplate,
+            Optional<MotorLancamentos> motorLancamentos,
+            ObjectMapper objectMapper,
+            @Value("${banco.idempotencia.ttl:PT24H}") Duration ttl,
+            @Value("${banco.idempotencia.tamanho-maximo:100000}") long tamanhoMaximo,
+            @Value("${banco.idempotencia.espera-maxima:PT30S}") Duration esperaMaxima) {
+        this.respostaRepository = respostaRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.execucaoForaDaTransacao = motorLancamentos.isPresent();
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.esperaMaxima = esperaMaxima;
+        this.respostas = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Executa a operação uma única vez por chave. Sem chave, apenas executa. Só respostas
+     * 2xx são guardadas; em caso de erro a chave pode ser usada de novo. Uma chave fora do
+     * formato recebe 400 e uma já usada com outros parâmetros, 422.
+     *
+     * @param chave Valor do cabeçalho Idempotency-Key, ou nulo
+     * @param operacao Nome da operação, que delimita o escopo da chave
+     * @param impressao Parâmetros da requisição; a mesma chave com outros parâmetros é recusada
+     * @param execucao Operação a executar
+     */
+    public ResponseEntity<?> executar(String chave, String operacao, String impressao,
+                                      Supplier<ResponseEntity<?>> execucao) {
+        if (chave == null || chave.isBlank()) {
+            return execucao.get();
+        }
+        if (!FORMATO_CHAVE.matcher(chave).matches()) {
+            return ResponseEntity.badRequest().body(Map.of("erro",
+                    "Idempotency-Key deve ter até 64 caracteres entre letras, dígitos, '.', '_' e '-'"));
+        }
+        String chaveCompleta = usuarioAutenticado() + ':' + operacao + ':' + chave;
+
+        RespostaIdempotente gravada = respostas.getIfPresent(chaveCompleta);
+        if (gravada != null) {
+            return repetir(gravada, impressao);
+        }
+
+        CompletableFuture<RespostaIdempotente> execucaoAtual = new CompletableFuture<>();
+        CompletableFuture<RespostaIdempotente> anterior = emAndamento.putIfAbsent(chaveCompleta, execucaoAtual);
+        if (anterior != null) {
+            return repetir(aguardar(anterior), impressao);
+        }
+
+        try {
+            gravada = buscarNoBanco(chaveCompleta);
+            if (gravada != null) {
+                respostas.put(chaveCompleta, gravada);
+                execucaoAtual.complete(gravada);
+                return repetir(gravada, impressao);
+            }
+
+            ResponseEntity<?> resposta;
+            try {
+                resposta = executarEGravar(chaveCompleta, impressao, execucao, execucaoAtual);
+            } catch (DataIntegrityViolationException e) {
+                // Outra instância gravou a chave primeiro; esta execução foi desfeita
+                gravada = buscarNoBanco(chaveCompleta);
+                if (gravada == null) {
+                    throw e;
+                }
+                respostas.put(chaveCompleta, gravada);
+                execucaoAtual.complete(gravada);
+                return repetir(gravada, impressao);
+            }
+            if (!resposta.getStatusCode().is2xxSuccessful()) {
+                // Nada foi gravado; quem esperava recebe o erro e a chave pode ser usada de novo
+                execucaoAtual.complete(null);
+            }
+            return resposta;
+        } catch (RuntimeException e) {
+            execucaoAtual.completeExceptionally(e);
+            throw e;
+        } finally {
+            emAndamento.remove(chaveCompleta, execucaoAtual);
+        }
+    }
+
+    private ResponseEntity<?> executarEGravar(String chaveCompleta, String impressao,
+                                              Supplier<ResponseEntity<?>> execucao,
+                                              CompletableFuture<RespostaIdempotente> execucaoAtual) {
+        if (execucaoForaDaTransacao) {
+            transactionTemplate.executeWithoutResult(
+                    status -> respostaRepository.removerExpirada(chaveCompleta, LocalDateTime.now()));
+            ResponseEntity<?> resposta = execucao.get();
+            if (resposta.getStatusCode().is2xxSuccessful()) {
+                transactionTemplate.executeWithoutResult(
+                        status -> gravar(chaveCompleta, impressao, resposta, execucaoAtual));
+            }
+            return resposta;
+        }
+        return transactionTemplate.execute(status -> {
+            // Uma resposta expirada que a limpeza ainda não removeu não impede a nova execução;
+            // buscarNoBanco não a carrega, então ela não está no contexto de persistência
+            respostaRepository.removerExpirada(chaveCompleta, LocalDateTime.now());
+            ResponseEntity<?> resposta = execucao.get();
+            if (resposta.getStatusCode().is2xxSuccessful()) {
+                gravar(chaveCompleta, impressao, resposta, execucaoAtual);
+            }
+            return resposta;
+        });
+    }
+
+    private void gravar(String chaveCompleta, String impressao, ResponseEntity<?> resposta,
+                        CompletableFuture<RespostaIdempotente> execucaoAtual) {
+        RespostaIdempotente gravada = new RespostaIdempotente(
+                chaveCompleta,
+                impressao,
+                resposta.getStatusCode().value(),
+                serializar(resposta.getBody()),
+                LocalDateTime.now().plus(ttl));
+        // persist falha na chave duplicada ao dar flush, ainda dentro desta transação
+        respostaRepository.saveAndFlush(gravada);
+        // Num rollback a exceção chega a executar(), que a repassa a quem espera
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                respostas.put(chaveCompleta, gravada);
+                execucaoAtual.complete(gravada);
+            }
+        });
+    }
+
+    private static String usuarioAutenticado() {
+        Authentication autenticacao = SecurityContextHolder.getContext().getAuthentication();
+        return autenticacao == null ? "anonimo" : autenticacao.getName();
+    }
+
+    private RespostaIdempotente buscarNoBanco(String chaveCompleta) {
+        return respostaRepository.findByChaveAndExpiraEmAfter(chaveCompleta, LocalDateTime.now())
+                .orElse(null);
+    }
+
+    private RespostaIdempotente aguardar(CompletableFuture<RespostaIdempotente> execucao) {
+        try {
+            RespostaIdempotente resposta = execucao.get(esperaMaxima.toMillis(), TimeUnit.MILLISECONDS);
+            if (resposta == null) {
+                // A primeira execução terminou sem resposta 2xx
+                throw new IllegalStateException("A requisição original com esta Idempotency-Key não foi concluída");
+            }
+            return resposta;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("A requisição original com esta Idempotency-Key ainda está em andamento");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Espera interrompida", e);
+        }
+    }
+
+    private ResponseEntity<?> repetir(RespostaIdempotente gravada, String impressao) {
+        if (!gravada.getImpressao().equals(impressao)) {
+            return ResponseEntity.unprocessableEntity()
+                    .body(Map.of("erro", "Idempotency-Key já usada com outros parâmetros"));
+        }
+        return ResponseEntity.status(gravada.getStatus())
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(CABECALHO_REPETICAO, "true")
+                .body(gravada.getCorpo());
+    }
+
+    private String serializar(Object corpo) {
+        try {
+            return objectMapper.writeValueAsString(corpo);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Não foi possível guardar a resposta idempotente", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${banco.idempotencia.intervalo-limpeza:PT10M}")
+    @Transactional
+    public void removerExpiradas() {
+        int removidas = respostaRepository.removerExpiradas(LocalDateTime.now());
+        if (removidas > 0) {
+            log.debug("{} respostas idempotentes expiradas removidas", removidas);
+        }
+    }
+}
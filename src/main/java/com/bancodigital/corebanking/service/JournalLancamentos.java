@@ -0,0 +1,442 @@
+package com.bancodigital.corebanking.service;
+
+import com.bancodigital.corebanking.model.Transacao.TipoTransacao;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Log local append-only dos comandos aceitos pelo {@link MotorLancamentos}.
+ *
+ * Cada registro é gravado como [tamanho][crc32][corpo]. Na leitura, o primeiro
+ * registro truncado ou com CRC inválido marca o fim do segmento e a cauda é descartada.
+ *
+ * Cada chamada grava um lote de registros, o de uma partição do motor. As gravações
+ * concorrentes também são agrupadas (group commit): quem encontra o log livre grava de uma
+ * vez tudo o que está aguardando, com um único {@code force}, e acorda os demais.
+ * O log é dividido em segmentos ({@code <arquivo>.1}, {@code <arquivo>.2}, ...); quando o
+ * segmento atual passa do tamanho configurado, um novo é aberto. Um segmento fechado é
+ * apagado quando todos os seus registros foram confirmados com {@link #confirmar(long)},
+ * sempre a partir do mais antigo.
+ */
+class JournalLancamentos implements Closeable {
+
+    private static final int CABECALHO = Integer.BYTES + Long.BYTES;
+
+    private final Path arquivo;
+    private final boolean sincronizar;
+    private final long tamanhoSegmento;
+
+    // Estado protegido por 'trava'
+    private final Object trava = new Object();
+    private final Deque<Segmento> segmentos = new ArrayDeque<>();
+    private List<Quadro> aguardando = new ArrayList<>();
+    private long recebidos;
+    private long duraveis;
+    private boolean gravando;
+    private IOException falha;
+    private boolean fechado;
+
+    // Só usado por quem está gravando (gravando = true) ou sob a trava
+    private FileChannel canal;
+
+    JournalLancamentos(Path arquivo, boolean sincronizar, long tamanhoSegmento) throws IOException {
+        Path diretorio = arquivo.toAbsolutePath().getParent();
+        if (diretorio != null) {
+            Files.createDirectories(diretorio);
+        }
+        this.arquivo = arquivo;
+        this.sincronizar = sincronizar;
+        this.tamanhoSegmento = tamanhoSegmento;
+    }
+
+    /**
+     * Grava os registros no final do log. Só retorna depois que os bytes foram
+     * entregues ao sistema operacional (e ao disco, se a sincronização estiver ativa).
+     * Depois de uma falha de gravação o log fica inutilizável: a cauda pode estar
+     * corrompida e registros posteriores seriam descartados na leitura.
+     *
+     * @return Número do segmento onde os registros ficaram, todos no mesmo, para
+     *         {@link #confirmar(long)}
+     */
+    long registrar(List<Registro> registros) throws IOException {
+        List<Quadro> quadros = new ArrayList<>(registros.size());
+        for (Registro registro : registros) {
+            quadros.add(new Quadro(emoldurar(serializar(registro))));
+        }
+        long numero;
+        synchronized (trava) {
+            verificarDisponivel();
+            // Juntos em 'aguardando', vão todos para a mesma chamada de gravar e o mesmo segmento
+            aguardando.addAll(quadros);
+            recebidos += quadros.size();
+            numero = recebidos;
+        }
+
+        while (true) {
+            List<Quadro> lote;
+            long ate;
+            synchronized (trava) {
+                while (gravando && duraveis < numero && falha == null) {
+                    try {
+                        trava.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrompido aguardando a gravação do journal");
+                    }
+                }
+                if (duraveis >= numero) {
+                    return quadros.get(0).segmento;
+                }
+                verificarDisponivel();
+                gravando = true;
+                lote = aguardando;
+                aguardando = new ArrayList<>();
+                ate = recebidos;
+            }
+
+            IOException erro = null;
+            try {
+                gravar(lote);
+            } catch (IOException e) {
+                erro = e;
+            }
+            synchronized (trava) {
+                gravando = false;
+                if (erro == null) {
+                    duraveis = ate;
+                } else {
+                    falha = erro;
+                }
+                trava.notifyAll();
+            }
+            if (erro != null) {
+                throw erro;
+            }
+        }
+    }
+
+    /**
+     * Confirma que um registro do segmento já foi persistido no banco. Segmentos fechados
+     * com todos os registros confirmados são apagados, do mais antigo em diante.
+     */
+    void confirmar(long numeroSegmento) throws IOException {
+        List<Path> removidos = new ArrayList<>();
+        synchronized (trava) {
+            for (Segmento segmento : segmentos) {
+                if (segmento.numero == numeroSegmento) {
+                    segmento.confirmados++;
+                    break;
+                }
+            }
+            removerConfirmados(removidos);
+        }
+        for (Path caminho : removidos) {
+            Files.deleteIfExists(caminho);
+        }
+    }
+
+    /**
+     * Lê todos os registros íntegros dos segmentos existentes, em ordem de gravação.
+     */
+    List<Registro> ler() throws IOException {
+        List<Registro> registros = new ArrayList<>();
+        for (Path caminho : arquivosExistentes()) {
+            try (FileChannel leitura = FileChannel.open(caminho, StandardOpenOption.READ)) {
+                lerSegmento(leitura, registros);
+            }
+        }
+        return registros;
+    }
+
+    /**
+     * Descarta o conteúdo do log e abre um segmento novo. Usado na subida, depois que
+     * todos os registros lidos foram persistidos.
+     */
+    void truncar() throws IOException {
+        synchronized (trava) {
+            if (gravando || !aguardando.isEmpty()) {
+                throw new IllegalStateException("Journal com gravações em andamento não pode ser truncado");
+            }
+            if (canal != null) {
+                canal.close();
+                canal = null;
+            }
+            long proximo = 1;
+            for (Path caminho : arquivosExistentes()) {
+                proximo = Math.max(proximo, numeroDe(caminho) + 1);
+                Files.deleteIfExists(caminho);
+            }
+            segmentos.clear();
+            abrirSegmento(proximo);
+        }
+    }
+
+    /**
+     * Fecha o segmento atual. Segmentos com registros ainda não confirmados permanecem
+     * no disco e são reaplicados na próxima subida.
+     */
+    @Override
+    public void close() throws IOException {
+        List<Path> removidos = new ArrayList<>();
+        synchronized (trava) {
+            while (gravando) {
+                try {
+                    trava.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            if (fechado) {
+                return;
+            }
+            fechado = true;
+            if (canal != null) {
+                canal.force(true);
+                canal.close();
+                canal = null;
+            }
+            if (!segmentos.isEmpty()) {
+                segmentos.peekLast().fechado = true;
+            }
+            removerConfirmados(removidos);
+        }
+        for (Path caminho : removidos) {
+            Files.deleteIfExists(caminho);
+        }
+    }
+
+    private void verificarDisponivel() throws IOException {
+        if (fechado) {
+            throw new IOException("Journal de lançamentos fechado");
+        }
+        if (falha != null) {
+            throw new IOException("Journal de lançamentos inutilizado por falha anterior", falha);
+        }
+        if (canal == null) {
+            throw new IllegalStateException("Journal de lançamentos não inicializado");
+        }
+    }
+
+    // Executado por uma única thread por vez (gravando = true)
+    private void gravar(List<Quadro> lote) throws IOException {
+        Segmento atual;
+        synchronized (trava) {
+            atual = segmentos.peekLast();
+        }
+        if (atual.tamanho >= tamanhoSegmento) {
+            canal.force(true);
+            canal.close();
+            synchronized (trava) {
+                atual.fechado = true;
+                canal = null;
+                atual = abrirSegmento(atual.numero + 1);
+            }
+        }
+
+        int total = 0;
+        for (Quadro quadro : lote) {
+            total += quadro.bytes.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(total);
+        for (Quadro quadro : lote) {
+            buffer.put(quadro.bytes);
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        if (sincronizar) {
+            canal.force(false);
+        }
+
+        synchronized (trava) {
+            atual.tamanho += total;
+            atual.registros += lote.size();
+            for (Quadro quadro : lote) {
+                quadro.segmento = atual.numero;
+            }
+        }
+    }
+
+    // Chamado sob a trava
+    private Segmento abrirSegmento(long numero) throws IOException {
+        Path caminho = caminhoDo(numero);
+        canal = FileChannel.open(caminho,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        Segmento segmento = new Segmento(numero, caminho);
+        segmentos.addLast(segmento);
+        return segmento;
+    }
+
+    // Chamado sob a trava
+    private void removerConfirmados(List<Path> removidos) {
+        while (!segmentos.isEmpty()) {
+            Segmento primeiro = segmentos.peekFirst();
+            if (!primeiro.fechado || primeiro.confirmados < primeiro.registros) {
+                return;
+            }
+            segmentos.removeFirst();
+            removidos.add(primeiro.caminho);
+        }
+    }
+
+    private List<Path> arquivosExistentes() throws IOException {
+        List<Path> arquivos = new ArrayList<>();
+        Path diretorio = arquivo.toAbsolutePath().getParent();
+        String prefixo = arquivo.getFileName().toString() + ".";
+        try (Stream<Path> existentes = Files.list(diretorio)) {
+            existentes
+                    .filter(caminho -> {
+                        String nome = caminho.getFileName().toString();
+                        return nome.startsWith(prefixo) && nome.substring(prefixo.length()).matches("\\d+");
+                    })
+                    .sorted((a, b) -> Long.compare(numeroDe(a), numeroDe(b)))
+                    .forEach(arquivos::add);
+        }
+        return arquivos;
+    }
+
+    private Path caminhoDo(long numero) {
+        return arquivo.resolveSibling(arquivo.getFileName().toString() + "." + numero);
+    }
+
+    private long numeroDe(Path caminho) {
+        String prefixo = arquivo.getFileName().toString() + ".";
+        return Long.parseLong(caminho.getFileName().toString().substring(prefixo.length()));
+    }
+
+    private static void lerSegmento(FileChannel leitura, List<Registro> registros) throws IOException {
+        long tamanho = leitura.size();
+        long posicao = 0;
+        ByteBuffer cabecalho = ByteBuffer.allocate(CABECALHO);
+
+        while (posicao + CABECALHO <= tamanho) {
+            cabecalho.clear();
+            lerCompleto(leitura, cabecalho, posicao);
+            cabecalho.flip();
+            int tamanhoCorpo = cabecalho.getInt();
+            long crcEsperado = cabecalho.getLong();
+            if (tamanhoCorpo <= 0 || posicao + CABECALHO + tamanhoCorpo > tamanho) {
+                break;
+            }
+
+            ByteBuffer corpo = ByteBuffer.allocate(tamanhoCorpo);
+            lerCompleto(leitura, corpo, posicao + CABECALHO);
+            CRC32 crc = new CRC32();
+            crc.update(corpo.array());
+            if (crc.getValue() != crcEsperado) {
+                break;
+            }
+
+            registros.add(desserializar(corpo.array()));
+            posicao += CABECALHO + tamanhoCorpo;
+        }
+    }
+
+    private static void lerCompleto(FileChannel leitura, ByteBuffer buffer, long posicao) throws IOException {
+        while (buffer.hasRemaining()) {
+            int lidos = leitura.read(buffer, posicao + buffer.position());
+            if (lidos < 0) {
+                break;
+            }
+        }
+    }
+
+    private static byte[] emoldurar(byte[] corpo) {
+        CRC32 crc = new CRC32();
+        crc.update(corpo);
+        ByteBuffer buffer = ByteBuffer.allocate(CABECALHO + corpo.length);
+        buffer.putInt(corpo.length).putLong(crc.getValue()).put(corpo);
+        return buffer.array();
+    }
+
+    private static byte[] serializar(Registro registro) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(registro.sequencia());
+            out.writeUTF(registro.tipo().name());
+            out.writeUTF(registro.contaOrigem() == null ? "" : registro.contaOrigem());
+            out.writeUTF(registro.contaDestino() == null ? "" : registro.contaDestino());
+            out.writeUTF(registro.valor().toPlainString());
+            out.writeUTF(registro.taxa().toPlainString());
+            out.writeUTF(registro.dataHora().toString());
+            out.writeUTF(registro.descricao());
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Registro desserializar(byte[] corpo) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(corpo))) {
+            long sequencia = in.readLong();
+            TipoTransacao tipo = TipoTransacao.valueOf(in.readUTF());
+            String contaOrigem = in.readUTF();
+            String contaDestino = in.readUTF();
+            BigDecimal valor = new BigDecimal(in.readUTF());
+            BigDecimal taxa = new BigDecimal(in.readUTF());
+            LocalDateTime dataHora = LocalDateTime.parse(in.readUTF());
+            String descricao = in.readUTF();
+            return new Registro(sequencia, tipo,
+                    contaOrigem.isEmpty() ? null : contaOrigem,
+                    contaDestino.isEmpty() ? null : contaDestino,
+                    valor, taxa, dataHora, descricao);
+        }
+    }
+
+    /**
+     * Comando de lançamento já aceito pelo motor. O débito na origem é
+     * {@code valor + taxa} e o crédito no destino é {@code valor}.
+     */
+    record Registro(
+            long sequencia,
+            TipoTransacao tipo,
+            String contaOrigem,
+            String contaDestino,
+            BigDecimal valor,
+            BigDecimal taxa,
+            LocalDateTime dataHora,
+            String descricao) {
+    }
+
+    private static final class Quadro {
+        private final byte[] bytes;
+        private long segmento;
+
+        private Quadro(byte[] bytes) {
+            this.bytes = bytes;
+        }
+    }
+
+    private static final class Segmento {
+        private final long numero;
+        private final Path caminho;
+        private long tamanho;
+        private long registros;
+        private long confirmados;
+        private boolean fechado;
+
+        private Segmento(long numero, Path caminho) {
+            this.numero = numero;
+            this.caminho = caminho;
+        }
+    }
+}
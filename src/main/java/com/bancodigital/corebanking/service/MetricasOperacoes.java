@@ -0,0 +1,131 @@
+package com.bancodigital.corebanking.service;
+
+import com.bancodigital.corebanking.config.ContadorSql;
+import com.bancodigital.corebanking.exception.RecursoNaoEncontradoException;
+import com.bancodigital.corebanking.exception.SaldoInsuficienteException;
+import com.bancodigital.corebanking.model.Conta;
+import com.bancodigital.corebanking.model.ContaCorrente;
+import com.bancodigital.corebanking.model.ContaPoupanca;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Tempo, resultado, quantidade de comandos SQL e tempo de banco de cada operação de conta.
+ *
+ * Métricas publicadas (com as tags operacao, tipoConta e resultado):
+ * <ul>
+ *   <li>{@code banco.operacao}: duração da operação, com histograma de percentis;</li>
+ *   <li>{@code banco.operacao.sql.comandos}: comandos SQL por operação;</li>
+ *   <li>{@code banco.operacao.sql.tempo}: tempo gasto no banco por operação.</li>
+ * </ul>
+ * Os medidores ficam guardados por combinação de tags, então o caminho quente só lê o
+ * relógio e faz uma busca em mapa. O tipo de uma conta nunca muda, por isso fica num cache
+ * próprio, que as movimentações não invalidam: só a primeira operação de cada conta a
+ * busca, antes de começar a medição.
+ */
+@Component
+public class MetricasOperacoes {
+
+    public static final String EXTRATO = "EXTRATO";
+
+    private final MeterRegistry registry;
+    private final ContaCache contaCache;
+    private final Map<String, Medidores> medidores = new ConcurrentHashMap<>();
+    private final Cache<String, String> tiposConta;
+
+    public MetricasOperacoes(
+            MeterRegistry registry,
+            ContaCache contaCache,
+            @Value("${banco.cache-contas.tamanho-maximo:10000}") long tamanhoMaximo) {
+        this.registry = registry;
+        this.contaCache = contaCache;
+        this.tiposConta = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .build();
+    }
+
+    /**
+     * Executa a operação registrando as métricas. Exceções são repassadas sem alteração.
+     *
+     * @param operacao Tipo da transação ou {@link #EXTRATO}
+     * @param numeroConta Conta que define a tag tipoConta (a origem, nas transferências)
+     * @param execucao Operação a medir
+     */
+    public <T> T medir(String operacao, String numeroConta, Supplier<T> execucao) {
+        String tipoConta = tipoConta(numeroConta);
+        long comandosAntes = ContadorSql.comandos();
+        long tempoSqlAntes = ContadorSql.tempoNanos();
+        long inicio = System.nanoTime();
+        String resultado = "ok";
+        try {
+            return execucao.get();
+        } catch (SaldoInsuficienteException e) {
+            resultado = "saldo_insuficiente";
+            throw e;
+        } catch (RecursoNaoEncontradoException e) {
+            resultado = "nao_encontrado";
+            throw e;
+        } catch (RuntimeException e) {
+            resultado = "erro";
+            throw e;
+        } finally {
+            long duracao = System.nanoTime() - inicio;
+            long comandos = ContadorSql.comandos() - comandosAntes;
+            long tempoSql = ContadorSql.tempoNanos() - tempoSqlAntes;
+            Medidores m = medidores.computeIfAbsent(operacao + '|' + tipoConta + '|' + resultado,
+                    chave -> new Medidores(operacao, tipoConta, chave.substring(chave.lastIndexOf('|') + 1)));
+            m.duracao.record(duracao, TimeUnit.NANOSECONDS);
+            m.comandosSql.record(comandos);
+            m.tempoSql.record(tempoSql, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private String tipoConta(String numeroConta) {
+        String tipo = tiposConta.getIfPresent(numeroConta);
+        if (tipo != null) {
+            return tipo;
+        }
+        try {
+            Conta conta = contaCache.buscarPorNumero(numeroConta);
+            tipo = conta instanceof ContaCorrente ? "corrente"
+                    : conta instanceof ContaPoupanca ? "poupanca"
+                    : "desconhecido";
+            tiposConta.put(numeroConta, tipo);
+            return tipo;
+        } catch (RuntimeException e) {
+            // Número inválido ou conta inexistente: não guarda, a conta pode ser criada depois
+            return "desconhecido";
+        }
+    }
+
+    private final class Medidores {
+
+        private final Timer duracao;
+        private final DistributionSummary comandosSql;
+        private final Timer tempoSql;
+
+        private Medidores(String operacao, String tipoConta, String resultado) {
+            duracao = Timer.builder("banco.operacao")
+                    .tags("operacao", operacao, "tipoConta", tipoConta, "resultado", resultado)
+                    .publishPercentileHistogram()
+                    .register(registry);
+            comandosSql = DistributionSummary.builder("banco.operacao.sql.comandos")
+                    .tags("operacao", operacao, "tipoConta", tipoConta, "resultado", resultado)
+                    .register(registry);
+            tempoSql = Timer.builder("banco.operacao.sql.tempo")
+                    .tags("operacao", operacao, "tipoConta", tipoConta, "resultado", resultado)
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,571 @@
+package com.bancodigital.corebanking.service;
+
+import com.bancodigital.corebanking.exception.RecursoNaoEncontradoException;
+import com.bancodigital.corebanking.exception.SaldoInsuficienteException;
+import com.bancodigital.corebanking.exception.TransacaoInvalidaException;
+import com.bancodigital.corebanking.model.Conta;
+import com.bancodigital.corebanking.model.ContaCorrente;
+import com.bancodigital.corebanking.model.Transacao;
+import com.bancodigital.corebanking.model.Transacao.TipoTransacao;
+import com.bancodigital.corebanking.repository.ContaRepository;
+import com.bancodigital.corebanking.repository.TransacaoRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Motor de lançamentos em memória, opcional, para as movimentações do {@link ContaService}.
+ *
+ * Os saldos autoritativos ficam em memória, particionados por número de conta, e cada
+ * partição tem uma única thread escritora com fila limitada. A thread executa os comandos
+ * em lotes e grava os registros do lote inteiro no {@link JournalLancamentos}, com um
+ * único force, antes de responder a qualquer um deles; as linhas de
+ * {@link Conta} e {@link Transacao} são persistidas de forma assíncrona. Um registro só é
+ * confirmado no journal depois do commit do lote que o contém; o journal nunca descarta
+ * registros não confirmados. Na subida, os registros do journal que ainda não chegaram ao
+ * banco são reaplicados.
+ *
+ * Com o motor habilitado ele é o único escritor de saldo: movimentações feitas por
+ * outros caminhos não são vistas pelos saldos em memória. Os métodos bloqueiam até o
+ * comando ser durável e não devem ser chamados dentro de uma transação do banco, que
+ * seguraria uma conexão durante a espera.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "banco.motor-lancamentos.habilitado", havingValue = "true")
+public class MotorLancamentos {
+
+    private final ContaRepository contaRepository;
+    private final TransacaoRepository transacaoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ContaCache contaCache;
+    private final Path arquivoJournal;
+    private final boolean sincronizarJournal;
+    private final long tamanhoSegmentoJournal;
+    private final int tamanhoLote;
+    private final int tamanhoLoteParticao;
+    private final Particao[] particoes;
+    private final BlockingQueue<Pendente> pendentes = new LinkedBlockingQueue<>();
+    private final AtomicLong sequencia = new AtomicLong();
+
+    private JournalLancamentos journal;
+    private Thread persistidor;
+    private volatile boolean ativo;
+
+    public MotorLancamentos(
+            ContaRepository contaRepository,
+            TransacaoRepository transacaoRepository,
+            TransactionTemplate transactionTemplate,
+            ContaCache contaCache,
+            @Value("${banco.motor-lancamentos.journal:data/journal/lancamentos.log}") String arquivoJournal,
+            @Value("${banco.motor-lancamentos.journal-sync:true}") boolean sincronizarJournal,
+            @Value("${banco.motor-lancamentos.journal-segmento:64MB}") DataSize tamanhoSegmentoJournal,
+            @Value("${banco.motor-lancamentos.particoes:8}") int quantidadeParticoes,
+            @Value("${banco.motor-lancamentos.capacidade-fila:65536}") int capacidadeFila,
+            @Value("${banco.motor-lancamentos.lote-particao:256}") int tamanhoLoteParticao,
+            @Value("${banco.motor-lancamentos.lote-persistencia:500}") int tamanhoLote) {
+        this.contaRepository = contaRepository;
+        this.transacaoRepository = transacaoRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.contaCache = contaCache;
+        this.arquivoJournal = Path.of(arquivoJournal);
+        this.sincronizarJournal = sincronizarJournal;
+        this.tamanhoSegmentoJournal = tamanhoSegmentoJournal.toBytes();
+        this.tamanhoLote = tamanhoLote;
+        this.tamanhoLoteParticao = tamanhoLoteParticao;
+        this.particoes = new Particao[quantidadeParticoes];
+        for (int i = 0; i < quantidadeParticoes; i++) {
+            particoes[i] = new Particao(i, capacidadeFila);
+        }
+    }
+
+    @PostConstruct
+    void iniciar() throws IOException {
+        journal = new JournalLancamentos(arquivoJournal, sincronizarJournal, tamanhoSegmentoJournal);
+
+        List<JournalLancamentos.Registro> registros = journal.ler();
+        if (!registros.isEmpty()) {
+            log.info("Reaplicando {} lançamentos do journal {}", registros.size(), arquivoJournal);
+            for (int inicio = 0; inicio < registros.size(); inicio += tamanhoLote) {
+                persistir(registros.subList(inicio, Math.min(inicio + tamanhoLote, registros.size())), true);
+            }
+        }
+        journal.truncar();
+
+        Long ultimaSequencia = transacaoRepository.findMaxSequenciaJournal();
+        sequencia.set(ultimaSequencia == null ? 0 : ultimaSequencia);
+
+        ativo = true;
+        persistidor = new Thread(this::persistirPendentes, "motor-lancamentos-persistencia");
+        persistidor.start();
+        for (Particao particao : particoes) {
+            particao.escritor.start();
+        }
+    }
+
+    @PreDestroy
+    void encerrar() throws IOException, InterruptedException {
+        // Primeiro os comandos dos chamadores; os créditos que eles encaminharam vêm depois
+        for (Particao particao : particoes) {
+            particao.aceitando = false;
+        }
+        for (Particao particao : particoes) {
+            particao.aguardarComandos();
+        }
+        for (Particao particao : particoes) {
+            particao.encerrada = true;
+        }
+        for (Particao particao : particoes) {
+            particao.escritor.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        ativo = false;
+        if (persistidor != null) {
+            persistidor.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        if (persistidor != null && persistidor.isAlive()) {
+            persistidor.interrupt();
+        }
+        if (!pendentes.isEmpty()) {
+            log.warn("{} lançamentos não persistidos ficam no journal para a próxima subida", pendentes.size());
+        }
+        // Só os segmentos com todos os registros confirmados são apagados
+        journal.close();
+    }
+
+    public Transacao depositar(String numeroConta, BigDecimal valor) {
+        Particao particao = particaoDe(numeroConta);
+        return aguardar(particao.executar(() -> {
+            SaldoEmMemoria conta = particao.carregar(numeroConta);
+            JournalLancamentos.Registro registro = particao.registrar(
+                    TipoTransacao.DEPOSITO, null, numeroConta, valor, BigDecimal.ZERO, "Depósito em conta");
+            particao.alterarSaldo(conta, valor);
+            return criarTransacao(registro, null, conta.conta);
+        }));
+    }
+
+    public Transacao sacar(String numeroConta, BigDecimal valor) {
+        Particao particao = particaoDe(numeroConta);
+        return aguardar(particao.executar(() -> {
+            SaldoEmMemoria conta = particao.carregar(numeroConta);
+            if (conta.saldoDisponivel().compareTo(valor) < 0) {
+                throw new SaldoInsuficienteException("Saldo insuficiente para realizar o saque");
+            }
+            JournalLancamentos.Registro registro = particao.registrar(
+                    TipoTransacao.SAQUE, numeroConta, null, valor, BigDecimal.ZERO, "Saque em conta");
+            particao.alterarSaldo(conta, valor.negate());
+            return criarTransacao(registro, conta.conta, null);
+        }));
+    }
+
+    public Transacao transferir(String numeroContaOrigem, String numeroContaDestino, BigDecimal valor) {
+        return movimentar(TipoTransacao.TRANSFERENCIA, numeroContaOrigem, numeroContaDestino, valor,
+                "Transferência entre contas", "Saldo insuficiente para realizar a transferência");
+    }
+
+    public Transacao pix(String numeroContaOrigem, String numeroContaDestino, BigDecimal valor) {
+        return movimentar(TipoTransacao.PIX, numeroContaOrigem, numeroContaDestino, valor,
+                "Transferência via PIX", "Saldo insuficiente para realizar o PIX");
+    }
+
+    /**
+     * Debita a origem na partição dela e, depois de o lote estar no journal, encaminha o
+     * crédito para a partição do destino. O chamador só recebe a transação depois do
+     * crédito aplicado; se ele falhar, o saldo em memória do destino ficou para trás do
+     * journal e a falha é repassada ao chamador, em vez de apenas registrada.
+     */
+    private Transacao movimentar(TipoTransacao tipo, String numeroContaOrigem, String numeroContaDestino,
+                                 BigDecimal valor, String descricao, String mensagemSaldoInsuficiente) {
+        Particao particaoOrigem = particaoDe(numeroContaOrigem);
+        Particao particaoDestino = particaoDe(numeroContaDestino);
+        // Carregada aqui, a conta de destino já está na partição quando o crédito chegar
+        Conta contaDestino = aguardar(particaoDestino.executar(() -> particaoDestino.carregar(numeroContaDestino).conta));
+
+        CompletableFuture<Void> credito = new CompletableFuture<>();
+        Transacao transacao = aguardar(particaoOrigem.executar(() -> {
+            SaldoEmMemoria origem = particaoOrigem.carregar(numeroContaOrigem);
+            // PIX não tem taxa e não usa o cheque especial
+            BigDecimal taxa = tipo == TipoTransacao.PIX ? BigDecimal.ZERO : origem.conta.calcularTaxa(valor);
+            BigDecimal valorTotal = valor.add(taxa);
+            BigDecimal saldoDisponivel = tipo == TipoTransacao.PIX ? origem.saldo : origem.saldoDisponivel();
+            if (saldoDisponivel.compareTo(valorTotal) < 0) {
+                throw new SaldoInsuficienteException(mensagemSaldoInsuficiente);
+            }
+            JournalLancamentos.Registro registro = particaoOrigem.registrar(
+                    tipo, numeroContaOrigem, numeroContaDestino, valor, taxa, descricao);
+            particaoOrigem.alterarSaldo(origem, valorTotal.negate());
+            particaoOrigem.aposGravar(() -> particaoDestino.creditar(numeroContaDestino, valor, credito));
+            return criarTransacao(registro, origem.conta, contaDestino);
+        }));
+
+        try {
+            aguardar(credito);
+        } catch (RuntimeException e) {
+            log.error("Lançamento {} gravado no journal, mas o crédito em memória da conta {} falhou",
+                    transacao.getSequenciaJournal(), numeroContaDestino, e);
+            throw e;
+        }
+        return transacao;
+    }
+
+    /**
+     * Saldo autoritativo da conta, consultado na thread da partição.
+     */
+    public BigDecimal consultarSaldo(String numeroConta) {
+        Particao particao = particaoDe(numeroConta);
+        return aguardar(particao.executar(() -> particao.carregar(numeroConta).saldo));
+    }
+
+    private Particao particaoDe(String numeroConta) {
+        return particoes[Math.floorMod(numeroConta.hashCode(), particoes.length)];
+    }
+
+    private Transacao criarTransacao(JournalLancamentos.Registro registro, Conta contaOrigem, Conta contaDestino) {
+        Transacao transacao = new Transacao();
+        transacao.setTipo(registro.tipo());
+        transacao.setValor(registro.valor());
+        transacao.setTaxa(registro.taxa());
+        transacao.setContaOrigem(contaOrigem);
+        transacao.setContaDestino(contaDestino);
+        transacao.setDataHora(registro.dataHora());
+        transacao.setDescricao(registro.descricao());
+        transacao.setSequenciaJournal(registro.sequencia());
+        return transacao;
+    }
+
+    private void persistirPendentes() {
+        List<Pendente> lote = new ArrayList<>(tamanhoLote);
+        List<JournalLancamentos.Registro> registros = new ArrayList<>(tamanhoLote);
+        while (ativo || !pendentes.isEmpty()) {
+            try {
+                Pendente primeiro = pendentes.poll(100, TimeUnit.MILLISECONDS);
+                if (primeiro == null) {
+                    continue;
+                }
+                lote.add(primeiro);
+                pendentes.drainTo(lote, tamanhoLote - 1);
+                for (Pendente pendente : lote) {
+                    registros.add(pendente.registro());
+                }
+                if (!persistirComRetentativa(registros)) {
+                    // Nada é confirmado: o lote e o que restou na fila são reaplicados do journal
+                    return;
+                }
+                for (Pendente pendente : lote) {
+                    journal.confirmar(pendente.segmento());
+                }
+                lote.clear();
+                registros.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                // O lote já está no banco; sem a confirmação ele é apenas reaplicado (e ignorado) na subida
+                log.warn("Falha ao confirmar lançamentos no journal", e);
+                lote.clear();
+                registros.clear();
+            }
+        }
+    }
+
+    /**
+     * @return Verdadeiro se o lote foi gravado; falso se a persistência foi abandonada no encerramento
+     */
+    private boolean persistirComRetentativa(List<JournalLancamentos.Registro> lote) throws InterruptedException {
+        boolean reaplicacao = false;
+        while (true) {
+            try {
+                persistir(lote, reaplicacao);
+                return true;
+            } catch (RuntimeException e) {
+                if (!ativo) {
+                    // Os registros continuam no journal e serão reaplicados na próxima subida
+                    log.error("Persistência interrompida no encerramento; {} lançamentos ficam no journal", lote.size(), e);
+                    return false;
+                }
+                log.error("Falha ao persistir lote de {} lançamentos, tentando novamente", lote.size(), e);
+                reaplicacao = true;
+                TimeUnit.SECONDS.sleep(1);
+            }
+        }
+    }
+
+    /**
+     * Aplica os registros no banco em uma única transação. Na reaplicação, registros
+     * que já possuem {@link Transacao} gravada são ignorados.
+     */
+    private void persistir(List<JournalLancamentos.Registro> registros, boolean reaplicacao) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (JournalLancamentos.Registro registro : registros) {
+                if (reaplicacao && transacaoRepository.existsBySequenciaJournal(registro.sequencia())) {
+                    continue;
+                }
+
+                Conta contaOrigem = null;
+                Conta contaDestino = null;
+                if (registro.contaOrigem() != null) {
+                    contaOrigem = buscarParaPersistencia(registro.contaOrigem());
+                    contaOrigem.setSaldo(contaOrigem.getSaldo().subtract(registro.valor().add(registro.taxa())));
+                    contaCache.invalidar(registro.contaOrigem());
+                }
+                if (registro.contaDestino() != null) {
+                    contaDestino = buscarParaPersistencia(registro.contaDestino());
+                    contaDestino.setSaldo(contaDestino.getSaldo().add(registro.valor()));
+                    contaCache.invalidar(registro.contaDestino());
+                }
+
+                transacaoRepository.save(criarTransacao(registro, contaOrigem, contaDestino));
+            }
+        });
+    }
+
+    private Conta buscarParaPersistencia(String numeroConta) {
+        return contaRepository.findByNumeroConta(numeroConta)
+                .orElseThrow(() -> new RecursoNaoEncontradoException("Conta não encontrada: " + numeroConta));
+    }
+
+    private static <T> T aguardar(CompletableFuture<T> futuro) {
+        try {
+            return futuro.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    private record Pendente(JournalLancamentos.Registro registro, long segmento) {
+    }
+
+    private static final class SaldoEmMemoria {
+        private final Conta conta;
+        private BigDecimal saldo;
+
+        private SaldoEmMemoria(Conta conta) {
+            this.conta = conta;
+            this.saldo = conta.getSaldo();
+        }
+
+        private BigDecimal saldoDisponivel() {
+            // Verifica se é conta corrente com cheque especial
+            if (conta instanceof ContaCorrente contaCorrente) {
+                return saldo.add(contaCorrente.getLimiteChequeEspecial());
+            }
+            return saldo;
+        }
+    }
+
+    private static final class Comando<T> {
+        private final Supplier<T> tarefa;
+        private final CompletableFuture<T> futuro;
+        // Créditos encaminhados por outra partição não ocupam vaga na fila
+        private final boolean ocupaVaga;
+        private T resultado;
+        private RuntimeException erro;
+
+        private Comando(Supplier<T> tarefa, CompletableFuture<T> futuro, boolean ocupaVaga) {
+            this.tarefa = tarefa;
+            this.futuro = futuro;
+            this.ocupaVaga = ocupaVaga;
+        }
+
+        private void executar() {
+            try {
+                resultado = tarefa.get();
+            } catch (RuntimeException e) {
+                erro = e;
+            }
+        }
+
+        private void concluir() {
+            if (erro == null) {
+                futuro.complete(resultado);
+            } else {
+                futuro.completeExceptionally(erro);
+            }
+        }
+    }
+
+    /**
+     * Partição de contas com uma única thread escritora. A thread tira da fila até
+     * {@code lote-particao} comandos, executa um a um e grava os registros de todos no
+     * journal de uma vez antes de concluí-los. Se a gravação falhar, os saldos alterados
+     * pelo lote voltam ao valor anterior e os comandos falham.
+     *
+     * Quando a fila tem {@code capacidade-fila} comandos, quem submete fica bloqueado até
+     * haver espaço. Os créditos encaminhados por outras partições entram sem vaga, para que
+     * duas partições com a fila cheia nunca esperem uma pela outra.
+     */
+    private final class Particao {
+        private final BlockingQueue<Comando<?>> fila = new LinkedBlockingQueue<>();
+        private final Semaphore vagas;
+        private final int capacidadeFila;
+        private final Map<String, SaldoEmMemoria> contas = new HashMap<>();
+        private final Thread escritor;
+
+        // Estado do lote em execução, usado só pela thread escritora
+        private final List<JournalLancamentos.Registro> registros = new ArrayList<>();
+        private final List<Runnable> desfazer = new ArrayList<>();
+        private final List<Runnable> aposGravar = new ArrayList<>();
+
+        private volatile boolean aceitando = true;
+        private volatile boolean encerrada;
+
+        private Particao(int indice, int capacidadeFila) {
+            this.capacidadeFila = capacidadeFila;
+            this.vagas = new Semaphore(capacidadeFila);
+            this.escritor = new Thread(this::executarLotes, "motor-lancamentos-particao-" + indice);
+        }
+
+        private <T> CompletableFuture<T> executar(Supplier<T> tarefa) {
+            try {
+                while (!vagas.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+                    if (!aceitando) {
+                        throw new RejectedExecutionException("Motor de lançamentos encerrado");
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("Interrompido aguardando a fila da partição", e);
+            }
+            if (!aceitando) {
+                vagas.release();
+                throw new RejectedExecutionException("Motor de lançamentos encerrado");
+            }
+            Comando<T> comando = new Comando<>(tarefa, new CompletableFuture<>(), true);
+            fila.add(comando);
+            return comando.futuro;
+        }
+
+        // Chamado pela thread de outra partição (ou desta), depois que o débito está no journal
+        private void creditar(String numeroConta, BigDecimal valor, CompletableFuture<Void> credito) {
+            fila.add(new Comando<>(() -> {
+                SaldoEmMemoria conta = carregar(numeroConta);
+                conta.saldo = conta.saldo.add(valor);
+                return null;
+            }, credito, false));
+        }
+
+        /**
+         * Deve ser chamado apenas na thread desta partição.
+         */
+        private SaldoEmMemoria carregar(String numeroConta) {
+            SaldoEmMemoria conta = contas.get(numeroConta);
+            if (conta == null) {
+                Conta entidade = contaRepository.findByNumeroConta(numeroConta)
+                        .orElseThrow(() -> new RecursoNaoEncontradoException("Conta não encontrada"));
+                conta = new SaldoEmMemoria(entidade);
+                contas.put(numeroConta, conta);
+            }
+            return conta;
+        }
+
+        // Os três a seguir só valem dentro de um comando, na thread desta partição
+
+        private JournalLancamentos.Registro registrar(TipoTransacao tipo, String contaOrigem, String contaDestino,
+                                                      BigDecimal valor, BigDecimal taxa, String descricao) {
+            JournalLancamentos.Registro registro = new JournalLancamentos.Registro(
+                    sequencia.incrementAndGet(), tipo, contaOrigem, contaDestino,
+                    valor, taxa, LocalDateTime.now(), descricao);
+            registros.add(registro);
+            return registro;
+        }
+
+        private void alterarSaldo(SaldoEmMemoria conta, BigDecimal delta) {
+            BigDecimal anterior = conta.saldo;
+            conta.saldo = anterior.add(delta);
+            desfazer.add(() -> conta.saldo = anterior);
+        }
+
+        private void aposGravar(Runnable acao) {
+            aposGravar.add(acao);
+        }
+
+        private void executarLotes() {
+            List<Comando<?>> lote = new ArrayList<>(tamanhoLoteParticao);
+            while (true) {
+                Comando<?> primeiro;
+                try {
+                    primeiro = fila.poll(100, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (primeiro == null) {
+                    if (encerrada) {
+                        return;
+                    }
+                    continue;
+                }
+                lote.add(primeiro);
+                fila.drainTo(lote, tamanhoLoteParticao - 1);
+                executarLote(lote);
+                lote.clear();
+            }
+        }
+
+        private void executarLote(List<Comando<?>> lote) {
+            for (Comando<?> comando : lote) {
+                comando.executar();
+            }
+            if (!registros.isEmpty()) {
+                try {
+                    long segmento = journal.registrar(registros);
+                    for (JournalLancamentos.Registro registro : registros) {
+                        pendentes.add(new Pendente(registro, segmento));
+                    }
+                    aposGravar.forEach(Runnable::run);
+                } catch (IOException e) {
+                    // Em ordem inversa, cada saldo volta ao valor de antes do lote
+                    for (int i = desfazer.size() - 1; i >= 0; i--) {
+                        desfazer.get(i).run();
+                    }
+                    TransacaoInvalidaException falha =
+                            new TransacaoInvalidaException("Falha ao gravar o journal de lançamentos", e);
+                    for (Comando<?> comando : lote) {
+                        if (comando.erro == null) {
+                            comando.erro = falha;
+                        }
+                    }
+                }
+                registros.clear();
+                desfazer.clear();
+                aposGravar.clear();
+            }
+            for (Comando<?> comando : lote) {
+                comando.concluir();
+                if (comando.ocupaVaga) {
+                    vagas.release();
+                }
+            }
+        }
+
+        // Retorna quando todos os comandos aceitos foram concluídos (ou depois de 30 s)
+        private void aguardarComandos() throws InterruptedException {
+            vagas.tryAcquire(capacidadeFila, 30, TimeUnit.SECONDS);
+        }
+    }
+}
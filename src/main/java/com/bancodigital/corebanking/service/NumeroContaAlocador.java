@@ -0,0 +1,191 @@
+package com.bancodigital.corebanking.service;
+
+import com.bancodigital.corebanking.model.FaixaNumeroConta;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Gera números de conta sem colisão e sem consulta ao banco por conta aberta.
+ *
+ * A base numérica vem de blocos reservados na tabela {@link FaixaNumeroConta} (hi-lo);
+ * cada instância trava a linha só para reservar um bloco e depois entrega os números
+ * em memória. O número final tem 8 dígitos de base mais um dígito verificador módulo 11,
+ * o que o diferencia dos números antigos de 8 dígitos e permite recusar erros de
+ * digitação antes de qualquer consulta.
+ *
+ * A reserva roda numa thread própria, um bloco à frente do que está em uso, com uma
+ * conexão de um pool só dela. Quem abre a conta já segura uma conexão do pool da
+ * aplicação; se a reserva disputasse esse mesmo pool, threads paradas esperando o bloco
+ * poderiam prender todas as conexões e a reserva nunca rodaria.
+ */
+@Component
+public class NumeroContaAlocador {
+
+    private static final String FAIXA = "CONTA";
+    private static final long BASE_MAXIMA = 99_999_999L;
+    private static final int DIGITOS_LEGADO = 8;
+    private static final int DIGITOS_COM_VERIFICADOR = 9;
+    private static final Duration ESPERA_RESERVA = Duration.ofSeconds(10);
+
+    private static final String CRIAR_FAIXA = "INSERT INTO faixa_numero_conta (nome, proximo_bloco) VALUES (?, 0)";
+    private static final String TRAVAR_FAIXA = "SELECT proximo_bloco FROM faixa_numero_conta WHERE nome = ? FOR UPDATE";
+    private static final String AVANCAR_FAIXA = "UPDATE faixa_numero_conta SET proximo_bloco = proximo_bloco + 1 WHERE nome = ?";
+
+    private final HikariDataSource pool;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transacao;
+    private final int tamanhoBloco;
+    private final ExecutorService reserva = Executors.newSingleThreadExecutor(tarefa -> {
+        Thread thread = new Thread(tarefa, "numero-conta-reserva");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private long proximaBase;
+    private long fimBloco;
+    // Reservado em segundo plano enquanto o bloco atual é consumido
+    private CompletableFuture<long[]> blocoSeguinte;
+
+    public NumeroContaAlocador(
+            DataSourceProperties propriedades,
+            @Value("${banco.numero-conta.tamanho-bloco:100}") int tamanhoBloco) {
+        if (tamanhoBloco <= 0) {
+            throw new IllegalArgumentException("Tamanho do bloco de números de conta deve ser maior que zero");
+        }
+        this.tamanhoBloco = tamanhoBloco;
+        // Não é bean, como os pools do RoteamentoDataSourceConfig; sempre aponta para o primário
+        this.pool = propriedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        this.pool.setPoolName("numero-conta");
+        this.pool.setMaximumPoolSize(1);
+        this.pool.setMinimumIdle(0);
+        this.jdbcTemplate = new JdbcTemplate(pool);
+        // A reserva é confirmada mesmo que a abertura da conta seja desfeita depois
+        this.transacao = new TransactionTemplate(new DataSourceTransactionManager(pool));
+    }
+
+    @PostConstruct
+    synchronized void iniciar() {
+        blocoSeguinte = CompletableFuture.supplyAsync(this::reservarBloco, reserva);
+    }
+
+    @PreDestroy
+    void encerrar() {
+        reserva.shutdownNow();
+        pool.close();
+    }
+
+    /**
+     * Próximo número de conta livre, já com o dígito verificador. Não usa conexão: só
+     * espera a reserva em segundo plano se um bloco inteiro foi consumido antes de ela terminar.
+     */
+    public synchronized String proximoNumero() {
+        if (proximaBase >= fimBloco) {
+            usarBlocoSeguinte();
+        }
+        long base = proximaBase++;
+        String digitos = String.format("%08d", base);
+        return digitos + digitoVerificador(digitos);
+    }
+
+    private void usarBlocoSeguinte() {
+        long[] bloco;
+        try {
+            bloco = blocoSeguinte.get(ESPERA_RESERVA.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // A próxima abertura tenta reservar de novo
+            blocoSeguinte = CompletableFuture.supplyAsync(this::reservarBloco, reserva);
+            throw new IllegalStateException("Falha ao reservar números de conta", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Reserva de números de conta ainda em andamento");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Espera interrompida", e);
+        }
+        proximaBase = bloco[0];
+        fimBloco = bloco[1];
+        blocoSeguinte = CompletableFuture.supplyAsync(this::reservarBloco, reserva);
+    }
+
+    // Roda na thread de reserva; devolve a primeira base do bloco e o fim, exclusivo
+    private long[] reservarBloco() {
+        Long bloco = transacao.execute(status -> {
+            Long reservado = jdbcTemplate.query(TRAVAR_FAIXA,
+                    resultado -> resultado.next() ? resultado.getLong(1) : null, FAIXA);
+            if (reservado != null) {
+                jdbcTemplate.update(AVANCAR_FAIXA, FAIXA);
+            }
+            return reservado;
+        });
+        if (bloco == null) {
+            criarFaixa();
+            return reservarBloco();
+        }
+
+        long inicio = bloco * tamanhoBloco;
+        if (inicio > BASE_MAXIMA) {
+            throw new IllegalStateException("Números de conta esgotados");
+        }
+        // A base zero não é usada
+        return new long[] {Math.max(inicio, 1), Math.min(inicio + tamanhoBloco, BASE_MAXIMA + 1)};
+    }
+
+    // Fora da transação que trava a linha, para não esperar pelo próprio bloqueio de intervalo
+    private void criarFaixa() {
+        try {
+            jdbcTemplate.update(CRIAR_FAIXA, FAIXA);
+        } catch (DataIntegrityViolationException e) {
+            // Outra instância criou a linha ao mesmo tempo
+        }
+    }
+
+    /**
+     * Indica se o número tem formato aceitável: 9 dígitos com verificador correto, ou
+     * 8 dígitos dos números gerados antes do verificador existir.
+     */
+    public static boolean formatoValido(String numeroConta) {
+        if (numeroConta == null) {
+            return false;
+        }
+        int tamanho = numeroConta.length();
+        if (tamanho != DIGITOS_LEGADO && tamanho != DIGITOS_COM_VERIFICADOR) {
+            return false;
+        }
+        for (int i = 0; i < tamanho; i++) {
+            if (numeroConta.charAt(i) < '0' || numeroConta.charAt(i) > '9') {
+                return false;
+            }
+        }
+        if (tamanho == DIGITOS_LEGADO) {
+            return true;
+        }
+        return numeroConta.charAt(DIGITOS_LEGADO) - '0' == digitoVerificador(numeroConta.substring(0, DIGITOS_LEGADO));
+    }
+
+    // Módulo 11 com pesos 2 a 9 da direita para a esquerda; restos 0 e 1 viram 0
+    static int digitoVerificador(String digitos) {
+        int soma = 0;
+        int peso = 2;
+        for (int i = digitos.length() - 1; i >= 0; i--) {
+            soma += (digitos.charAt(i) - '0') * peso;
+            peso = peso == 9 ? 2 : peso + 1;
+        }
+        int resto = soma % 11;
+        return resto < 2 ? 0 : 11 - resto;
+    }
+}
@@ -0,0 +1,369 @@
+package com.bancodigital.corebanking.service;
+
+import com.bancodigital.corebanking.exception.FilaCheiaException;
+import com.bancodigital.corebanking.exception.RecursoNaoEncontradoException;
+import com.bancodigital.corebanking.exception.TransacaoInvalidaException;
+import com.bancodigital.corebanking.model.Conta;
+import com.bancodigital.corebanking.model.PixPendente;
+import com.bancodigital.corebanking.model.Transacao;
+import com.bancodigital.corebanking.repository.ContaRepository;
+import com.bancodigital.corebanking.repository.PixPendenteRepository;
+import com.bancodigital.corebanking.repository.TransacaoRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PIX assíncrono, opcional. O pedido é validado, gravado em {@link PixPendente} (a fila
+ * durável) e respondido com o id; workers liquidam as pendentes em micro-lotes, vários
+ * PIX por transação, e o cliente consulta o resultado pelo id.
+ *
+ * Quando a fila passa de {@code profundidade-maxima} os novos pedidos são recusados com
+ * {@link FilaCheiaException}. Os workers pegam lotes com SKIP LOCKED, então podem rodar
+ * em várias instâncias ao mesmo tempo. Se um lote falhar, os PIX dele são liquidados um
+ * a um; o que continuar falhando é recusado após {@code tentativas-maximas} tentativas.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "banco.pix-assincrono.habilitado", havingValue = "true")
+public class PixAssincronoService {
+
+    private final PixPendenteRepository pixPendenteRepository;
+    private final ContaRepository contaRepository;
+    private final TransacaoRepository transacaoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ContaCache contaCache;
+    private final ContaQuenteService contaQuenteService;
+    private final Optional<MotorLancamentos> motorLancamentos;
+    private final int tamanhoLote;
+    private final long profundidadeMaxima;
+    private final int quantidadeWorkers;
+    private final int tentativasMaximas;
+    private final Duration intervalo;
+
+    // Aproximada entre instâncias; é recalculada pelo banco sempre que um worker fica ocioso
+    private final AtomicLong profundidade = new AtomicLong();
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean ativo;
+
+    public PixAssincronoService(
+            PixPendenteRepository pixPendenteRepository,
+            ContaRepository contaRepository,
+            TransacaoRepository transacaoRepository,
+            TransactionTemplate transactionTemplate,
+            ContaCache contaCache,
+            ContaQuenteService contaQuenteService,
+            Optional<MotorLancamentos> motorLancamentos,
+            @Value("${banco.pix-assincrono.tamanho-lote:200}") int tamanhoLote,
+            @Value("${banco.pix-assincrono.profundidade-maxima:100000}") long profundidadeMaxima,
+            @Value("${banco.pix-assincrono.workers:2}") int quantidadeWorkers,
+            @Value("${banco.pix-assincrono.tentativas-maximas:3}") int tentativasMaximas,
+            @Value("${banco.pix-assincrono.intervalo:PT0.05S}") Duration intervalo) {
+        this.pixPendenteRepository = pixPendenteRepository;
+        this.contaRepository = contaRepository;
+        this.transacaoRepository = transacaoRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.contaCache = contaCache;
+        this.contaQuenteService = contaQuenteService;
+        this.motorLancamentos = motorLancamentos;
+        this.tamanhoLote = tamanhoLote;
+        this.profundidadeMaxima = profundidadeMaxima;
+        this.quantidadeWorkers = quantidadeWorkers;
+        this.tentativasMaximas = tentativasMaximas;
+        this.intervalo = intervalo;
+    }
+
+    @PostConstruct
+    void iniciar() {
+        long liquidando = pixPendenteRepository.countBySituacao(PixPendente.Situacao.LIQUIDANDO);
+        if (liquidando > 0) {
+            log.warn("{} PIX ficaram em LIQUIDANDO: entregues ao motor sem o resultado registrado;"
+                    + " confira-os contra as transações antes de concluí-los", liquidando);
+        }
+        profundidade.set(pixPendenteRepository.countBySituacao(PixPendente.Situacao.PENDENTE));
+        ativo = true;
+        for (int i = 0; i < quantidadeWorkers; i++) {
+            Thread worker = new Thread(this::executarWorker, "pix-assincrono-" + i);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    @PreDestroy
+    void encerrar() throws InterruptedException {
+        ativo = false;
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    /**
+     * Valida e grava o PIX na fila. Saldo não é verificado aqui, só na liquidação.
+     *
+     * @return PIX pendente, com o id para consulta
+     */
+    public PixPendente enfileirar(String numeroContaOrigem, String numeroContaDestino, BigDecimal valor) {
+        if (valor.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Valor de PIX deve ser maior que zero");
+        }
+        if (numeroContaOrigem.equals(numeroContaDestino)) {
+            throw new IllegalArgumentException("As contas de origem e destino não podem ser iguais");
+        }
+        Conta contaOrigem = contaCache.buscarPorNumero(numeroContaOrigem);
+        Conta contaDestino = contaCache.buscarPorNumero(numeroContaDestino);
+        if (!contaOrigem.isAtiva() || !contaDestino.isAtiva()) {
+            throw new TransacaoInvalidaException("Uma das contas está inativa");
+        }
+        if (profundidade.get() >= profundidadeMaxima) {
+            throw new FilaCheiaException("Fila de PIX cheia, tente novamente em instantes");
+        }
+
+        PixPendente pix = new PixPendente();
+        pix.setId(UUID.randomUUID().toString());
+        pix.setNumeroContaOrigem(numeroContaOrigem);
+        pix.setNumeroContaDestino(numeroContaDestino);
+        pix.setValor(valor);
+        pix = pixPendenteRepository.save(pix);
+        profundidade.incrementAndGet();
+        return pix;
+    }
+
+    public PixPendente consultar(String id) {
+        return pixPendenteRepository.findById(id)
+                .orElseThrow(() -> new RecursoNaoEncontradoException("PIX não encontrado"));
+    }
+
+    public long profundidade() {
+        return profundidade.get();
+    }
+
+    private void executarWorker() {
+        while (ativo) {
+            try {
+                int processados = processarLote();
+                if (processados == 0) {
+                    profundidade.set(pixPendenteRepository.countBySituacao(PixPendente.Situacao.PENDENTE));
+                    Thread.sleep(intervalo.toMillis());
+                } else {
+                    profundidade.updateAndGet(atual -> Math.max(0, atual - processados));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Falha ao liquidar lote de PIX", e);
+                try {
+                    Thread.sleep(intervalo.toMillis());
+                } catch (InterruptedException interrompido) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private int processarLote() {
+        if (motorLancamentos.isPresent()) {
+            return processarLoteNoMotor(motorLancamentos.get());
+        }
+
+        List<String> ids = new ArrayList<>();
+        try {
+            return transactionTemplate.execute(status -> {
+                List<PixPendente> lote = pixPendenteRepository.findParaProcessar(
+                        PixPendente.Situacao.PENDENTE, PageRequest.of(0, tamanhoLote));
+                lote.forEach(pix -> ids.add(pix.getId()));
+                liquidar(lote);
+                return lote.size();
+            });
+        } catch (RuntimeException e) {
+            if (ids.isEmpty()) {
+                throw e;
+            }
+            // O lote inteiro foi desfeito; cada PIX é liquidado na sua própria transação,
+            // para que só o que falhou fique para trás
+            log.warn("Falha ao liquidar lote de {} PIX, liquidando um a um", ids.size(), e);
+            ids.forEach(this::liquidarIsolado);
+            return ids.size();
+        }
+    }
+
+    private void liquidarIsolado(String id) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> pixPendenteRepository
+                    .findParaProcessarPorId(id, PixPendente.Situacao.PENDENTE)
+                    .ifPresent(pix -> liquidar(List.of(pix))));
+        } catch (RuntimeException e) {
+            registrarFalha(id, e);
+        }
+    }
+
+    /**
+     * Conta a falha do PIX; ele continua PENDENTE e volta num próximo lote, até chegar a
+     * {@code tentativas-maximas} e ser recusado.
+     */
+    private void registrarFalha(String id, RuntimeException falha) {
+        transactionTemplate.executeWithoutResult(status -> pixPendenteRepository
+                .findParaProcessarPorId(id, PixPendente.Situacao.PENDENTE)
+                .ifPresent(pix -> {
+                    pix.setTentativas(pix.getTentativas() + 1);
+                    if (pix.getTentativas() >= tentativasMaximas) {
+                        log.error("PIX {} recusado após {} falhas na liquidação", id, pix.getTentativas(), falha);
+                        pix.setProcessadoEm(LocalDateTime.now());
+                        recusar(pix, "Falha ao liquidar o PIX");
+                    } else {
+                        log.warn("Falha {} ao liquidar o PIX {}", pix.getTentativas(), id, falha);
+                    }
+                }));
+    }
+
+    // Deve ser chamado dentro da transação que travou as linhas do lote
+    private void liquidar(List<PixPendente> lote) {
+        if (lote.isEmpty()) {
+            return;
+        }
+
+        SortedSet<String> numerosConta = new TreeSet<>();
+        Set<String> origens = new HashSet<>();
+        for (PixPendente pix : lote) {
+            numerosConta.add(pix.getNumeroContaOrigem());
+            numerosConta.add(pix.getNumeroContaDestino());
+            origens.add(pix.getNumeroContaOrigem());
+        }
+        Map<String, Conta> contas = travarContas(numerosConta, origens);
+
+        LocalDateTime agora = LocalDateTime.now();
+        Map<PixPendente, Transacao> transacoes = new IdentityHashMap<>();
+        for (PixPendente pix : lote) {
+            Conta contaOrigem = contas.get(pix.getNumeroContaOrigem());
+            Conta contaDestino = contas.get(pix.getNumeroContaDestino());
+            pix.setProcessadoEm(agora);
+            if (contaOrigem == null || contaDestino == null) {
+                recusar(pix, "Conta não encontrada");
+            } else if (!contaOrigem.isAtiva() || !contaDestino.isAtiva()) {
+                recusar(pix, "Uma das contas está inativa");
+            } else if (contaOrigem.getSaldo().compareTo(pix.getValor()) < 0) {
+                // PIX não usa o cheque especial
+                recusar(pix, "Saldo insuficiente para realizar o PIX");
+            } else {
+                contaOrigem.setSaldo(contaOrigem.getSaldo().subtract(pix.getValor()));
+                contaDestino.setSaldo(contaDestino.getSaldo().add(pix.getValor()));
+
+                Transacao transacao = new Transacao();
+                transacao.setTipo(Transacao.TipoTransacao.PIX);
+                transacao.setValor(pix.getValor());
+                transacao.setTaxa(BigDecimal.ZERO);
+                transacao.setContaOrigem(contaOrigem);
+                transacao.setContaDestino(contaDestino);
+                transacao.setDataHora(agora);
+                transacao.setDescricao("Transferência via PIX");
+                transacoes.put(pix, transacao);
+                pix.setSituacao(PixPendente.Situacao.CONCLUIDO);
+            }
+        }
+
+        transacaoRepository.saveAll(transacoes.values());
+        // Os ids já foram atribuídos pela sequência no persist
+        transacoes.forEach((pix, transacao) -> pix.setTransacaoId(transacao.getId()));
+        contaCache.invalidar(contas.keySet());
+    }
+
+    /**
+     * Trava as contas em ordem de número, como nas transferências em lote. As fatias de uma
+     * origem quente são incorporadas à conta na posição dela nessa ordem (conta e depois
+     * fatias, como em {@link ContaQuenteService}) e antes de a entidade ser carregada, para
+     * que o saldo lido já inclua os créditos que estavam nas fatias.
+     */
+    private Map<String, Conta> travarContas(SortedSet<String> numerosConta, Set<String> origens) {
+        Map<String, Conta> contas = new HashMap<>();
+        List<String> trecho = new ArrayList<>();
+        for (String numeroConta : numerosConta) {
+            Conta origemQuente = origens.contains(numeroConta) ? buscarQuente(numeroConta) : null;
+            if (origemQuente != null) {
+                travar(trecho, contas);
+                contaQuenteService.consolidar(origemQuente.getId());
+            }
+            trecho.add(numeroConta);
+        }
+        travar(trecho, contas);
+        return contas;
+    }
+
+    private void travar(List<String> numerosConta, Map<String, Conta> contas) {
+        if (numerosConta.isEmpty()) {
+            return;
+        }
+        for (Conta conta : contaRepository.findAllByNumeroContaInParaAtualizacao(numerosConta)) {
+            contas.put(conta.getNumeroConta(), conta);
+        }
+        numerosConta.clear();
+    }
+
+    private Conta buscarQuente(String numeroConta) {
+        try {
+            Conta conta = contaCache.buscarPorNumero(numeroConta);
+            return ContaQuenteService.quente(conta) ? conta : null;
+        } catch (RecursoNaoEncontradoException e) {
+            // Recusado adiante, com as demais contas já travadas
+            return null;
+        }
+    }
+
+    /**
+     * Com o motor habilitado ele é o único escritor de saldo e cada PIX passa por ele. O motor
+     * aplica o lançamento fora da transação do banco, então o lote é retirado da fila
+     * (LIQUIDANDO) e confirmado antes de chegar ao motor: se o registro do resultado falhar,
+     * as linhas não voltam a PENDENTE e o lote não é aplicado de novo. Linhas que ficarem em
+     * LIQUIDANDO (queda entre o motor e o registro) são avisadas na subida para conciliação.
+     */
+    private int processarLoteNoMotor(MotorLancamentos motor) {
+        List<PixPendente> lote = transactionTemplate.execute(status -> {
+            List<PixPendente> pendentes = pixPendenteRepository.findParaProcessar(
+                    PixPendente.Situacao.PENDENTE, PageRequest.of(0, tamanhoLote));
+            pendentes.forEach(pix -> pix.setSituacao(PixPendente.Situacao.LIQUIDANDO));
+            return pixPendenteRepository.saveAll(pendentes);
+        });
+        if (lote.isEmpty()) {
+            return 0;
+        }
+
+        for (PixPendente pix : lote) {
+            pix.setProcessadoEm(LocalDateTime.now());
+            try {
+                motor.pix(pix.getNumeroContaOrigem(), pix.getNumeroContaDestino(), pix.getValor());
+                pix.setSituacao(PixPendente.Situacao.CONCLUIDO);
+            } catch (RuntimeException e) {
+                recusar(pix, e.getMessage());
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> pixPendenteRepository.saveAll(lote));
+        return lote.size();
+    }
+
+    private static void recusar(PixPendente pix, String erro) {
+        pix.setSituacao(PixPendente.Situacao.RECUSADO);
+        pix.setErro(erro);
+    }
+}
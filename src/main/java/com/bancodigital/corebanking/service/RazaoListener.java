@@ -0,0 +1,28 @@
+package com.bancodigital.corebanking.service;
+
+import com.bancodigital.corebanking.model.Transacao;
+import jakarta.persistence.PostPersist;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener de entidade da {@link Transacao} que leva cada lançamento ao razão em partidas
+ * dobradas. Só usa os ids das contas, então funciona com referências não carregadas.
+ *
+ * O {@link RazaoService} é obtido só no primeiro lançamento: ele depende de repositórios,
+ * que dependem do EntityManagerFactory que cria este listener.
+ */
+@Component
+public class RazaoListener {
+
+    private final ObjectProvider<RazaoService> razaoService;
+
+    public RazaoListener(ObjectProvider<RazaoService> razaoService) {
+        this.razaoService = razaoService;
+    }
+
+    @PostPersist
+    public void aoGravar(Transacao transacao) {
+        razaoService.getObject().registrar(RazaoService.Movimento.de(transacao));
+    }
+}
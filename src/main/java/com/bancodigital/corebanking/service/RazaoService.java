@@ -0,0 +1,291 @@
+package com.bancodigital.corebanking.service;
+
+import com.bancodigital.corebanking.dto.SaldoRazao;
+import com.bancodigital.corebanking.exception.RecursoNaoEncontradoException;
+import com.bancodigital.corebanking.model.Conta;
+import com.bancodigital.corebanking.model.Lancamento.ContaContabil;
+import com.bancodigital.corebanking.model.Lancamento.Natureza;
+import com.bancodigital.corebanking.model.SaldoCheckpoint;
+import com.bancodigital.corebanking.model.Transacao;
+import com.bancodigital.corebanking.model.Transacao.TipoTransacao;
+import com.bancodigital.corebanking.repository.ContaRepository;
+import com.bancodigital.corebanking.repository.LancamentoRepository;
+import com.bancodigital.corebanking.repository.SaldoCheckpointRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Razão em partidas dobradas: grava as pernas de cada {@link Transacao}, mantém checkpoints
+ * de saldo por conta e reconstrói o saldo de uma conta a partir das pernas.
+ *
+ * As pernas de uma transação de banco são acumuladas enquanto ela roda e inseridas com
+ * batch de JDBC imediatamente antes do commit, na mesma transação que a {@link Transacao}.
+ * O saldo da conta continua sendo a coluna {@code saldo}, usada pelas verificações de saldo
+ * suficiente; o razão é o registro auditável contra o qual ela é conferida.
+ */
+@Slf4j
+@Service
+public class RazaoService {
+
+    // gravado_em vem do relógio do banco, a referência da margem dos checkpoints
+    private static final String INSERIR_PERNA = "INSERT INTO lancamento"
+            + " (transacao_id, conta_contabil, conta_id, natureza, valor, data_hora, gravado_em)"
+            + " VALUES (?, ?, ?, ?, ?, ?, LOCALTIMESTAMP)";
+
+    // Novo checkpoint de cada conta com pernas em (desde, ate]: o checkpoint anterior mais o efeito delas
+    private static final String GERAR_CHECKPOINTS = "INSERT INTO saldo_checkpoint"
+            + " (conta_id, ultimo_lancamento_id, saldo, criado_em)"
+            + " SELECT m.conta_id, ?, COALESCE((SELECT c.saldo FROM saldo_checkpoint c WHERE c.conta_id = m.conta_id"
+            + " ORDER BY c.ultimo_lancamento_id DESC LIMIT 1), 0) + m.delta, ?"
+            + " FROM (SELECT l.conta_id, SUM(CASE WHEN l.natureza = 'CREDITO' THEN l.valor ELSE -l.valor END) AS delta"
+            + " FROM lancamento l WHERE l.conta_id IS NOT NULL AND l.id > ? AND l.id <= ?"
+            + " GROUP BY l.conta_id) m";
+
+    private static final String SELECT_SEM_PERNAS = "SELECT t.id, t.tipo, t.valor, t.taxa, t.data_hora,"
+            + " t.conta_origem_id, t.conta_destino_id FROM transacao t"
+            + " WHERE t.id > ? AND NOT EXISTS (SELECT 1 FROM lancamento l WHERE l.transacao_id = t.id)"
+            + " ORDER BY t.id LIMIT ?";
+
+    private final ContaRepository contaRepository;
+    private final LancamentoRepository lancamentoRepository;
+    private final SaldoCheckpointRepository checkpointRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration margemCheckpoint;
+    private final int tamanhoLoteImportacao;
+
+    public RazaoService(
+            ContaRepository contaRepository,
+            LancamentoRepository lancamentoRepository,
+            SaldoCheckpointRepository checkpointRepository,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            @Value("${banco.razao.margem-checkpoint:PT1M}") Duration margemCheckpoint,
+            @Value("${banco.razao.tamanho-lote-importacao:1000}") int tamanhoLoteImportacao) {
+        this.contaRepository = contaRepository;
+        this.lancamentoRepository = lancamentoRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.margemCheckpoint = margemCheckpoint;
+        this.tamanhoLoteImportacao = tamanhoLoteImportacao;
+    }
+
+    /**
+     * Dados de uma transação necessários para gerar as suas pernas, sem o grafo das contas.
+     */
+    record Movimento(Long transacaoId, TipoTransacao tipo, BigDecimal valor, BigDecimal taxa,
+                     LocalDateTime dataHora, Long contaOrigemId, Long contaDestinoId) {
+
+        static Movimento de(Transacao transacao) {
+            return new Movimento(
+                    transacao.getId(),
+                    transacao.getTipo(),
+                    transacao.getValor(),
+                    transacao.getTaxa(),
+                    transacao.getDataHora(),
+                    transacao.getContaOrigem() == null ? null : transacao.getContaOrigem().getId(),
+                    transacao.getContaDestino() == null ? null : transacao.getContaDestino().getId());
+        }
+    }
+
+    /**
+     * Agenda a gravação das pernas da transação para antes do commit da transação de banco
+     * atual. Sem transação ativa, grava na hora.
+     */
+    void registrar(Movimento movimento) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            gravar(List.of(movimento));
+            return;
+        }
+        PernasPendentes pendentes = (PernasPendentes) TransactionSynchronizationManager.getResource(this);
+        if (pendentes == null) {
+            pendentes = new PernasPendentes();
+            TransactionSynchronizationManager.bindResource(this, pendentes);
+            TransactionSynchronizationManager.registerSynchronization(pendentes);
+        } else if (!TransactionSynchronizationManager.getSynchronizations().contains(pendentes)) {
+            // A lista é de uma transação externa suspensa (REQUIRES_NEW): grava já, na transação atual
+            gravar(List.of(movimento));
+            return;
+        }
+        pendentes.movimentos.add(movimento);
+    }
+
+    private final class PernasPendentes implements TransactionSynchronization {
+        private final List<Movimento> movimentos = new ArrayList<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            gravar(movimentos);
+            movimentos.clear();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(RazaoService.this);
+        }
+    }
+
+    private void gravar(List<Movimento> movimentos) {
+        List<Object[]> pernas = new ArrayList<>(movimentos.size() * 3);
+        for (Movimento movimento : movimentos) {
+            adicionarPernas(movimento, pernas);
+        }
+        if (!pernas.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERIR_PERNA, pernas);
+        }
+    }
+
+    /**
+     * Gera as pernas seguindo o mesmo efeito no saldo usado no extrato: um depósito lançado
+     * na origem credita a origem; qualquer outra transação debita da origem valor + taxa;
+     * o destino é creditado do valor.
+     */
+    static void adicionarPernas(Movimento movimento, List<Object[]> pernas) {
+        BigDecimal valor = movimento.valor() == null ? BigDecimal.ZERO : movimento.valor();
+        BigDecimal taxa = movimento.taxa() == null ? BigDecimal.ZERO : movimento.taxa();
+        if (valor.signum() == 0 && taxa.signum() == 0) {
+            return;
+        }
+        Long origem = movimento.contaOrigemId();
+        Long destino = movimento.contaDestinoId();
+        if (origem == null && destino == null) {
+            return;
+        }
+
+        if (origem != null && movimento.tipo() == TipoTransacao.DEPOSITO) {
+            pernas.add(perna(movimento, ContaContabil.LIQUIDACAO, null, Natureza.DEBITO, valor));
+            pernas.add(perna(movimento, ContaContabil.CLIENTE, origem, Natureza.CREDITO, valor));
+            return;
+        }
+        if (origem != null) {
+            pernas.add(perna(movimento, ContaContabil.CLIENTE, origem, Natureza.DEBITO, valor.add(taxa)));
+        } else {
+            pernas.add(perna(movimento, ContaContabil.LIQUIDACAO, null, Natureza.DEBITO, valor));
+        }
+        if (destino != null) {
+            pernas.add(perna(movimento, ContaContabil.CLIENTE, destino, Natureza.CREDITO, valor));
+        } else if (origem != null) {
+            pernas.add(perna(movimento, ContaContabil.LIQUIDACAO, null, Natureza.CREDITO, valor));
+        }
+        if (origem != null && taxa.signum() != 0) {
+            pernas.add(perna(movimento, ContaContabil.TARIFAS, null, Natureza.CREDITO, taxa));
+        }
+    }
+
+    private static Object[] perna(Movimento movimento, ContaContabil contaContabil, Long contaId,
+                                  Natureza natureza, BigDecimal valor) {
+        LocalDateTime dataHora = movimento.dataHora() == null ? LocalDateTime.now() : movimento.dataHora();
+        return new Object[] {movimento.transacaoId(), contaContabil.name(), contaId, natureza.name(), valor,
+                Timestamp.valueOf(dataHora)};
+    }
+
+    /**
+     * Saldo da conta pelo razão.
+     *
+     * @param numeroConta Número da conta
+     * @param reconstruir {@code true} soma todas as pernas da conta, ignorando os checkpoints
+     * @return Saldo do razão e o saldo gravado na conta
+     */
+    public SaldoRazao saldo(String numeroConta, boolean reconstruir) {
+        Conta conta = contaRepository.findByNumeroConta(numeroConta)
+                .orElseThrow(() -> new RecursoNaoEncontradoException("Conta não encontrada"));
+
+        Optional<SaldoCheckpoint> checkpoint = reconstruir
+                ? Optional.empty()
+                : checkpointRepository.findFirstByContaIdOrderByUltimoLancamentoIdDesc(conta.getId());
+        long desde = checkpoint.map(SaldoCheckpoint::getUltimoLancamentoId).orElse(0L);
+        BigDecimal base = checkpoint.map(SaldoCheckpoint::getSaldo).orElse(BigDecimal.ZERO);
+
+        BigDecimal saldoRazao = base.add(lancamentoRepository.somarDesde(conta.getId(), desde));
+        // Inclui as fatias de crédito de uma conta quente
+        BigDecimal saldoConta = contaRepository.findSaldoTotal(conta.getId());
+        return new SaldoRazao(
+                conta.getNumeroConta(),
+                saldoConta,
+                saldoRazao,
+                saldoConta.subtract(saldoRazao),
+                checkpoint.map(SaldoCheckpoint::getUltimoLancamentoId).orElse(null),
+                lancamentoRepository.findUltimoIdDaConta(conta.getId()),
+                reconstruir);
+    }
+
+    /**
+     * Gera checkpoints para as contas com pernas novas. Só considera pernas gravadas há mais
+     * que a margem configurada, para não passar à frente de uma transação que reservou um id
+     * menor e ainda não fez commit. A margem é medida pelo {@code gravado_em}, que o banco
+     * atribui no INSERT, e não pelo {@code data_hora} da transação, que o motor de lançamentos
+     * regrava com o instante original ao reaplicar o journal.
+     */
+    @Scheduled(fixedDelayString = "${banco.razao.intervalo-checkpoint:PT5M}")
+    public void gerarCheckpoints() {
+        long desde = checkpointRepository.findUltimoLancamentoCoberto();
+        // Relógio do banco, o mesmo do gravado_em
+        LocalDateTime agora = jdbcTemplate.queryForObject("SELECT LOCALTIMESTAMP", Timestamp.class).toLocalDateTime();
+        Long ultimo = lancamentoRepository.findUltimoIdGravadoAntesDe(agora.minus(margemCheckpoint));
+        long ate = ultimo == null ? 0 : ultimo;
+        if (ate <= desde) {
+            return;
+        }
+        try {
+            Integer contas = transactionTemplate.execute(status -> jdbcTemplate.update(GERAR_CHECKPOINTS,
+                    ate, Timestamp.valueOf(agora), desde, ate));
+            log.info("Checkpoints do razão até o lançamento {}: {} contas", ate, contas);
+        } catch (DataIntegrityViolationException e) {
+            // Outra instância gerou a mesma rodada
+            log.info("Checkpoints do razão até o lançamento {} já gerados", ate);
+        }
+    }
+
+    /**
+     * Gera as pernas das transações gravadas antes do razão existir, em lotes por ordem de id.
+     * Deve rodar uma vez, com uma única instância executando.
+     *
+     * @return Quantidade de transações importadas
+     */
+    public synchronized long importarHistorico() {
+        long importadas = 0;
+        long ultimoId = 0;
+        while (true) {
+            long desde = ultimoId;
+            List<Movimento> movimentos = transactionTemplate.execute(status -> {
+                List<Movimento> lote = jdbcTemplate.query(SELECT_SEM_PERNAS, (rs, linha) -> {
+                    Timestamp dataHora = rs.getTimestamp("data_hora");
+                    String tipo = rs.getString("tipo");
+                    return new Movimento(
+                            rs.getLong("id"),
+                            tipo == null ? null : TipoTransacao.valueOf(tipo),
+                            rs.getBigDecimal("valor"),
+                            rs.getBigDecimal("taxa"),
+                            dataHora == null ? null : dataHora.toLocalDateTime(),
+                            rs.getObject("conta_origem_id", Long.class),
+                            rs.getObject("conta_destino_id", Long.class));
+                }, desde, tamanhoLoteImportacao);
+                gravar(lote);
+                return lote;
+            });
+            if (movimentos == null || movimentos.isEmpty()) {
+                break;
+            }
+            importadas += movimentos.size();
+            ultimoId = movimentos.get(movimentos.size() - 1).transacaoId();
+        }
+        log.info("Importação do histórico para o razão: {} transações", importadas);
+        return importadas;
+    }
+}
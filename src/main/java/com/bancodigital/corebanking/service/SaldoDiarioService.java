@@ -0,0 +1,119 @@
+package com.bancodigital.corebanking.service;
+
+import com.bancodigital.corebanking.model.SaldoDiario;
+import com.bancodigital.corebanking.repository.SaldoDiarioRepository;
+import com.bancodigital.corebanking.repository.TransacaoRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Mantém os snapshots de saldo de fechamento diário e responde "qual era o saldo da
+ * conta em uma data" a partir do snapshot mais próximo mais os movimentos posteriores,
+ * sem somar todo o histórico.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SaldoDiarioService {
+
+    private final SaldoDiarioRepository saldoDiarioRepository;
+    private final TransacaoRepository transacaoRepository;
+    private final HistoricoTransacoes historicoTransacoes;
+
+    /**
+     * Saldo da conta ao final do dia informado.
+     *
+     * @param contaId ID da conta
+     * @param dia Dia de referência
+     * @return Saldo de fechamento do dia
+     */
+    public BigDecimal saldoAoFimDo(Long contaId, LocalDate dia) {
+        return saldoEm(contaId, dia.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * Saldo da conta imediatamente antes do instante informado (transações nesse
+     * instante exato não são consideradas).
+     *
+     * @param contaId ID da conta
+     * @param instante Instante de referência
+     * @return Saldo no instante
+     */
+    public BigDecimal saldoEm(Long contaId, LocalDateTime instante) {
+        LocalDate diaAnterior = instante.toLocalDate().minusDays(1);
+        Optional<SaldoDiario> snapshot = saldoDiarioRepository
+                .findFirstByContaIdAndDataLessThanEqualOrderByDataDesc(contaId, diaAnterior);
+
+        BigDecimal saldoBase = snapshot.map(SaldoDiario::getSaldoFechamento).orElse(BigDecimal.ZERO);
+        // Sem snapshot, soma desde o início do histórico
+        LocalDateTime inicio = snapshot
+                .map(s -> s.getData().plusDays(1).atStartOfDay())
+                .orElse(LocalDateTime.of(1970, 1, 1, 0, 0));
+        // Todo mês arquivado tem snapshot no último dia para as contas que movimentaram nele,
+        // então dos arquivos só pode faltar o mês do próprio instante
+        LocalDateTime inicioMes = instante.minusNanos(1).toLocalDate().withDayOfMonth(1).atStartOfDay();
+        LocalDateTime inicioArquivo = inicio.isAfter(inicioMes) ? inicio : inicioMes;
+        return saldoBase
+                .add(historicoTransacoes.somarMovimentosArquivados(contaId, inicioArquivo, instante))
+                .add(historicoTransacoes.somarMovimentosRecentes(contaId, inicio, instante));
+    }
+
+    /**
+     * Fecha o dia anterior. Roda logo após a meia-noite.
+     */
+    @Scheduled(cron = "${banco.saldo-diario.cron:0 5 0 * * *}")
+    public void fecharDiaAnterior() {
+        LocalDate dia = LocalDate.now().minusDays(1);
+        int contas = fecharDia(dia);
+        log.info("Fechamento de saldos de {}: {} contas com movimento", dia, contas);
+    }
+
+    /**
+     * Grava o saldo de fechamento do dia para as contas que tiveram movimento nele.
+     * Pode ser executado de novo para o mesmo dia: os snapshots existentes são atualizados.
+     *
+     * @param dia Dia a fechar
+     * @return Quantidade de contas com snapshot gravado
+     */
+    @Transactional
+    public int fecharDia(LocalDate dia) {
+        return fecharPeriodo(dia, dia);
+    }
+
+    /**
+     * Grava o saldo ao fim do último dia do período para as contas que tiveram movimento
+     * em algum dia dele. Usado antes de arquivar um mês, com o período sendo o mês inteiro.
+     *
+     * @param inicio Primeiro dia do período
+     * @param fim Último dia do período, que recebe o snapshot
+     * @return Quantidade de contas com snapshot gravado
+     */
+    @Transactional
+    public int fecharPeriodo(LocalDate inicio, LocalDate fim) {
+        List<Object[]> movimentos = transacaoRepository.somarMovimentosPorConta(
+                inicio.atStartOfDay(), fim.plusDays(1).atStartOfDay());
+
+        for (Object[] movimento : movimentos) {
+            Long contaId = ((Number) movimento[0]).longValue();
+            BigDecimal delta = movimento[1] instanceof BigDecimal valor
+                    ? valor
+                    : new BigDecimal(movimento[1].toString());
+
+            BigDecimal saldoFechamento = saldoEm(contaId, inicio.atStartOfDay()).add(delta);
+            SaldoDiario snapshot = saldoDiarioRepository.findByContaIdAndData(contaId, fim)
+                    .orElseGet(() -> new SaldoDiario(null, contaId, fim, null));
+            snapshot.setSaldoFechamento(saldoFechamento);
+            saldoDiarioRepository.save(snapshot);
+        }
+        return movimentos.size();
+    }
+}
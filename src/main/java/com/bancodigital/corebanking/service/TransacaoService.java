@@ -10,6 +10,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.bancodigital.corebanking.dto.ExtratoLinha;
 import com.bancodigital.corebanking.exception.SaldoInsuficienteException;
 import com.bancodigital.corebanking.exception.TransacaoInvalidaException;
 import com.bancodigital.corebanking.model.Conta;
@@ -24,8 +25,14 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class TransacaoService {
 
+    private static final int QUANTIDADE_RECENTES = 10;
+
     private final TransacaoRepository transacaoRepository;
     private final ContaRepository contaRepository;
+    private final ContaCache contaCache;
+    private final AtividadeRecenteCache atividadeRecente;
+    private final ContaQuenteService contaQuenteService;
+    private final HistoricoTransacoes historicoTransacoes;
 
     /**
      * Realiza um depósito em uma conta
@@ -49,8 +56,8 @@ public class TransacaoService {
         }
 
         // Atualizar saldo da conta
-        conta.setSaldo(conta.getSaldo().add(valor));
-        contaRepository.save(conta);
+        contaQuenteService.creditar(conta, valor);
+        contaCache.invalidar(conta.getNumeroConta());
 
         // Registrar transação
         Transacao transacao = new Transacao();
@@ -84,15 +91,11 @@ public class TransacaoService {
             throw new TransacaoInvalidaException("Conta inativa");
         }
 
-        // Verificar se há saldo suficiente (considerando o limite)
-        BigDecimal saldoDisponivel = conta.getSaldo().add(conta.getLimite());
-        if (valor.compareTo(saldoDisponivel) > 0) {
+        // Atualizar saldo da conta, verificando o saldo suficiente (considerando o limite) no próprio UPDATE
+        if (!contaQuenteService.debitar(conta, valor, true)) {
             throw new SaldoInsuficienteException("Saldo insuficiente para realizar o saque");
         }
-
-        // Atualizar saldo da conta
-        conta.setSaldo(conta.getSaldo().subtract(valor));
-        contaRepository.save(conta);
+        contaCache.invalidar(conta.getNumeroConta());
 
         // Registrar transação
         Transacao transacao = new Transacao();
@@ -134,18 +137,11 @@ public class TransacaoService {
             throw new TransacaoInvalidaException("Uma das contas está inativa");
         }
 
-        // Verificar se há saldo suficiente (considerando o limite)
-        BigDecimal saldoDisponivel = contaOrigem.getSaldo().add(contaOrigem.getLimite());
-        if (valor.compareTo(saldoDisponivel) > 0) {
+        // Atualizar saldos das contas, verificando o saldo suficiente (considerando o limite) no próprio UPDATE
+        if (!contaQuenteService.transferirSaldo(contaOrigem, contaDestino, valor, valor, true)) {
             throw new SaldoInsuficienteException("Saldo insuficiente para realizar a transferência");
         }
-
-        // Atualizar saldos das contas
-        contaOrigem.setSaldo(contaOrigem.getSaldo().subtract(valor));
-        contaDestino.setSaldo(contaDestino.getSaldo().add(valor));
-        
-        contaRepository.save(contaOrigem);
-        contaRepository.save(contaDestino);
+        contaCache.invalidar(List.of(contaOrigem.getNumeroConta(), contaDestino.getNumeroConta()));
 
         // Registrar transação de saída
         Transacao transacaoSaida = new Transacao();
@@ -220,24 +216,25 @@ public class TransacaoService {
      * Lista as transações recentes de uma lista de contas
      * 
      * @param contas Lista de contas
-     * @return Lista de transações recentes
+     * @return Lista de transações recentes, da mais recente para a mais antiga
      */
-    public List<Transacao> listarTransacoesRecentes(List<Conta> contas) {
+    @Transactional(readOnly = true)
+    public List<ExtratoLinha> listarTransacoesRecentes(List<Conta> contas) {
         if (contas == null || contas.isEmpty()) {
             return List.of();
         }
-        
-        // Obtém as últimas 10 transações de cada conta (origem e destino) e combina em uma única lista
-        return contas.stream()
-            .flatMap(conta -> {
-                List<Transacao> transacoesOrigem = transacaoRepository.findTop10ByContaOrigemIdOrderByDataHoraDesc(conta.getId());
-                List<Transacao> transacoesDestino = transacaoRepository.findTop10ByContaDestinoIdOrderByDataHoraDesc(conta.getId());
-                return java.util.stream.Stream.concat(transacoesOrigem.stream(), transacoesDestino.stream());
-            })
-            .sorted((t1, t2) -> t2.getDataHora().compareTo(t1.getDataHora()))
-            .distinct() // Evita duplicações
-            .limit(10)
-            .toList();
+        return atividadeRecente.recentes(contas.stream().map(Conta::getId).toList(), QUANTIDADE_RECENTES);
+    }
+
+    /**
+     * Lista as transações recentes de todas as contas de um cliente
+     * 
+     * @param clienteId ID do cliente
+     * @return Lista de transações recentes, da mais recente para a mais antiga
+     */
+    @Transactional(readOnly = true)
+    public List<ExtratoLinha> listarTransacoesRecentesDoCliente(Long clienteId) {
+        return atividadeRecente.recentes(contaRepository.findIdsByClienteId(clienteId), QUANTIDADE_RECENTES);
     }
     
     /**
@@ -246,10 +243,10 @@ public class TransacaoService {
      * @param contaId ID da conta
      * @param dataInicio Data de início do período
      * @param dataFim Data de fim do período
-     * @return Lista de transações no período
+     * @return Linhas do período, incluindo meses arquivados, da mais recente para a mais antiga
      */
-    public List<Transacao> gerarExtratoPorPeriodo(Long contaId, LocalDateTime dataInicio, LocalDateTime dataFim) {
-        return transacaoRepository.findByDataHoraBetweenAndContaOrigemIdOrDataHoraBetweenAndContaDestinoIdOrderByDataHoraDesc(
-            dataInicio, dataFim, contaId, dataInicio, dataFim, contaId);
+    @Transactional(readOnly = true)
+    public List<ExtratoLinha> gerarExtratoPorPeriodo(Long contaId, LocalDateTime dataInicio, LocalDateTime dataFim) {
+        return historicoTransacoes.periodo(contaId, dataInicio, dataFim);
     }
 }
\ No newline at end of file
@@ -0,0 +1,350 @@
+package com.bancodigital.corebanking.service;
+
+import com.bancodigital.corebanking.dto.TransferenciaLoteItem;
+import com.bancodigital.corebanking.dto.TransferenciaLoteResultado;
+import com.bancodigital.corebanking.model.Conta;
+import com.bancodigital.corebanking.model.Transacao;
+import com.bancodigital.corebanking.repository.ContaRepository;
+import com.bancodigital.corebanking.repository.TransacaoRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Processa transferências em lote (folha de pagamento, fornecedores) lidas em streaming.
+ *
+ * Os itens são agrupados em blocos; cada bloco roda em uma transação que trava as contas
+ * envolvidas em ordem de número, aplica as transferências em memória e deixa o Hibernate
+ * gravar os saldos e as transações com batch de JDBC. Um item recusado não desfaz os
+ * demais itens do bloco.
+ */
+@Service
+public class TransferenciaLoteService {
+
+    private static final byte[] NOVA_LINHA = {'\n'};
+
+    private final ContaRepository contaRepository;
+    private final TransacaoRepository transacaoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final ContaCache contaCache;
+    private final Optional<MotorLancamentos> motorLancamentos;
+    private final int tamanhoBloco;
+
+    public TransferenciaLoteService(
+            ContaRepository contaRepository,
+            TransacaoRepository transacaoRepository,
+            TransactionTemplate transactionTemplate,
+            EntityManager entityManager,
+            ObjectMapper objectMapper,
+            ContaCache contaCache,
+            Optional<MotorLancamentos> motorLancamentos,
+            @Value("${banco.transferencia-lote.tamanho-bloco:500}") int tamanhoBloco) {
+        this.contaRepository = contaRepository;
+        this.transacaoRepository = transacaoRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.contaCache = contaCache;
+        this.motorLancamentos = motorLancamentos;
+        this.tamanhoBloco = tamanhoBloco;
+    }
+
+    /**
+     * Lê as transferências da entrada (array JSON ou CSV) e escreve um resultado por item,
+     * em NDJSON, na saída. Os resultados de cada bloco são enviados assim que o bloco termina.
+     *
+     * @param entrada Corpo da requisição
+     * @param csv Se a entrada está em CSV ({@code origem;destino;valor} ou {@code origem,destino,valor},
+     *            com cabeçalho opcional)
+     * @param saida Corpo da resposta
+     */
+    public void processar(InputStream entrada, boolean csv, OutputStream saida) throws IOException {
+        Iterator<TransferenciaLoteItem> itens = csv
+                ? new LeitorCsv(entrada)
+                : objectMapper.readerFor(TransferenciaLoteItem.class).readValues(entrada);
+
+        List<TransferenciaLoteItem> bloco = new ArrayList<>(tamanhoBloco);
+        long primeiraLinha = 1;
+        String erroEntrada = null;
+        while (erroEntrada == null) {
+            try {
+                if (!itens.hasNext()) {
+                    break;
+                }
+                bloco.add(itens.next());
+            } catch (RuntimeException e) {
+                // Entrada malformada: o que já foi lido é processado e o erro vira o último resultado
+                erroEntrada = "Entrada inválida: " + e.getMessage();
+                break;
+            }
+            if (bloco.size() == tamanhoBloco) {
+                escrever(processarBloco(bloco, primeiraLinha), saida);
+                primeiraLinha += bloco.size();
+                bloco.clear();
+            }
+        }
+        if (!bloco.isEmpty()) {
+            escrever(processarBloco(bloco, primeiraLinha), saida);
+            primeiraLinha += bloco.size();
+        }
+        if (erroEntrada != null) {
+            TransferenciaLoteResultado erro = new TransferenciaLoteResultado();
+            erro.setLinha(primeiraLinha);
+            erro.setErro(erroEntrada);
+            escrever(List.of(erro), saida);
+        }
+    }
+
+    private List<TransferenciaLoteResultado> processarBloco(List<TransferenciaLoteItem> itens, long primeiraLinha) {
+        if (motorLancamentos.isPresent()) {
+            return processarBlocoNoMotor(motorLancamentos.get(), itens, primeiraLinha);
+        }
+
+        return transactionTemplate.execute(status -> {
+            Set<String> numerosConta = new TreeSet<>();
+            for (TransferenciaLoteItem item : itens) {
+                if (item.getNumeroContaOrigem() != null) {
+                    numerosConta.add(item.getNumeroContaOrigem());
+                }
+                if (item.getNumeroContaDestino() != null) {
+                    numerosConta.add(item.getNumeroContaDestino());
+                }
+            }
+            Map<String, Conta> contas = contaRepository.findAllByNumeroContaInParaAtualizacao(numerosConta).stream()
+                    .collect(Collectors.toMap(Conta::getNumeroConta, Function.identity()));
+
+            List<TransferenciaLoteResultado> resultados = new ArrayList<>(itens.size());
+            List<Transacao> transacoes = new ArrayList<>(itens.size());
+            List<Transacao> transacaoPorItem = new ArrayList<>(itens.size());
+            for (TransferenciaLoteItem item : itens) {
+                Transacao transacao = null;
+                String erro = validar(item, contas);
+                if (erro == null) {
+                    Conta contaOrigem = contas.get(item.getNumeroContaOrigem());
+                    Conta contaDestino = contas.get(item.getNumeroContaDestino());
+                    BigDecimal taxa = contaOrigem.calcularTaxa(item.getValor());
+                    BigDecimal valorTotal = item.getValor().add(taxa);
+
+                    if (contaOrigem.getSaldo().add(contaOrigem.getLimite()).compareTo(valorTotal) < 0) {
+                        erro = "Saldo insuficiente para realizar a transferência";
+                    } else {
+                        contaOrigem.setSaldo(contaOrigem.getSaldo().subtract(valorTotal));
+                        contaDestino.setSaldo(contaDestino.getSaldo().add(item.getValor()));
+
+                        transacao = new Transacao();
+                        transacao.setTipo(Transacao.TipoTransacao.TRANSFERENCIA);
+                        transacao.setValor(item.getValor());
+                        transacao.setTaxa(taxa);
+                        transacao.setContaOrigem(contaOrigem);
+                        transacao.setContaDestino(contaDestino);
+                        transacao.setDataHora(LocalDateTime.now());
+                        transacao.setDescricao("Transferência em lote");
+                        transacoes.add(transacao);
+                    }
+                }
+                transacaoPorItem.add(transacao);
+                resultados.add(resultado(item, primeiraLinha + resultados.size(), erro));
+            }
+
+            transacaoRepository.saveAll(transacoes);
+            contaCache.invalidar(contas.keySet());
+            entityManager.flush();
+            entityManager.clear();
+
+            // Os ids já foram atribuídos pela sequência no persist
+            for (int i = 0; i < resultados.size(); i++) {
+                if (transacaoPorItem.get(i) != null) {
+                    resultados.get(i).setTransacaoId(transacaoPorItem.get(i).getId());
+                }
+            }
+            return resultados;
+        });
+    }
+
+    private List<TransferenciaLoteResultado> processarBlocoNoMotor(MotorLancamentos motor,
+                                                                   List<TransferenciaLoteItem> itens,
+                                                                   long primeiraLinha) {
+        List<TransferenciaLoteResultado> resultados = new ArrayList<>(itens.size());
+        for (TransferenciaLoteItem item : itens) {
+            String erro = validarCampos(item);
+            if (erro == null) {
+                try {
+                    motor.transferir(item.getNumeroContaOrigem(), item.getNumeroContaDestino(), item.getValor());
+                } catch (RuntimeException e) {
+                    erro = e.getMessage();
+                }
+            }
+            resultados.add(resultado(item, primeiraLinha + resultados.size(), erro));
+        }
+        return resultados;
+    }
+
+    private String validar(TransferenciaLoteItem item, Map<String, Conta> contas) {
+        String erro = validarCampos(item);
+        if (erro != null) {
+            return erro;
+        }
+        Conta contaOrigem = contas.get(item.getNumeroContaOrigem());
+        Conta contaDestino = contas.get(item.getNumeroContaDestino());
+        if (contaOrigem == null) {
+            return "Conta de origem não encontrada";
+        }
+        if (contaDestino == null) {
+            return "Conta de destino não encontrada";
+        }
+        if (!contaOrigem.isAtiva() || !contaDestino.isAtiva()) {
+            return "Uma das contas está inativa";
+        }
+        return null;
+    }
+
+    private String validarCampos(TransferenciaLoteItem item) {
+        if (item instanceof LinhaCsvInvalida linhaInvalida) {
+            return linhaInvalida.erro;
+        }
+        if (item.getNumeroContaOrigem() == null || item.getNumeroContaDestino() == null) {
+            return "Contas de origem e destino são obrigatórias";
+        }
+        if (item.getValor() == null || item.getValor().compareTo(BigDecimal.ZERO) <= 0) {
+            return "Valor de transferência deve ser maior que zero";
+        }
+        if (item.getNumeroContaOrigem().equals(item.getNumeroContaDestino())) {
+            return "As contas de origem e destino não podem ser iguais";
+        }
+        return null;
+    }
+
+    private TransferenciaLoteResultado resultado(TransferenciaLoteItem item, long linha, String erro) {
+        return new TransferenciaLoteResultado(
+                linha,
+                item.getNumeroContaOrigem(),
+                item.getNumeroContaDestino(),
+                item.getValor(),
+                erro == null,
+                null,
+                erro);
+    }
+
+    private void escrever(List<TransferenciaLoteResultado> resultados, OutputStream saida) throws IOException {
+        for (TransferenciaLoteResultado resultado : resultados) {
+            saida.write(objectMapper.writeValueAsBytes(resultado));
+            saida.write(NOVA_LINHA);
+        }
+        saida.flush();
+    }
+
+    /**
+     * Lê linhas {@code origem;destino;valor} ou {@code origem,destino,valor}. O separador é
+     * o da primeira linha (ponto e vírgula, se ela tiver algum) e vale para o arquivo todo;
+     * com ponto e vírgula o valor pode usar vírgula decimal ({@code 1.234,56}).
+     * Um cabeçalho começando por "numeroContaOrigem" é ignorado. Linhas com quantidade de
+     * campos diferente de três viram itens inválidos e linhas com valor inválido viram itens
+     * sem valor; ambos são recusados na validação.
+     */
+    private static final class LeitorCsv implements Iterator<TransferenciaLoteItem> {
+
+        private final BufferedReader leitor;
+        private String proximaLinha;
+        private boolean primeiraLinha = true;
+        private char separador;
+
+        private LeitorCsv(InputStream entrada) {
+            this.leitor = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (proximaLinha == null) {
+                    String linha = leitor.readLine();
+                    if (linha == null) {
+                        return false;
+                    }
+                    if (linha.isBlank()) {
+                        continue;
+                    }
+                    boolean cabecalho = primeiraLinha && linha.trim().toLowerCase().startsWith("numerocontaorigem");
+                    if (primeiraLinha) {
+                        separador = linha.indexOf(';') >= 0 ? ';' : ',';
+                        primeiraLinha = false;
+                    }
+                    if (!cabecalho) {
+                        proximaLinha = linha;
+                    }
+                }
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public TransferenciaLoteItem next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            String[] campos = proximaLinha.split(separador == ';' ? ";" : ",", -1);
+            proximaLinha = null;
+
+            TransferenciaLoteItem item = campos.length == 3
+                    ? new TransferenciaLoteItem()
+                    : new LinhaCsvInvalida("Linha deve ter 3 campos separados por '" + separador
+                            + "', encontrados " + campos.length);
+            if (campos.length >= 2) {
+                item.setNumeroContaOrigem(campos[0].trim());
+                item.setNumeroContaDestino(campos[1].trim());
+            }
+            if (campos.length == 3) {
+                item.setValor(valor(campos[2].trim()));
+            }
+            return item;
+        }
+
+        private BigDecimal valor(String texto) {
+            if (separador == ';' && texto.indexOf(',') >= 0) {
+                // Formato brasileiro: ponto de milhar e vírgula decimal
+                texto = texto.replace(".", "").replace(',', '.');
+            }
+            try {
+                return new BigDecimal(texto);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Linha do CSV que não pôde ser interpretada; é recusada com a mensagem {@code erro}.
+     */
+    private static final class LinhaCsvInvalida extends TransferenciaLoteItem {
+        private final String erro;
+
+        private LinhaCsvInvalida(String erro) {
+            this.erro = erro;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.bancodigital.corebanking.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Confere o roteamento de leituras entre o primário e as réplicas ({@code DataSourceRoteado}),
+ * com um H2 em memória para o primário e outro para cada réplica. Cada banco tem um instante
+ * diferente em {@code heartbeat_replicacao}, e a leitura dele mostra qual banco respondeu.
+ *
+ * Em cada caso o contador {@code banco.datasource.rota} da rota e do motivo esperados tem de
+ * aumentar. Tarefas agendadas da aplicação também usam o DataSource, por isso o contador é
+ * conferido por aumento, e o banco de cada leitura pelo heartbeat lido.
+ */
+@SpringBootTest(properties = {
+        // Primário próprio: este contexto não é compartilhado com os outros testes
+        "spring.datasource.url=jdbc:h2:mem:teste-primario;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "banco.replicas.atraso-maximo=PT2S",
+        // Só as verificações chamadas aqui mudam a disponibilidade
+        "banco.replicas.intervalo-verificacao=PT1H"})
+@ActiveProfiles("teste")
+class RoteamentoLeituraTest {
+
+    private static final String REPLICA_1 = "replica-1";
+    private static final String REPLICA_2 = "replica-2";
+    private static final String URL_REPLICA = "jdbc:h2:mem:%s;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    private static final String LER_HEARTBEAT = "SELECT instante FROM heartbeat_replicacao WHERE id = 1";
+
+    // Instantes que identificam cada réplica; no futuro, a réplica está em dia
+    private static final LocalDateTime EM_DIA_1 = LocalDateTime.now().plusDays(1).withNano(0);
+    private static final LocalDateTime EM_DIA_2 = LocalDateTime.now().plusDays(2).withNano(0);
+    private static final LocalDateTime ATRASADA_1 = LocalDateTime.now().minusHours(1).withNano(0);
+    private static final LocalDateTime ATRASADA_2 = LocalDateTime.now().minusHours(2).withNano(0);
+
+    private static final Map<String, JdbcTemplate> REPLICAS = new LinkedHashMap<>();
+
+    @Autowired
+    private RoteamentoLeitura roteamento;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ConsistenciaLeituraFilter filtro;
+
+    @Autowired
+    private PlatformTransactionManager transacoes;
+
+    private TransactionTemplate escrita;
+    private TransactionTemplate leitura;
+
+    // As réplicas precisam do heartbeat antes de a aplicação subir e verificá-las
+    @DynamicPropertySource
+    static void replicas(DynamicPropertyRegistry propriedades) {
+        propriedades.add("banco.replicas.urls", () -> String.join(",",
+                prepararReplica(REPLICA_1), prepararReplica(REPLICA_2)));
+    }
+
+    private static String prepararReplica(String nome) {
+        String url = String.format(URL_REPLICA, "teste-" + nome);
+        JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+        replica.execute("CREATE TABLE IF NOT EXISTS heartbeat_replicacao (id INT PRIMARY KEY, instante TIMESTAMP NOT NULL)");
+        replica.update("MERGE INTO heartbeat_replicacao (id, instante) KEY (id) VALUES (1, ?)",
+                Timestamp.valueOf(instanteEmDia(nome)));
+        REPLICAS.put(nome, replica);
+        return url;
+    }
+
+    @BeforeEach
+    void colocarReplicasEmDia() {
+        escrita = new TransactionTemplate(transacoes);
+        leitura = new TransactionTemplate(transacoes);
+        leitura.setReadOnly(true);
+        REPLICAS.forEach((nome, replica) -> replica.update(
+                "UPDATE heartbeat_replicacao SET instante = ? WHERE id = 1", Timestamp.valueOf(instanteEmDia(nome))));
+        roteamento.verificar();
+    }
+
+    @Test
+    void transacaoDeEscritaVaiAoPrimario() {
+        conferir(RoteamentoLeitura.PRIMARIO, "escrita", null, () -> escrita.execute(status -> lerHeartbeat()));
+    }
+
+    @Test
+    void transacoesSomenteLeituraFazemRodizioEntreAsReplicas() {
+        // O rodízio pode começar em qualquer réplica; as duas leituras seguidas cobrem as duas
+        LocalDateTime primeira = lerNaReplica();
+        String primeiraReplica = EM_DIA_1.equals(primeira) ? REPLICA_1 : REPLICA_2;
+        String segundaReplica = primeiraReplica.equals(REPLICA_1) ? REPLICA_2 : REPLICA_1;
+        conferir(segundaReplica, "leitura", instanteEmDia(segundaReplica), this::lerNaReplica);
+        conferir(primeiraReplica, "leitura", instanteEmDia(primeiraReplica), this::lerNaReplica);
+    }
+
+    @Test
+    void consistenciaForteVaiAoPrimario() {
+        conferir(RoteamentoLeitura.PRIMARIO, "consistencia", null,
+                () -> ConsistenciaLeitura.noPrimario(this::lerNaReplica));
+        conferir(RoteamentoLeitura.PRIMARIO, "consistencia", null, () -> lerPeloFiltro("forte"));
+    }
+
+    @Test
+    void consistenciaEventualVaiAsReplicas() {
+        conferir(REPLICA_1 + "|" + REPLICA_2, "leitura", null, () -> lerPeloFiltro("eventual"));
+    }
+
+    @Test
+    void replicaAtrasadaSaiDoRodizio() {
+        atrasar(REPLICA_2, ATRASADA_2);
+        conferir(REPLICA_1, "leitura", EM_DIA_1, this::lerNaReplica);
+        conferir(REPLICA_1, "leitura", EM_DIA_1, this::lerNaReplica);
+
+        atrasar(REPLICA_1, ATRASADA_1);
+        conferir(RoteamentoLeitura.PRIMARIO, "sem_replica", null, this::lerNaReplica);
+    }
+
+    private LocalDateTime lerHeartbeat() {
+        return jdbcTemplate.queryForObject(LER_HEARTBEAT, Timestamp.class).toLocalDateTime();
+    }
+
+    private LocalDateTime lerNaReplica() {
+        return leitura.execute(status -> lerHeartbeat());
+    }
+
+    private LocalDateTime lerPeloFiltro(String consistencia) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/contas");
+        request.addHeader(ConsistenciaLeitura.CABECALHO, consistencia);
+        LocalDateTime[] lido = new LocalDateTime[1];
+        try {
+            filtro.doFilter(request, new MockHttpServletResponse(), (req, res) -> lido[0] = lerNaReplica());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return lido[0];
+    }
+
+    private void atrasar(String replica, LocalDateTime instante) {
+        REPLICAS.get(replica).update("UPDATE heartbeat_replicacao SET instante = ? WHERE id = 1",
+                Timestamp.valueOf(instante));
+        roteamento.verificar();
+    }
+
+    private static LocalDateTime instanteEmDia(String replica) {
+        return REPLICA_1.equals(replica) ? EM_DIA_1 : EM_DIA_2;
+    }
+
+    /**
+     * @param rotas Rota esperada, ou várias separadas por {@code |} quando qualquer uma serve
+     * @param instante Heartbeat que o banco esperado tem; nulo para o primário, que não tem
+     *                 nenhum dos instantes das réplicas
+     */
+    private void conferir(String rotas, String motivo, LocalDateTime instante, Supplier<LocalDateTime> consulta) {
+        String[] candidatas = rotas.split("\\|");
+        double antes = somar(candidatas, motivo);
+        LocalDateTime lido = consulta.get();
+
+        if (instante != null) {
+            assertThat(lido).as("heartbeat lido").isEqualTo(instante);
+        } else if (RoteamentoLeitura.PRIMARIO.equals(rotas)) {
+            assertThat(lido).as("heartbeat lido").isNotIn(EM_DIA_1, EM_DIA_2, ATRASADA_1, ATRASADA_2);
+        } else {
+            assertThat(lido).as("heartbeat lido").isIn(EM_DIA_1, EM_DIA_2);
+        }
+        assertThat(somar(candidatas, motivo) - antes).as("banco.datasource.rota %s/%s", rotas, motivo)
+                .isGreaterThanOrEqualTo(1);
+    }
+
+    private double somar(String[] rotas, String motivo) {
+        double soma = 0;
+        for (String rota : rotas) {
+            Counter contador = registry.find("banco.datasource.rota").tag("rota", rota).tag("motivo", motivo).counter();
+            soma += contador == null ? 0 : contador.count();
+        }
+        return soma;
+    }
+}
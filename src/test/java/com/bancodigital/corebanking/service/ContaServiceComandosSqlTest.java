@@ -0,0 +1,117 @@
+package com.bancodigital.corebanking.service;
+
+import com.bancodigital.corebanking.config.ContadorSql;
+import com.bancodigital.corebanking.dto.ExtratoPagina;
+import com.bancodigital.corebanking.model.Cliente;
+import com.bancodigital.corebanking.model.Conta;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Confere, com o {@link ContadorSql}, quantos comandos SQL cada leitura de conta e de extrato
+ * executa. A quantidade não pode depender do número de transações: as mesmas consultas são
+ * medidas com uma conta de dezenas de transações e com outra de milhares.
+ *
+ * Esperado por chamada, com a conta já no cache:
+ * <ul>
+ *   <li>página do extrato (primeira ou seguinte): 1, o UNION por keyset;</li>
+ *   <li>extrato do período: 3, snapshot diário, soma dos movimentos desde ele e o UNION;</li>
+ *   <li>resumos das contas, de todas ou de um cliente: 1.</li>
+ * </ul>
+ */
+@SpringBootTest
+@ActiveProfiles("teste")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ContaServiceComandosSqlTest {
+
+    private static final int TRANSACOES_CONTA_POUCO_MOVIMENTADA = 60;
+    private static final int TRANSACOES_CONTA_MOVIMENTADA = 3_000;
+
+    @Autowired
+    private ContaService contaService;
+
+    @Autowired
+    private ClienteService clienteService;
+
+    private Long clienteId;
+    private Conta poucas;
+    private Conta muitas;
+
+    @BeforeAll
+    void criarContas() {
+        Cliente cliente = new Cliente();
+        cliente.setNome("Cliente Comandos SQL");
+        cliente.setCpf("00000000004");
+        cliente.setEmail("comandos@bancodigital.com");
+        cliente.setTelefone("11999999999");
+        clienteId = clienteService.cadastrarCliente(cliente).getId();
+
+        poucas = clienteService.criarContaCorrenteParaCliente(clienteId);
+        muitas = clienteService.criarContaCorrenteParaCliente(clienteId);
+        Conta contraparte = clienteService.criarContaCorrenteParaCliente(clienteId);
+        contaService.depositar(muitas.getNumeroConta(), new BigDecimal("100000.00"));
+        contaService.depositar(contraparte.getNumeroConta(), new BigDecimal("1000.00"));
+        // A conta com poucas transações precisa de mais de uma página de extrato
+        for (int i = 0; i < TRANSACOES_CONTA_POUCO_MOVIMENTADA; i++) {
+            contaService.depositar(poucas.getNumeroConta(), new BigDecimal("10.00"));
+        }
+        for (int i = 0; i < TRANSACOES_CONTA_MOVIMENTADA; i++) {
+            // Alterna os lados, para o extrato ter as duas pernas intercaladas
+            if (i % 2 == 0) {
+                contaService.transferir(muitas.getNumeroConta(), contraparte.getNumeroConta(), new BigDecimal("1.00"));
+            } else {
+                contaService.transferir(contraparte.getNumeroConta(), muitas.getNumeroConta(), new BigDecimal("0.50"));
+            }
+        }
+    }
+
+    @Test
+    void paginasDoExtratoUsamUmComando() {
+        for (Conta conta : new Conta[] {poucas, muitas}) {
+            String numeroConta = conta.getNumeroConta();
+            // Recoloca a conta no cache, invalidado pelas transferências
+            contaService.buscarContaPorNumero(numeroConta);
+
+            ExtratoPagina primeira = conferir("extrato " + numeroConta + ", primeira página", 1,
+                    () -> contaService.extrato(numeroConta, 50, null));
+            assertThat(primeira.getProximoCursor()).isNotNull();
+            conferir("extrato " + numeroConta + ", página seguinte", 1,
+                    () -> contaService.extrato(numeroConta, 50, primeira.getProximoCursor()));
+        }
+    }
+
+    @Test
+    void extratoDoPeriodoUsaTresComandos() {
+        for (Conta conta : new Conta[] {poucas, muitas}) {
+            String numeroConta = conta.getNumeroConta();
+            contaService.buscarContaPorNumero(numeroConta);
+
+            conferir("extrato do período " + numeroConta, 3,
+                    () -> contaService.extratoPeriodo(numeroConta,
+                            LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(1)));
+        }
+    }
+
+    @Test
+    void resumosDasContasUsamUmComando() {
+        conferir("resumos das contas", 1, () -> contaService.listarResumos());
+        conferir("resumos das contas do cliente", 1, () -> contaService.listarResumosPorCliente(clienteId));
+    }
+
+    private static <T> T conferir(String descricao, long esperados, Supplier<T> consulta) {
+        long antes = ContadorSql.comandos();
+        T resultado = consulta.get();
+        assertThat(ContadorSql.comandos() - antes).as(descricao).isEqualTo(esperados);
+        return resultado;
+    }
+}
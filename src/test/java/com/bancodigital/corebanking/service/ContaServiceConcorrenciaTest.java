@@ -0,0 +1,188 @@
+package com.bancodigital.corebanking.service;
+
+import com.bancodigital.corebanking.exception.SaldoInsuficienteException;
+import com.bancodigital.corebanking.model.Cliente;
+import com.bancodigital.corebanking.model.Conta;
+import com.bancodigital.corebanking.model.Transacao;
+import com.bancodigital.corebanking.repository.ContaRepository;
+import com.bancodigital.corebanking.repository.TransacaoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Dispara transferências, PIX e transferências do {@link TransacaoService} concorrentes entre
+ * poucas contas e confere os invariantes do razão, como o {@code SimuladorEstresse} do
+ * core-banking-benchmarks em escala menor. Os saldos são os totais de
+ * {@link ContaRepository#findSaldoTotal}, que incluem as fatias de crédito das contas quentes.
+ */
+@SpringBootTest
+@ActiveProfiles("teste")
+class ContaServiceConcorrenciaTest {
+
+    private static final int CONTAS = 20;
+    private static final int THREADS = 8;
+    private static final int OPERACOES = 2_000;
+    private static final BigDecimal SALDO_INICIAL = new BigDecimal("1000.00");
+    private static final LocalDateTime INICIO_HISTORICO = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @Autowired
+    private ContaService contaService;
+
+    @Autowired
+    private TransacaoService transacaoService;
+
+    @Autowired
+    private ClienteService clienteService;
+
+    @Autowired
+    private ContaRepository contaRepository;
+
+    @Autowired
+    private TransacaoRepository transacaoRepository;
+
+    private final List<Conta> contas = new ArrayList<>();
+    // Efeito esperado em cada conta, somado a partir das transações confirmadas
+    private final Map<String, BigDecimal> saldoEsperado = new ConcurrentHashMap<>();
+    private final AtomicLong confirmadas = new AtomicLong();
+    private final AtomicReference<RuntimeException> primeiroErro = new AtomicReference<>();
+
+    @Test
+    void operacoesConcorrentesPreservamOsInvariantesDoRazao() throws InterruptedException {
+        criarContas();
+        BigDecimal somaInicial = somarSaldos();
+        BigDecimal taxasIniciais = somarTaxas();
+
+        dispararOperacoes();
+
+        // Só saldo insuficiente é aceito como falha
+        assertThat(primeiroErro.get()).isNull();
+        assertThat(confirmadas.get()).isPositive();
+
+        // A soma dos saldos só diminui pelo total de taxas gravadas nas transações
+        BigDecimal taxas = somarTaxas().subtract(taxasIniciais);
+        assertThat(somarSaldos()).isEqualByComparingTo(somaInicial.subtract(taxas));
+
+        for (Conta conta : contas) {
+            Conta atual = contaRepository.findById(conta.getId()).orElseThrow();
+            BigDecimal saldoTotal = contaRepository.findSaldoTotal(conta.getId());
+            // Débitos saem só do saldo principal; créditos podem estar nas fatias
+            assertThat(atual.getSaldo().add(atual.getLimite()).signum())
+                    .as("conta %s acima do limite", conta.getNumeroConta())
+                    .isNotNegative();
+            assertThat(transacaoRepository.somarMovimentos(
+                    conta.getId(), INICIO_HISTORICO, LocalDateTime.now().plusDays(1)))
+                    .as("histórico da conta %s", conta.getNumeroConta())
+                    .isEqualByComparingTo(saldoTotal);
+            // Diferença aqui é atualização perdida
+            assertThat(saldoTotal)
+                    .as("saldo da conta %s", conta.getNumeroConta())
+                    .isEqualByComparingTo(saldoEsperado.get(conta.getNumeroConta()));
+        }
+    }
+
+    private void criarContas() {
+        Cliente cliente = new Cliente();
+        cliente.setNome("Cliente Concorrência");
+        cliente.setCpf("00000000005");
+        cliente.setEmail("concorrencia@bancodigital.com");
+        cliente.setTelefone("11999999999");
+        cliente = clienteService.cadastrarCliente(cliente);
+
+        for (int i = 0; i < CONTAS; i++) {
+            // Metade corrente (com cheque especial) e metade poupança
+            Conta conta = i % 2 == 0
+                    ? clienteService.criarContaCorrenteParaCliente(cliente.getId())
+                    : clienteService.criarContaPoupancaParaCliente(cliente.getId());
+            contaService.depositar(conta.getNumeroConta(), SALDO_INICIAL);
+            saldoEsperado.put(conta.getNumeroConta(), SALDO_INICIAL);
+            contas.add(conta);
+        }
+    }
+
+    private void dispararOperacoes() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch largada = new CountDownLatch(1);
+        AtomicLong restantes = new AtomicLong(OPERACOES);
+        for (int t = 0; t < THREADS; t++) {
+            executor.execute(() -> {
+                try {
+                    largada.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                while (restantes.getAndDecrement() > 0) {
+                    executarOperacao();
+                }
+            });
+        }
+        largada.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.MINUTES)).isTrue();
+    }
+
+    private void executarOperacao() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int indiceOrigem = random.nextInt(contas.size());
+        int indiceDestino = random.nextInt(contas.size() - 1);
+        if (indiceDestino >= indiceOrigem) {
+            indiceDestino++;
+        }
+        Conta origem = contas.get(indiceOrigem);
+        Conta destino = contas.get(indiceDestino);
+        BigDecimal valor = BigDecimal.valueOf(random.nextInt(1, 50_000), 2);
+
+        try {
+            Transacao transacao = switch (random.nextInt(3)) {
+                case 0 -> contaService.transferir(origem.getNumeroConta(), destino.getNumeroConta(), valor);
+                case 1 -> contaService.pix(origem.getNumeroConta(), destino.getNumeroConta(), valor);
+                default -> transacaoService.realizarTransferencia(origem.getId(), destino.getId(), valor, "Teste");
+            };
+            BigDecimal taxa = transacao.getTaxa() == null ? BigDecimal.ZERO : transacao.getTaxa();
+            saldoEsperado.merge(origem.getNumeroConta(), valor.add(taxa).negate(), BigDecimal::add);
+            saldoEsperado.merge(destino.getNumeroConta(), valor, BigDecimal::add);
+            confirmadas.incrementAndGet();
+        } catch (SaldoInsuficienteException e) {
+            // Esperado com saldos aleatórios
+        } catch (RuntimeException e) {
+            primeiroErro.compareAndSet(null, e);
+        }
+    }
+
+    private BigDecimal somarSaldos() {
+        return contas.stream()
+                .map(conta -> contaRepository.findSaldoTotal(conta.getId()))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    // Só as taxas cobradas das contas deste teste; o banco é compartilhado com os outros testes
+    private BigDecimal somarTaxas() {
+        Set<Long> ids = contas.stream().map(Conta::getId).collect(Collectors.toSet());
+        return transacaoRepository.findAll().stream()
+                .filter(transacao -> transacao.getContaOrigem() != null
+                        && ids.contains(transacao.getContaOrigem().getId()))
+                .map(Transacao::getTaxa)
+                .filter(taxa -> taxa != null)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
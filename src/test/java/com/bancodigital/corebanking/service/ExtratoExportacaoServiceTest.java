@@ -0,0 +1,115 @@
+package com.bancodigital.corebanking.service;
+
+import com.bancodigital.corebanking.model.Cliente;
+import com.bancodigital.corebanking.model.Conta;
+import com.bancodigital.corebanking.model.Transacao.TipoTransacao;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Exporta o extrato de uma conta com milhões de transações sintéticas e confere que todas
+ * as linhas saíram. Roda numa execução própria do surefire com heap de 256 MB: se a
+ * exportação montasse o histórico em memória, terminaria em {@link OutOfMemoryError}.
+ *
+ * O H2 fica em arquivo, em {@code target/}, já que um banco em memória com essas linhas não
+ * caberia no heap. A quantidade de transações pode ser trocada com
+ * {@code -Dexportacao.linhas=N}.
+ */
+@SpringBootTest(properties = "spring.datasource.url="
+        + "jdbc:h2:file:./target/teste-exportacao-extrato/banco;MODE=MySQL;MAX_MEMORY_ROWS=10000")
+@ActiveProfiles("teste")
+class ExtratoExportacaoServiceTest {
+
+    private static final LocalDateTime INICIO = LocalDateTime.of(2020, 1, 1, 0, 0);
+    private static final String INSERIR = "INSERT INTO transacao"
+            + " (id, tipo, valor, taxa, data_hora, descricao, conta_origem_id, conta_destino_id)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int TAMANHO_LOTE = 10_000;
+
+    @Autowired
+    private ClienteService clienteService;
+
+    @Autowired
+    private ExtratoExportacaoService exportacaoService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void exportaMilhoesDeTransacoesComHeapPequeno() throws IOException {
+        int linhas = Integer.getInteger("exportacao.linhas", 5_000_000);
+        // Com heap grande a exportação passaria mesmo montando o histórico em memória
+        assertThat(Runtime.getRuntime().maxMemory()).as("heap máximo").isLessThanOrEqualTo(256L << 20);
+
+        Cliente cliente = new Cliente();
+        cliente.setNome("Cliente Exportação");
+        cliente.setCpf("00000000003");
+        cliente.setEmail("exportacao@bancodigital.com");
+        cliente.setTelefone("11999999999");
+        cliente = clienteService.cadastrarCliente(cliente);
+        Conta conta = clienteService.criarContaCorrenteParaCliente(cliente.getId());
+        Conta contraparte = clienteService.criarContaCorrenteParaCliente(cliente.getId());
+
+        SplittableRandom random = new SplittableRandom(42);
+        List<Object[]> lote = new ArrayList<>(TAMANHO_LOTE);
+        for (int i = 0; i < linhas; i++) {
+            boolean enviada = random.nextBoolean();
+            lote.add(new Object[] {
+                    (long) i + 1,
+                    TipoTransacao.TRANSFERENCIA.name(),
+                    BigDecimal.valueOf(random.nextInt(1, 500_000), 2),
+                    enviada ? new BigDecimal("0.30") : null,
+                    Timestamp.valueOf(INICIO.plusSeconds(i * 10L)),
+                    "Transferência entre contas",
+                    enviada ? conta.getId() : contraparte.getId(),
+                    enviada ? contraparte.getId() : conta.getId()});
+            if (lote.size() == TAMANHO_LOTE) {
+                jdbcTemplate.batchUpdate(INSERIR, lote);
+                lote.clear();
+            }
+        }
+        if (!lote.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERIR, lote);
+        }
+
+        ContadorLinhas saida = new ContadorLinhas();
+        exportacaoService.exportar(conta.getNumeroConta(), ExtratoExportacaoService.Formato.CSV, saida);
+
+        // Cabeçalho mais uma linha por transação
+        assertThat(saida.linhas).isEqualTo(linhas + 1L);
+    }
+
+    private static final class ContadorLinhas extends OutputStream {
+        private long linhas;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                linhas++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int inicio, int tamanho) {
+            for (int i = inicio; i < inicio + tamanho; i++) {
+                if (b[i] == '\n') {
+                    linhas++;
+                }
+            }
+        }
+    }
+}